@@ -0,0 +1,22 @@
+package com.ncov.module.common.enums;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserRoleBenchmark {
+
+    @Param({"1", "3"})
+    private Integer roleId;
+
+    @Benchmark
+    public UserRole getRoleById() {
+        return UserRole.getRoleById(roleId);
+    }
+}
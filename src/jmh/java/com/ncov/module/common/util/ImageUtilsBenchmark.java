@@ -0,0 +1,38 @@
+package com.ncov.module.common.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageUtilsBenchmark {
+
+    private List<String> urls;
+    private String joinedUrls;
+
+    @Setup
+    public void setUp() {
+        urls = Arrays.asList(
+                "https://oss.com/4ncov/images/0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef.jpg",
+                "https://oss.com/4ncov/images/fedcba9876543210fedcba9876543210fedcba9876543210fedcba9876543210.png",
+                "https://oss.com/4ncov/images/legacy.png");
+        joinedUrls = ImageUtils.joinImageUrls(urls);
+    }
+
+    @Benchmark
+    public List<String> splitImageUrls() {
+        return ImageUtils.splitImageUrls(joinedUrls);
+    }
+
+    @Benchmark
+    public String joinImageUrls() {
+        return ImageUtils.joinImageUrls(urls);
+    }
+}
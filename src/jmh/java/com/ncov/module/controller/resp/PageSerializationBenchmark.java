@@ -0,0 +1,72 @@
+package com.ncov.module.controller.resp;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ncov.module.common.enums.MaterialStatus;
+import com.ncov.module.controller.dto.AddressDto;
+import com.ncov.module.controller.dto.MaterialDto;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 公开列表一页数据的JSON序列化，ObjectMapper按Spring MVC默认方式构建
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Page<MaterialResponse> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<MaterialResponse> data = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            String imageUrl = "https://oss.com/4ncov/images/" + i + ".jpg";
+            data.add(MaterialResponse.builder()
+                    .id(String.valueOf(1000 + i))
+                    .material(MaterialDto.builder()
+                            .name("N95口罩")
+                            .category("口罩")
+                            .standard("GB2626-2006")
+                            .quantity(10000.0)
+                            .imageUrls(Collections.singletonList(imageUrl))
+                            .thumbnailUrls(Collections.singletonList(imageUrl))
+                            .previewUrls(Collections.singletonList(imageUrl))
+                            .build())
+                    .organisationName("武汉协和医院")
+                    .address(AddressDto.builder()
+                            .country("中国").province("湖北省").city("武汉市").district("江汉区")
+                            .streetAddress("解放大道1277号")
+                            .build())
+                    .contactorName("张医生")
+                    .contactorPhone("13800000000")
+                    .comment("急需，可接受KN95")
+                    .status(MaterialStatus.PUBLISHED.name())
+                    .gmtCreated(new Date())
+                    .gmtModified(new Date())
+                    .build());
+        }
+        page = Page.<MaterialResponse>builder().data(data).page(1).pageSize(pageSize).total(1000L).build();
+    }
+
+    @Benchmark
+    public byte[] writePage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
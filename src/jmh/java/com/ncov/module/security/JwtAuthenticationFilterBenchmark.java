@@ -0,0 +1,68 @@
+package com.ncov.module.security;
+
+import com.ncov.module.common.Constants;
+import com.ncov.module.common.enums.UserRole;
+import com.ncov.module.config.AuthorisationEndpointConfiguration;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个请求的认证开销：缓存未命中时的解析验签，以及命中缓存时的查表
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    private static final String SECRET = "benchmark-secret";
+
+    private JwtAuthenticationFilter filter;
+    private JwtTokenCache jwtTokenCache;
+    private String jwt;
+
+    @Setup
+    public void setUp() {
+        AuthorisationEndpointConfiguration configuration = new AuthorisationEndpointConfiguration();
+        configuration.setJwtSecret(SECRET);
+        jwtTokenCache = new JwtTokenCache(10000, 30);
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "authorisationEndpointConfiguration", configuration);
+        ReflectionTestUtils.setField(filter, "jwtTokenCache", jwtTokenCache);
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+        // 与UserInfoService.signIn签发的token结构一致
+        Date now = new Date();
+        jwt = Jwts.builder()
+                .signWith(SignatureAlgorithm.HS256, SECRET)
+                .setExpiration(new Date(now.getTime() + TimeUnit.DAYS.toMillis(30)))
+                .setId(UUID.randomUUID().toString())
+                .setIssuer(Constants.JWT_ISSUER)
+                .setIssuedAt(now)
+                .claim("userRole", UserRole.HOSPITAL)
+                .claim("userNickName", "协和医院采购")
+                .claim("id", 42L)
+                .claim("organisationId", 7L)
+                .claim("organisationName", "武汉协和医院")
+                .compact();
+    }
+
+    @Benchmark
+    public JwtTokenCache.VerifiedToken verify() {
+        return filter.verify(jwt);
+    }
+
+    @Benchmark
+    public PreAuthenticatedAuthenticationToken cachedToken() {
+        return jwtTokenCache.get(jwt, () -> filter.verify(jwt));
+    }
+}
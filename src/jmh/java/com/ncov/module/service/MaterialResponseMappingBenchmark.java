@@ -0,0 +1,67 @@
+package com.ncov.module.service;
+
+import com.ncov.module.client.JdOssClient;
+import com.ncov.module.common.enums.MaterialStatus;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+import com.ncov.module.entity.MaterialRequiredEntity;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 实体到MaterialResponse的转换，列表接口每条记录执行一次
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MaterialResponseMappingBenchmark {
+
+    private static final String IMAGE_NAME = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef.jpg";
+
+    private MaterialRequiredService materialRequiredService;
+    private MaterialRequiredEntity entity;
+
+    @Setup
+    public void setUp() {
+        // 衍生图已确认存在，与大多数列表记录一致
+        JdOssClient jdOssClient = Mockito.mock(JdOssClient.class);
+        Mockito.when(jdOssClient.exists(Mockito.anyString())).thenReturn(true);
+        ThumbnailService thumbnailService = new ThumbnailService(jdOssClient, 1, 1, 0.8f, 50000000L, 1000L, 600L,
+                1000);
+        thumbnailService.generate(IMAGE_NAME);
+        materialRequiredService = new MaterialRequiredService();
+        ReflectionTestUtils.setField(materialRequiredService, "thumbnailService", thumbnailService);
+        entity = MaterialRequiredEntity.builder()
+                .id(1024L)
+                .materialRequiredName("N95口罩")
+                .materialRequiredCategory("口罩")
+                .materialRequiredStandard("GB2626-2006")
+                .materialRequiredQuantity(10000.0)
+                .materialRequiredComment("急需，可接受KN95")
+                .materialRequiredContactorName("张医生")
+                .materialRequiredContactorPhone("13800000000")
+                .materialRequiredOrganizationName("武汉协和医院")
+                .materialRequiredImageUrls("https://oss.com/4ncov/images/" + IMAGE_NAME + ","
+                        + "https://oss.com/4ncov/images/legacy.png")
+                .materialRequiredStatus(MaterialStatus.PUBLISHED.name())
+                .country("中国")
+                .province("湖北省")
+                .city("武汉市")
+                .district("江汉区")
+                .streetAddress("解放大道1277号")
+                .gmtCreated(new Date())
+                .gmtModified(new Date())
+                .build();
+    }
+
+    @Benchmark
+    public MaterialResponse carry() {
+        return materialRequiredService.carry(entity);
+    }
+}
@@ -0,0 +1,131 @@
+package com.ncov.module.client;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.io.IOUtils;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 压测时替代对象存储：JdOssClient照常工作，底层的S3调用落到进程内的map中
+ *
+ * 只实现JdOssClient用到的操作，其余操作抛出UnsupportedOperationException。
+ */
+@Configuration
+@Profile("loadtest")
+public class InMemoryOssConfiguration {
+
+    @Bean
+    public JdOssClient jdOssClient(MeterRegistry meterRegistry) {
+        return new JdOssClient(inMemoryS3(), "http://oss.loadtest", "4ncov", 5 * 1024 * 1024,
+                10 * 1024 * 1024, 64, 3000, meterRegistry);
+    }
+
+    private static AmazonS3 inMemoryS3() {
+        Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+        return (AmazonS3) Proxy.newProxyInstance(AmazonS3.class.getClassLoader(), new Class<?>[]{AmazonS3.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "putObject":
+                            objects.put(key(args[0], args[1]), read((InputStream) args[2]));
+                            return new PutObjectResult();
+                        case "getObject":
+                            return object((String) args[1], objects.get(key(args[0], args[1])));
+                        case "doesObjectExist":
+                            return objects.containsKey(key(args[0], args[1]));
+                        case "copyObject":
+                            objects.put(key(args[2], args[3]), objects.get(key(args[0], args[1])));
+                            return new CopyObjectResult();
+                        case "deleteObject":
+                            objects.remove(key(args[0], args[1]));
+                            return null;
+                        case "initiateMultipartUpload":
+                            InitiateMultipartUploadResult initiated = new InitiateMultipartUploadResult();
+                            initiated.setUploadId(UUID.randomUUID().toString());
+                            uploads.put(initiated.getUploadId(), new ConcurrentSkipListMap<>());
+                            return initiated;
+                        case "uploadPart":
+                            UploadPartRequest part = (UploadPartRequest) args[0];
+                            uploads.get(part.getUploadId()).put(part.getPartNumber(), read(part.getInputStream()));
+                            UploadPartResult uploaded = new UploadPartResult();
+                            uploaded.setPartNumber(part.getPartNumber());
+                            uploaded.setETag(String.valueOf(part.getPartNumber()));
+                            return uploaded;
+                        case "completeMultipartUpload":
+                            CompleteMultipartUploadRequest complete = (CompleteMultipartUploadRequest) args[0];
+                            ByteArrayOutputStream content = new ByteArrayOutputStream();
+                            for (byte[] bytes : uploads.remove(complete.getUploadId()).values()) {
+                                content.write(bytes);
+                            }
+                            objects.put(key(complete.getBucketName(), complete.getKey()), content.toByteArray());
+                            return new CompleteMultipartUploadResult();
+                        case "listObjectsV2":
+                            return list(objects, (ListObjectsV2Request) args[0]);
+                        case "abortMultipartUpload":
+                            uploads.remove(((AbortMultipartUploadRequest) args[0]).getUploadId());
+                            return null;
+                        case "toString":
+                            return "InMemoryS3";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private static String key(Object bucketName, Object key) {
+        return bucketName + "/" + key;
+    }
+
+    private static byte[] read(InputStream input) throws IOException {
+        return IOUtils.toByteArray(input);
+    }
+
+    /**
+     * 只支持按前缀、分隔符、起始位置和条数列出，不返回公共前缀
+     */
+    private static ListObjectsV2Result list(Map<String, byte[]> objects, ListObjectsV2Request request) {
+        String prefix = key(request.getBucketName(), request.getPrefix());
+        String startAfter = Objects.isNull(request.getStartAfter()) ? ""
+                : key(request.getBucketName(), request.getStartAfter());
+        ListObjectsV2Result result = new ListObjectsV2Result();
+        objects.keySet().stream()
+                .filter(key -> key.startsWith(prefix) && key.compareTo(startAfter) > 0)
+                .filter(key -> Objects.isNull(request.getDelimiter())
+                        || !key.substring(prefix.length()).contains(request.getDelimiter()))
+                .sorted()
+                .limit(request.getMaxKeys())
+                .forEach(key -> {
+                    S3ObjectSummary summary = new S3ObjectSummary();
+                    summary.setBucketName(request.getBucketName());
+                    summary.setKey(key.substring(request.getBucketName().length() + 1));
+                    result.getObjectSummaries().add(summary);
+                });
+        return result;
+    }
+
+    private static S3Object object(String key, byte[] content) {
+        if (Objects.isNull(content)) {
+            AmazonS3Exception notFound = new AmazonS3Exception("The specified key does not exist.");
+            notFound.setStatusCode(404);
+            throw notFound;
+        }
+        S3Object object = new S3Object();
+        object.setKey(key);
+        object.setObjectContent(new ByteArrayInputStream(content));
+        return object;
+    }
+}
@@ -0,0 +1,160 @@
+package com.ncov.module.loadtest;
+
+import com.ncov.module.common.enums.MaterialStatus;
+import com.ncov.module.common.enums.UserRole;
+import com.ncov.module.common.enums.UserStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 直接用JDBC写入压测数据：一个管理员、若干未认证的医院账号，以及按比例分布的物资
+ *
+ * 物资按类别、地域、状态和发布时间随机分布，待审核约占一成，发布时间分布在最近30天内。
+ */
+@Slf4j
+public class DataSeeder {
+
+    static final String PASSWORD = "loadtest";
+    static final String ADMIN_PHONE = "19900000000";
+    private static final int ROWS_PER_STATEMENT = 1000;
+    private static final String[][] REGIONS = {
+            {"湖北省", "武汉市", "江岸区"}, {"湖北省", "武汉市", "洪山区"}, {"湖北省", "黄冈市", "黄州区"},
+            {"湖北省", "孝感市", "孝南区"}, {"湖北省", "荆州市", "沙市区"}, {"浙江省", "杭州市", "西湖区"},
+            {"广东省", "广州市", "天河区"}, {"河南省", "信阳市", "浉河区"}, {"湖南省", "长沙市", "岳麓区"},
+            {"北京市", "北京市", "朝阳区"}};
+    private static final String[] COMMENTS = {"急需", "可接受替代规格", "医院门口接收", "请提前电话联系", ""};
+
+    private final Random random = new Random(20200222);
+    private final List<String> hospitalPhones = new ArrayList<>();
+    private List<String> categories;
+
+    public void seed(Connection connection, LoadTestSettings settings) throws SQLException {
+        connection.setAutoCommit(false);
+        long adminId = insertUser(connection, "admin", ADMIN_PHONE, UserRole.SYSADMIN, UserStatus.VERIFIED);
+        for (int i = 0; i < settings.getHospitals(); i++) {
+            String phone = String.format("188%08d", i);
+            insertUser(connection, "hospital-" + i, phone, UserRole.HOSPITAL, UserStatus.PENDING);
+            hospitalPhones.add(phone);
+        }
+        connection.commit();
+        categories = categories(connection);
+        seedMaterials(connection, "required", "material_required_organization_id", settings.getRequiredRows(),
+                adminId);
+        seedMaterials(connection, "supplied", "material_supplier_organization_id", settings.getSuppliedRows(),
+                adminId);
+        connection.setAutoCommit(true);
+    }
+
+    /**
+     * 医院账号的手机号，均未认证，发布的需求需要审核
+     */
+    public List<String> getHospitalPhones() {
+        return hospitalPhones;
+    }
+
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    private long insertUser(Connection connection, String nickName, String phone, UserRole role, UserStatus status)
+            throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement("insert into user_info (user_nick_name, "
+                        + "user_salt, user_password_SHA256, gmt_created, user_phone, user_role_id, status) "
+                        + "values (?, '', ?, now(), ?, ?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            insert.setString(1, nickName);
+            insert.setString(2, DigestUtils.sha256Hex(PASSWORD));
+            insert.setString(3, phone);
+            insert.setInt(4, role.getRoleId());
+            insert.setString(5, status.name());
+            insert.executeUpdate();
+            try (ResultSet keys = insert.getGeneratedKeys()) {
+                keys.next();
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    private List<String> categories(Connection connection) throws SQLException {
+        List<String> categories = new ArrayList<>();
+        try (Statement query = connection.createStatement();
+             ResultSet rows = query.executeQuery("select name from material_category")) {
+            while (rows.next()) {
+                categories.add(rows.getString(1));
+            }
+        }
+        return categories;
+    }
+
+    private void seedMaterials(Connection connection, String type, String organisationColumn, int rows,
+                               long userId) throws SQLException {
+        long start = System.nanoTime();
+        String prefix = "material_" + type;
+        StringBuilder sql = new StringBuilder("insert into ").append(prefix).append(" (")
+                .append(prefix).append("_name, ").append(prefix).append("_category, ")
+                .append(prefix).append("_standard, ").append(prefix).append("_quantity, ")
+                .append(prefix).append("_contactor_name, ").append(prefix).append("_contactor_phone, ")
+                .append(prefix).append("_organization_name, ").append(organisationColumn).append(", ")
+                .append(prefix).append("_user_id, ").append(prefix).append("_comment, ")
+                .append(prefix).append("_status, ").append(prefix).append("_image_urls, ")
+                .append("country, province, city, district, street_address, gmt_created, gmt_modified) values ");
+        String values = "(?, ?, ?, ?, ?, ?, ?, null, ?, ?, ?, ?, '中国', ?, ?, ?, ?, ?, ?)";
+        int statementRows = Math.min(ROWS_PER_STATEMENT, Math.max(rows, 1));
+        for (int i = 0; i < statementRows; i++) {
+            sql.append(i == 0 ? "" : ", ").append(values);
+        }
+        long now = System.currentTimeMillis();
+        try (PreparedStatement insert = connection.prepareStatement(sql.toString())) {
+            for (int written = 0; written + statementRows <= rows; written += statementRows) {
+                int index = 1;
+                for (int i = 0; i < statementRows; i++) {
+                    String category = categories.get(random.nextInt(categories.size()));
+                    String[] region = REGIONS[random.nextInt(REGIONS.length)];
+                    Timestamp created = new Timestamp(now - (long) (random.nextDouble() * TimeUnit.DAYS.toMillis(30)));
+                    insert.setString(index++, category);
+                    insert.setString(index++, category);
+                    insert.setString(index++, "GB2626-2006");
+                    insert.setDouble(index++, 100 * (1 + random.nextInt(100)));
+                    insert.setString(index++, "联系人" + random.nextInt(1000));
+                    insert.setString(index++, String.format("139%08d", random.nextInt(100_000_000)));
+                    insert.setString(index++, region[1] + "第" + (1 + random.nextInt(50)) + "人民医院");
+                    insert.setLong(index++, userId);
+                    insert.setString(index++, COMMENTS[random.nextInt(COMMENTS.length)]);
+                    insert.setString(index++, status().name());
+                    insert.setString(index++, "");
+                    insert.setString(index++, region[0]);
+                    insert.setString(index++, region[1]);
+                    insert.setString(index++, region[2]);
+                    insert.setString(index++, "解放大道" + random.nextInt(2000) + "号");
+                    insert.setTimestamp(index++, created);
+                    insert.setTimestamp(index++, created);
+                }
+                insert.addBatch();
+                if ((written / statementRows) % 20 == 19) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        log.info("Seeded [{}] rows into {} in [{}]s", rows - rows % statementRows, prefix,
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+    }
+
+    private MaterialStatus status() {
+        int roll = random.nextInt(100);
+        if (roll < 10) {
+            return MaterialStatus.PENDING;
+        }
+        if (roll < 80) {
+            return MaterialStatus.PUBLISHED;
+        }
+        return roll < 95 ? MaterialStatus.PROCESSING : MaterialStatus.COMPLETED;
+    }
+}
@@ -0,0 +1,114 @@
+package com.ncov.module.loadtest;
+
+import ch.vorburger.exec.ManagedProcessException;
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.*;
+
+/**
+ * 内嵌的MariaDB(与MySQL协议和语法兼容)，二进制随依赖分发，使用临时目录和随机端口
+ *
+ * 验证读写分离时启动两个实例：开启二进制日志的主库，以及从主库第一个二进制日志开始复制的副本，
+ * 副本中的数据库、表和数据都由复制产生。
+ */
+@Slf4j
+public class EmbeddedDatabase implements AutoCloseable {
+
+    static final String DATABASE = "wuhan";
+    static final String USERNAME = "root";
+    static final String PASSWORD = "";
+
+    private static final int REPLICATION_TIMEOUT_SECONDS = 1800;
+
+    private final DB db;
+    private final int port;
+
+    private EmbeddedDatabase(int serverId, boolean binaryLog) throws ManagedProcessException {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        config.addArg("--character-set-server=utf8mb4");
+        config.addArg("--collation-server=utf8mb4_general_ci");
+        config.addArg("--innodb-buffer-pool-size=1G");
+        config.addArg("--innodb-flush-log-at-trx-commit=2");
+        config.addArg("--max-connections=500");
+        config.addArg("--server-id=" + serverId);
+        if (binaryLog) {
+            config.addArg("--log-bin=mysql-bin");
+            config.addArg("--binlog-format=ROW");
+        }
+        db = DB.newEmbeddedDB(config.build());
+        db.start();
+        port = config.getPort();
+        log.info("Embedded database started, serverId=[{}], port=[{}]", serverId, port);
+    }
+
+    /**
+     * 开启二进制日志的主库，供{@link #replicaOf(EmbeddedDatabase)}复制
+     */
+    public static EmbeddedDatabase primary() throws ManagedProcessException {
+        EmbeddedDatabase primary = new EmbeddedDatabase(1, true);
+        primary.db.createDB(DATABASE);
+        return primary;
+    }
+
+    public static EmbeddedDatabase standalone() throws ManagedProcessException {
+        EmbeddedDatabase database = new EmbeddedDatabase(1, false);
+        database.db.createDB(DATABASE);
+        return database;
+    }
+
+    public static EmbeddedDatabase replicaOf(EmbeddedDatabase primary) throws ManagedProcessException, SQLException {
+        EmbeddedDatabase replica = new EmbeddedDatabase(2, false);
+        try (Connection connection = DriverManager.getConnection(replica.getServerUrl(), USERNAME, PASSWORD);
+             Statement statement = connection.createStatement()) {
+            statement.execute(String.format("CHANGE MASTER TO MASTER_HOST='127.0.0.1', MASTER_PORT=%d, "
+                    + "MASTER_USER='%s', MASTER_PASSWORD='%s'", primary.port, USERNAME, PASSWORD));
+            statement.execute("START SLAVE");
+        }
+        return replica;
+    }
+
+    /**
+     * 等待副本应用完主库当前位置之前的全部二进制日志
+     */
+    public void awaitReplicationOf(EmbeddedDatabase primary) throws SQLException {
+        String file;
+        long position;
+        try (Connection connection = DriverManager.getConnection(primary.getServerUrl(), USERNAME, PASSWORD);
+             Statement statement = connection.createStatement();
+             ResultSet status = statement.executeQuery("SHOW MASTER STATUS")) {
+            status.next();
+            file = status.getString("File");
+            position = status.getLong("Position");
+        }
+        try (Connection connection = DriverManager.getConnection(getServerUrl(), USERNAME, PASSWORD);
+             PreparedStatement wait = connection.prepareStatement("SELECT MASTER_POS_WAIT(?, ?, ?)")) {
+            wait.setString(1, file);
+            wait.setLong(2, position);
+            wait.setInt(3, REPLICATION_TIMEOUT_SECONDS);
+            try (ResultSet result = wait.executeQuery()) {
+                result.next();
+                if (result.getObject(1) == null || result.getLong(1) < 0) {
+                    throw new IllegalStateException("Replica did not catch up with " + file + ":" + position);
+                }
+            }
+        }
+        log.info("Replica caught up with primary at [{}:{}]", file, position);
+    }
+
+    public String getJdbcUrl() {
+        return String.format("jdbc:mysql://127.0.0.1:%d/%s?useUnicode=true&characterEncoding=utf-8&useSSL=false"
+                + "&serverTimezone=UTC&rewriteBatchedStatements=true", port, DATABASE);
+    }
+
+    private String getServerUrl() {
+        return String.format("jdbc:mysql://127.0.0.1:%d/?useSSL=false&serverTimezone=UTC", port);
+    }
+
+    @Override
+    public void close() throws ManagedProcessException {
+        db.stop();
+    }
+}
@@ -0,0 +1,107 @@
+package com.ncov.module.loadtest;
+
+import com.ncov.module.NCoVApplication;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 端到端压测入口：mvn -P loadtest test
+ *
+ * 启动内嵌数据库并执行迁移，写入压测数据后以loadtest profile启动应用(对象存储替换为进程内实现，
+ * 见InMemoryOssConfiguration)，按配比发送请求，最后输出每个接口的吞吐量和延迟分位数。
+ * 数据在应用启动前写入，使启动时加载的内存索引和统计包含全部数据。
+ * -Dloadtest.replica=true时另启动一个复制主库的副本，等副本追上后以读写分离模式启动应用。
+ */
+@Slf4j
+public class LoadTestRunner {
+
+    private static final String JWT_SECRET = "loadtest-secret";
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = new LoadTestSettings();
+        try (EmbeddedDatabase database = settings.isReplica()
+                ? EmbeddedDatabase.primary() : EmbeddedDatabase.standalone();
+             EmbeddedDatabase replica = settings.isReplica() ? EmbeddedDatabase.replicaOf(database) : null) {
+            Flyway.configure()
+                    .dataSource(database.getJdbcUrl(), EmbeddedDatabase.USERNAME, EmbeddedDatabase.PASSWORD)
+                    .locations("classpath:db/migration")
+                    .outOfOrder(true)
+                    .load()
+                    .migrate();
+            DataSeeder seeder = new DataSeeder();
+            try (Connection connection = DriverManager.getConnection(database.getJdbcUrl(),
+                    EmbeddedDatabase.USERNAME, EmbeddedDatabase.PASSWORD)) {
+                seeder.seed(connection, settings);
+            }
+            if (replica != null) {
+                replica.awaitReplicationOf(database);
+            }
+            try (ConfigurableApplicationContext context = new SpringApplicationBuilder(NCoVApplication.class)
+                    .profiles("loadtest")
+                    .run(applicationArgs(database, replica, settings))) {
+                int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+                Collection<EndpointStats> stats = new TrafficDriver("http://127.0.0.1:" + port, settings,
+                        seeder.getHospitalPhones(), seeder.getCategories()).run();
+                report(stats, settings);
+            }
+        }
+    }
+
+    /**
+     * 以命令行参数传入，优先级高于application.yml中的环境变量占位
+     */
+    private static String[] applicationArgs(EmbeddedDatabase database, EmbeddedDatabase replica,
+                                            LoadTestSettings settings) {
+        List<String> args = new ArrayList<>(Arrays.asList(
+                "--server.port=0",
+                "--management.server.port=-1",
+                "--spring.datasource.url=" + database.getJdbcUrl(),
+                "--spring.datasource.username=" + EmbeddedDatabase.USERNAME,
+                "--spring.datasource.password=" + EmbeddedDatabase.PASSWORD,
+                "--spring.datasource.hikari.maximum-pool-size=" + Math.max(10, settings.getConcurrency() / 2),
+                "--security.jwtSecret=" + JWT_SECRET,
+                "--logging.level.com.ncov=WARN"));
+        if (replica != null) {
+            args.add("--database.routing.enabled=true");
+            args.add("--database.routing.replicas[0].url=" + replica.getJdbcUrl());
+        }
+        return args.toArray(new String[0]);
+    }
+
+    private static void report(Collection<EndpointStats> stats, LoadTestSettings settings) throws IOException {
+        double seconds = settings.getDurationSeconds();
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT, "%n%-46s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)"));
+        File report = new File(settings.getReport());
+        report.getParentFile().mkdirs();
+        try (PrintWriter csv = new PrintWriter(report, StandardCharsets.UTF_8.name())) {
+            csv.println("endpoint,requests,errors,throughput,p50,p90,p99,p999,max");
+            for (EndpointStats endpoint : stats) {
+                Object[] row = {endpoint.getName(), endpoint.getCount(), endpoint.getErrors(),
+                        endpoint.getCount() / seconds, endpoint.getPercentileMillis(50),
+                        endpoint.getPercentileMillis(90), endpoint.getPercentileMillis(99),
+                        endpoint.getPercentileMillis(99.9), endpoint.getMaxMillis()};
+                table.append(String.format(Locale.ROOT,
+                        "%-46s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", row));
+                csv.println(String.format(Locale.ROOT, "\"%s\",%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.2f", row));
+            }
+        }
+        log.info("Load test finished, concurrency=[{}], duration=[{}]s, report=[{}]{}",
+                settings.getConcurrency(), settings.getDurationSeconds(), report.getAbsolutePath(), table);
+    }
+}
@@ -0,0 +1,31 @@
+package com.ncov.module.loadtest;
+
+import lombok.Getter;
+
+/**
+ * 压测参数，均可通过 -Dloadtest.xxx 覆盖
+ */
+@Getter
+public class LoadTestSettings {
+
+    private final int requiredRows = Integer.getInteger("loadtest.requiredRows", 1_000_000);
+    private final int suppliedRows = Integer.getInteger("loadtest.suppliedRows", 1_000_000);
+    private final int hospitals = Integer.getInteger("loadtest.hospitals", 50);
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 32);
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 15);
+    private final int durationSeconds = Integer.getInteger("loadtest.durationSeconds", 60);
+    private final int pageSize = Integer.getInteger("loadtest.pageSize", 20);
+    private final int maxPage = Integer.getInteger("loadtest.maxPage", 50);
+    /**
+     * 流量配比：匿名列表、登录、发布需求、审核通过
+     */
+    private final int listWeight = Integer.getInteger("loadtest.mix.list", 85);
+    private final int signInWeight = Integer.getInteger("loadtest.mix.signIn", 5);
+    private final int createWeight = Integer.getInteger("loadtest.mix.create", 6);
+    private final int approveWeight = Integer.getInteger("loadtest.mix.approve", 4);
+    /**
+     * 同时启动一个复制主库的内嵌副本并开启读写分离
+     */
+    private final boolean replica = Boolean.getBoolean("loadtest.replica");
+    private final String report = System.getProperty("loadtest.report", "target/loadtest-report.csv");
+}
@@ -0,0 +1,187 @@
+package com.ncov.module.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 按配比并发发送请求，统计每个接口的延迟和错误
+ *
+ * 预热阶段的统计在正式计时开始时清零。发布的需求进入待审核队列，审核请求从队列中取id，队列为空时跳过本次审核。
+ */
+@Slf4j
+public class TrafficDriver {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static final String[] LIST_PATHS = {"/api/required-materials", "/api/supplied-materials"};
+
+    private final String baseUrl;
+    private final LoadTestSettings settings;
+    private final List<String> hospitalPhones;
+    private final List<String> categories;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final OkHttpClient client;
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+    private final Queue<Long> pendingIds = new ConcurrentLinkedQueue<>();
+    private final List<String> hospitalTokens = new ArrayList<>();
+    private String adminToken;
+
+    public TrafficDriver(String baseUrl, LoadTestSettings settings, List<String> hospitalPhones,
+                         List<String> categories) {
+        this.baseUrl = baseUrl;
+        this.settings = settings;
+        this.hospitalPhones = hospitalPhones;
+        this.categories = categories;
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(settings.getConcurrency());
+        dispatcher.setMaxRequestsPerHost(settings.getConcurrency());
+        this.client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(settings.getConcurrency(), 5, TimeUnit.MINUTES))
+                .readTimeout(30, TimeUnit.SECONDS)
+                .build();
+        for (String name : Arrays.asList("GET /api/required-materials", "GET /api/supplied-materials",
+                "POST /api/users/sign-in", "POST /api/required-materials",
+                "PATCH /api/required-materials/{id}:approve")) {
+            stats.put(name, new EndpointStats(name));
+        }
+    }
+
+    public Collection<EndpointStats> run() throws Exception {
+        adminToken = signIn(DataSeeder.ADMIN_PHONE);
+        for (String phone : hospitalPhones) {
+            hospitalTokens.add(signIn(phone));
+        }
+        ExecutorService workers = Executors.newFixedThreadPool(settings.getConcurrency());
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(settings.getWarmupSeconds());
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(settings.getDurationSeconds());
+        for (int i = 0; i < settings.getConcurrency(); i++) {
+            workers.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < end) {
+                    try {
+                        next(random);
+                    } catch (IOException e) {
+                        log.debug("Request failed", e);
+                    }
+                }
+            });
+        }
+        TimeUnit.NANOSECONDS.sleep(warmupEnd - System.nanoTime());
+        stats.values().forEach(EndpointStats::reset);
+        log.info("Warm-up finished, measuring for [{}]s", settings.getDurationSeconds());
+        workers.shutdown();
+        workers.awaitTermination(settings.getDurationSeconds() + 60, TimeUnit.SECONDS);
+        client.dispatcher().executorService().shutdown();
+        client.connectionPool().evictAll();
+        return stats.values();
+    }
+
+    private void next(ThreadLocalRandom random) throws IOException {
+        int total = settings.getListWeight() + settings.getSignInWeight() + settings.getCreateWeight()
+                + settings.getApproveWeight();
+        int roll = random.nextInt(total);
+        if ((roll -= settings.getListWeight()) < 0) {
+            list(random);
+        } else if ((roll -= settings.getSignInWeight()) < 0) {
+            String phone = hospitalPhones.get(random.nextInt(hospitalPhones.size()));
+            execute("POST /api/users/sign-in", signInRequest(phone));
+        } else if (roll - settings.getCreateWeight() < 0) {
+            create(random);
+        } else {
+            approve();
+        }
+    }
+
+    private void list(ThreadLocalRandom random) throws IOException {
+        String path = LIST_PATHS[random.nextInt(LIST_PATHS.length)];
+        HttpUrl.Builder url = HttpUrl.get(baseUrl + path).newBuilder()
+                .addQueryParameter("page", String.valueOf(1 + random.nextInt(settings.getMaxPage())))
+                .addQueryParameter("size", String.valueOf(settings.getPageSize()));
+        if (random.nextBoolean()) {
+            url.addQueryParameter("category", categories.get(random.nextInt(categories.size())));
+        }
+        execute("GET " + path, new Request.Builder().url(url.build()).get().build());
+    }
+
+    private void create(ThreadLocalRandom random) throws IOException {
+        String category = categories.get(random.nextInt(categories.size()));
+        Map<String, Object> material = new HashMap<>();
+        material.put("name", category);
+        material.put("category", category);
+        material.put("standard", "GB2626-2006");
+        material.put("quantity", 100 * (1 + random.nextInt(100)));
+        Map<String, Object> address = new HashMap<>();
+        address.put("country", "中国");
+        address.put("province", "湖北省");
+        address.put("city", "武汉市");
+        address.put("district", "江岸区");
+        address.put("streetAddress", "解放大道1277号");
+        Map<String, Object> body = new HashMap<>();
+        body.put("materials", Collections.singletonList(material));
+        body.put("organisationName", "压测医院");
+        body.put("address", address);
+        body.put("contactorName", "压测联系人");
+        body.put("contactorPhone", "13900000000");
+        Request request = new Request.Builder()
+                .url(baseUrl + "/api/required-materials")
+                .header("Authorization", "Bearer " + hospitalTokens.get(random.nextInt(hospitalTokens.size())))
+                .post(RequestBody.create(objectMapper.writeValueAsBytes(body), JSON))
+                .build();
+        JsonNode response = execute("POST /api/required-materials", request);
+        if (Objects.nonNull(response)) {
+            response.path("data").forEach(created -> pendingIds.add(created.path("id").asLong()));
+        }
+    }
+
+    private void approve() throws IOException {
+        Long id = pendingIds.poll();
+        if (Objects.isNull(id)) {
+            return;
+        }
+        execute("PATCH /api/required-materials/{id}:approve", new Request.Builder()
+                .url(baseUrl + "/api/required-materials/" + id + ":approve")
+                .header("Authorization", "Bearer " + adminToken)
+                .patch(RequestBody.create(new byte[0], JSON))
+                .build());
+    }
+
+    private String signIn(String phone) throws IOException {
+        JsonNode response = execute("POST /api/users/sign-in", signInRequest(phone));
+        if (Objects.isNull(response)) {
+            throw new IllegalStateException("Sign-in failed for " + phone);
+        }
+        return response.path("data").path("token").asText();
+    }
+
+    private Request signInRequest(String phone) throws IOException {
+        Map<String, String> body = new HashMap<>();
+        body.put("telephone", phone);
+        body.put("password", DataSeeder.PASSWORD);
+        return new Request.Builder()
+                .url(baseUrl + "/api/users/sign-in")
+                .post(RequestBody.create(objectMapper.writeValueAsBytes(body), JSON))
+                .build();
+    }
+
+    /**
+     * 发送请求并记录延迟，成功时返回响应JSON，失败时返回null
+     */
+    private JsonNode execute(String endpoint, Request request) throws IOException {
+        long start = System.nanoTime();
+        boolean success = false;
+        try (Response response = client.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            byte[] content = Objects.isNull(body) ? new byte[0] : body.bytes();
+            success = response.isSuccessful();
+            return success && content.length > 0 ? objectMapper.readTree(content) : null;
+        } finally {
+            stats.get(endpoint).record(System.nanoTime() - start, success);
+        }
+    }
+}
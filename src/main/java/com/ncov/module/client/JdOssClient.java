@@ -7,37 +7,357 @@ import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3Client;
-import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.*;
+import com.ncov.module.common.exception.FileTooLargeException;
+import com.ncov.module.common.exception.UploadRejectedException;
+import com.ncov.module.controller.resp.file.UploadStatsResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
+/**
+ * 对象存储客户端，兼容S3协议(使用path-style访问，可指向MinIO等本地S3兼容服务进行测试)
+ *
+ * 上传直接从输入流写入对象存储：已知长度且不超过分片大小时流式PUT，不做缓冲；
+ * 长度未知或超过分片大小时按分片读入固定大小的缓冲区并使用分片上传，每个上传至多占用一个分片大小的内存。
+ * 同时进行的上传数受信号量限制，超出时在等待超时后拒绝；需要先缓冲内容的调用方通过{@link UploadPermit}
+ * 在分配缓冲区之前取得许可，并把缓冲区交给{@link #uploadBuffered}复用。
+ * 临时对象不计入上传统计，由其复制得到的图片在复制时计入；后台生成的衍生图经{@link #putDerivative}写入，
+ * 不占用上传许可，也不计入上传统计。
+ * 上传耗时(按结果分组)、上传字节数、分片上传次数和进行中的上传数导出为指标oss.upload.*。
+ */
 @Component
 @Slf4j
-@Profile("!test")
+@Profile("!test & !loadtest")
 public class JdOssClient {
 
     private AmazonS3 s3;
     private String bucketName;
     private String ossEndpoint;
+    private int partSize;
+    private long maxSize;
+    private int maxConcurrentUploads;
+    private long acquireTimeoutMs;
+    private Semaphore uploadPermits;
+    private MeterRegistry meterRegistry;
+    private Counter uploadedBytesCounter;
+    private Counter multipartUploadsCounter;
 
+    private final AtomicLong completedUploads = new AtomicLong();
+    private final AtomicLong multipartUploads = new AtomicLong();
+    private final AtomicLong failedUploads = new AtomicLong();
+    private final AtomicLong rejectedUploads = new AtomicLong();
+    private final AtomicLong uploadedBytes = new AtomicLong();
+
+    @Autowired
     public JdOssClient(@Value("${oss.endpoint}") String ossEndpoint,
                        @Value("${oss.region}") String ossRegion,
                        @Value("${oss.bucketName}") String bucketName,
                        @Value("${oss.accessKey}") String ossAccessKey,
-                       @Value("${oss.secretKey}") String ossSecretKey) {
-        this.bucketName = bucketName;
+                       @Value("${oss.secretKey}") String ossSecretKey,
+                       @Value("${oss.upload.partSize:5242880}") int partSize,
+                       @Value("${oss.upload.maxSize:10485760}") long maxSize,
+                       @Value("${oss.upload.maxConcurrent:8}") int maxConcurrentUploads,
+                       @Value("${oss.upload.acquireTimeoutMs:3000}") long acquireTimeoutMs,
+                       MeterRegistry meterRegistry) {
+        this(buildClient(ossEndpoint, ossRegion, ossAccessKey, ossSecretKey), ossEndpoint, bucketName,
+                partSize, maxSize, maxConcurrentUploads, acquireTimeoutMs, meterRegistry);
+    }
+
+    JdOssClient(AmazonS3 s3, String ossEndpoint, String bucketName, int partSize, long maxSize,
+                int maxConcurrentUploads, long acquireTimeoutMs, MeterRegistry meterRegistry) {
+        this.s3 = s3;
         this.ossEndpoint = ossEndpoint;
+        this.bucketName = bucketName;
+        this.partSize = partSize;
+        this.maxSize = maxSize;
+        this.maxConcurrentUploads = maxConcurrentUploads;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.uploadPermits = new Semaphore(maxConcurrentUploads);
+        this.meterRegistry = meterRegistry;
+        this.uploadedBytesCounter = Counter.builder("oss.upload.bytes")
+                .baseUnit("bytes")
+                .description("Bytes written to object storage")
+                .register(meterRegistry);
+        this.multipartUploadsCounter = Counter.builder("oss.upload.multipart")
+                .description("Uploads that switched to multipart upload")
+                .register(meterRegistry);
+        meterRegistry.gauge("oss.upload.inflight", uploadPermits,
+                permits -> maxConcurrentUploads - permits.availablePermits());
+    }
+
+    /**
+     * 从输入流上传图片
+     *
+     * @param contentLength 内容长度，未知时传-1
+     * @return 图片URL
+     */
+    public String uploadImage(String imageName, InputStream input, String contentType, long contentLength)
+            throws IOException {
+        try (UploadPermit permit = acquireUploadPermit(contentLength)) {
+            String key = "images/" + imageName;
+            record(false, () -> {
+                if (contentLength >= 0 && contentLength <= partSize) {
+                    return put(key, input, contentType, contentLength);
+                }
+                byte[] buffer = new byte[partSize];
+                return putBuffered(key, buffer, readFully(input, buffer), input, contentType);
+            });
+            return getImageUrl(imageName);
+        }
+    }
+
+    /**
+     * 获取上传许可，调用方先取得许可再分配缓冲区，排队等待许可的请求不占用缓冲内存
+     *
+     * @param contentLength 内容长度，未知时传-1，已知且超过上限时不等待许可直接拒绝
+     */
+    public UploadPermit acquireUploadPermit(long contentLength) {
+        if (contentLength > maxSize) {
+            throw new FileTooLargeException(maxSize);
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            acquirePermit();
+        } catch (UploadRejectedException e) {
+            sample.stop(meterRegistry.timer("oss.upload", "outcome", "rejected"));
+            throw e;
+        }
+        return new UploadPermit();
+    }
+
+    /**
+     * 上传已读入缓冲区的内容：buffer中前buffered字节是内容的开头，缓冲区未读满时即全部内容，
+     * 读满时其余内容从input读取并分片上传，buffer复用为分片缓冲区，不再另外分配
+     *
+     * @param permit  调用方持有的上传许可
+     * @param staging 是否为临时对象，临时对象不计入上传统计
+     * @return 上传的字节数
+     */
+    public long uploadBuffered(UploadPermit permit, String imageName, byte[] buffer, int buffered, InputStream input,
+                               String contentType, boolean staging) throws IOException {
+        Objects.requireNonNull(permit, "upload permit");
+        return record(staging, () -> putBuffered("images/" + imageName, buffer, buffered, input, contentType));
+    }
+
+    /**
+     * 写入后台生成的衍生图，不占用用户上传的许可，也不计入上传统计，并发数由生成线程数限制
+     */
+    public void putDerivative(String imageName, byte[] content, String contentType) {
+        put("images/" + imageName, new ByteArrayInputStream(content), contentType, content.length);
+    }
+
+    /**
+     * 按名称顺序列出images目录下的原图名称，不含衍生图和临时对象所在的子目录
+     *
+     * @param startAfter 从该名称之后开始，为空时从头开始
+     */
+    public List<String> listImages(String startAfter, int maxKeys) {
+        ListObjectsV2Request request = new ListObjectsV2Request()
+                .withBucketName(bucketName)
+                .withPrefix("images/")
+                .withDelimiter("/")
+                .withMaxKeys(maxKeys);
+        if (Objects.nonNull(startAfter)) {
+            request.setStartAfter("images/" + startAfter);
+        }
+        return s3.listObjectsV2(request).getObjectSummaries().stream()
+                .map(summary -> summary.getKey().substring("images/".length()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 读取图片内容，调用方负责关闭返回的流
+     */
+    public InputStream download(String imageName) {
+        return s3.getObject(bucketName, "images/" + imageName).getObjectContent();
+    }
+
+    public boolean exists(String imageName) {
+        return s3.doesObjectExist(bucketName, "images/" + imageName);
+    }
+
+    /**
+     * 在对象存储内部复制图片，不经过本服务传输内容；由临时对象复制得到的图片在此计入上传统计
+     *
+     * @param size 图片字节数
+     */
+    public void copy(String sourceImageName, String targetImageName, long size) {
+        s3.copyObject(bucketName, "images/" + sourceImageName, bucketName, "images/" + targetImageName);
+        completed(size);
+    }
+
+    public void delete(String imageName) {
+        s3.deleteObject(bucketName, "images/" + imageName);
+    }
+
+    public String getImageUrl(String imageName) {
+        return String.format("%s/%s/images/%s", ossEndpoint, bucketName, imageName);
+    }
+
+    public UploadStatsResponse getStats() {
+        return UploadStatsResponse.builder()
+                .maxConcurrentUploads(maxConcurrentUploads)
+                .inFlightUploads(maxConcurrentUploads - uploadPermits.availablePermits())
+                .completedUploads(completedUploads.get())
+                .multipartUploads(multipartUploads.get())
+                .failedUploads(failedUploads.get())
+                .rejectedUploads(rejectedUploads.get())
+                .uploadedBytes(uploadedBytes.get())
+                .build();
+    }
+
+    private void acquirePermit() {
+        try {
+            if (uploadPermits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejectedUploads.incrementAndGet();
+        log.warn("Upload rejected, all [{}] upload permits in use", maxConcurrentUploads);
+        throw new UploadRejectedException();
+    }
+
+    private long record(boolean staging, Upload upload) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            long size = upload.run();
+            if (!staging) {
+                completed(size);
+            }
+            outcome = "success";
+            return size;
+        } catch (IOException | RuntimeException e) {
+            failedUploads.incrementAndGet();
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("oss.upload", "outcome", outcome));
+        }
+    }
+
+    private void completed(long size) {
+        completedUploads.incrementAndGet();
+        uploadedBytes.addAndGet(size);
+        uploadedBytesCounter.increment(size);
+    }
+
+    private long put(String key, InputStream input, String contentType, long contentLength) {
+        s3.putObject(bucketName, key, input, metadata(contentType, contentLength));
+        return contentLength;
+    }
+
+    /**
+     * 长度未知或较大的内容：已读满一个分片的缓冲区时转为分片上传，否则直接PUT
+     */
+    private long putBuffered(String key, byte[] buffer, int read, InputStream input, String contentType)
+            throws IOException {
+        if (read < buffer.length) {
+            return put(key, new ByteArrayInputStream(buffer, 0, read), contentType, read);
+        }
+        multipartUploads.incrementAndGet();
+        multipartUploadsCounter.increment();
+        String uploadId = s3.initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(bucketName, key, metadata(contentType, -1))).getUploadId();
+        try {
+            List<PartETag> partETags = new ArrayList<>();
+            long total = 0;
+            int partNumber = 1;
+            while (read > 0) {
+                total += read;
+                if (total > maxSize) {
+                    throw new FileTooLargeException(maxSize);
+                }
+                partETags.add(s3.uploadPart(new UploadPartRequest()
+                        .withBucketName(bucketName)
+                        .withKey(key)
+                        .withUploadId(uploadId)
+                        .withPartNumber(partNumber++)
+                        .withInputStream(new ByteArrayInputStream(buffer, 0, read))
+                        .withPartSize(read)).getPartETag());
+                read = read < buffer.length ? 0 : readFully(input, buffer);
+            }
+            s3.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, key, uploadId, partETags));
+            return total;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Aborting multipart upload, key=[{}], uploadId=[{}]", key, uploadId);
+            s3.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+            throw e;
+        }
+    }
+
+    private static int readFully(InputStream input, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = input.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static ObjectMetadata metadata(String contentType, long contentLength) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentType(contentType);
+        if (contentLength >= 0) {
+            metadata.setContentLength(contentLength);
+        }
+        return metadata;
+    }
+
+    /**
+     * 上传许可，关闭时归还，重复关闭只归还一次
+     */
+    public final class UploadPermit implements AutoCloseable {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private UploadPermit() {
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                uploadPermits.release();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Upload {
+
+        long run() throws IOException;
+    }
+
+    private static AmazonS3 buildClient(String ossEndpoint, String ossRegion,
+                                        String ossAccessKey, String ossSecretKey) {
         ClientConfiguration config = new ClientConfiguration();
         AwsClientBuilder.EndpointConfiguration endpointConfig =
                 new AwsClientBuilder.EndpointConfiguration(ossEndpoint, ossRegion);
         BasicAWSCredentials credentials = new BasicAWSCredentials(ossAccessKey, ossSecretKey);
         AWSCredentialsProvider credentialsProvider = new AWSStaticCredentialsProvider(credentials);
-        s3 = AmazonS3Client.builder()
+        return AmazonS3Client.builder()
                 .withEndpointConfiguration(endpointConfig)
                 .withClientConfiguration(config)
                 .withCredentials(credentialsProvider)
@@ -45,12 +365,4 @@ public class JdOssClient {
                 .withPathStyleAccessEnabled(true)
                 .build();
     }
-
-    public String uploadImage(String imageName, MultipartFile imageFile) throws IOException {
-        ObjectMetadata metadata = new ObjectMetadata();
-        metadata.setContentType(imageFile.getContentType());
-        metadata.setContentLength(imageFile.getSize());
-        s3.putObject(bucketName, "images/" + imageName, imageFile.getInputStream(), metadata);
-        return String.format("%s/%s/images/%s", ossEndpoint, bucketName, imageName);
-    }
 }
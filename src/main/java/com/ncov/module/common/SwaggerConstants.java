@@ -13,4 +13,6 @@ public final class SwaggerConstants {
     public static final String TAG_SUPPLIED_MATERIALS = "Supplied Materials";
     public static final String TAG_FILES = "Files";
     public static final String TAG_CONTACT_MESSAGES = "Contact Messages";
+    public static final String TAG_STATISTICS = "Statistics";
+    public static final String TAG_ADMIN = "Admin";
 }
@@ -0,0 +1,67 @@
+package com.ncov.module.common.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.ncov.module.controller.resp.cache.CacheStatsResponse;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * 基于Guava的有界、写入后过期的读穿透缓存，统一记录命中率和失效次数
+ *
+ * 加载失败时原样抛出加载方法的运行时异常，失败结果不缓存。
+ */
+public abstract class AbstractMonitoredCache<K, V> implements MonitoredCache {
+
+    private final String name;
+    private final Cache<K, V> cache;
+    private final AtomicLong invalidationCount = new AtomicLong();
+
+    protected AbstractMonitoredCache(String name, long maximumSize, long expireAfterWrite, TimeUnit unit) {
+        this.name = name;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite, unit)
+                .recordStats()
+                .build();
+    }
+
+    protected V load(K key, Supplier<V> loader) {
+        try {
+            return cache.get(key, loader::get);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    protected void evict(K key) {
+        cache.invalidate(key);
+        invalidationCount.incrementAndGet();
+    }
+
+    /**
+     * 移除满足条件的全部key，计为一次失效
+     */
+    protected void evictIf(Predicate<K> condition) {
+        cache.asMap().keySet().removeIf(condition);
+        invalidationCount.incrementAndGet();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public CacheStatsResponse getStats() {
+        return CacheStatsResponse.of(name, cache.size(), cache.stats(), invalidationCount.get());
+    }
+}
@@ -0,0 +1,25 @@
+package com.ncov.module.common.cache;
+
+import java.lang.annotation.*;
+
+/**
+ * 标记按内容版本支持HTTP条件请求的GET接口
+ *
+ * 由{@link ConditionalGetInterceptor}在进入接口方法前根据{@link #value()}的内容版本生成强ETag，
+ * 请求的If-None-Match/If-Modified-Since命中时直接返回304，不再执行接口方法。
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ConditionalGet {
+
+    /**
+     * 提供内容版本的bean类型
+     */
+    Class<? extends VersionedContent> value();
+
+    /**
+     * 客户端和CDN可以不经校验直接使用缓存的秒数
+     */
+    long maxAgeSeconds() default 300;
+}
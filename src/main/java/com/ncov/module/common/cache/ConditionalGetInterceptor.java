@@ -0,0 +1,52 @@
+package com.ncov.module.common.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 为标记了{@link ConditionalGet}的接口设置ETag、Last-Modified和Cache-Control，并处理条件请求
+ */
+@Component
+@Slf4j
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    private final ApplicationContext applicationContext;
+
+    public ConditionalGetInterceptor(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod) || !HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        ConditionalGet conditionalGet = ((HandlerMethod) handler).getMethodAnnotation(ConditionalGet.class);
+        if (Objects.isNull(conditionalGet)) {
+            return true;
+        }
+        VersionedContent content = applicationContext.getBean(conditionalGet.value());
+        String etag = "\"" + content.getContentVersion() + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl
+                .maxAge(conditionalGet.maxAgeSeconds(), TimeUnit.SECONDS)
+                .cachePublic()
+                .getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(etag, content.getLastModified())) {
+            log.debug("Content not modified, uri=[{}], etag=[{}]", request.getRequestURI(), etag);
+            return false;
+        }
+        return true;
+    }
+}
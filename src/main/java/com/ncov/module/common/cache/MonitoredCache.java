@@ -0,0 +1,13 @@
+package com.ncov.module.common.cache;
+
+import com.ncov.module.controller.resp.cache.CacheStatsResponse;
+
+/**
+ * 需要对外暴露命中率等统计信息的进程内缓存
+ */
+public interface MonitoredCache {
+
+    String getName();
+
+    CacheStatsResponse getStats();
+}
@@ -0,0 +1,17 @@
+package com.ncov.module.common.cache;
+
+/**
+ * 内容有明确版本的数据源，用于计算HTTP条件请求的ETag和Last-Modified
+ */
+public interface VersionedContent {
+
+    /**
+     * 当前内容的版本，内容不变时版本不变，内容变化时版本随之变化
+     */
+    String getContentVersion();
+
+    /**
+     * 当前内容的最后修改时间(毫秒)，未知时返回-1
+     */
+    long getLastModified();
+}
@@ -0,0 +1,35 @@
+package com.ncov.module.common.datasource;
+
+import lombok.Getter;
+
+import javax.sql.DataSource;
+
+/**
+ * 只读副本及其最近一次检查的状态，首次检查通过之前不可用
+ */
+@Getter
+public class Replica {
+
+    private final String name;
+    private final DataSource dataSource;
+    private volatile boolean available;
+    /**
+     * 复制延迟，不可用时为-1
+     */
+    private volatile long lagMillis = -1;
+
+    public Replica(String name, DataSource dataSource) {
+        this.name = name;
+        this.dataSource = dataSource;
+    }
+
+    void update(long lagMillis, long maxLagMillis) {
+        this.lagMillis = lagMillis;
+        this.available = lagMillis <= maxLagMillis;
+    }
+
+    void markDown() {
+        this.available = false;
+        this.lagMillis = -1;
+    }
+}
@@ -0,0 +1,87 @@
+package com.ncov.module.common.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.List;
+
+/**
+ * 副本延迟检查
+ *
+ * 先读取主库上次写入的心跳时间，再读取各副本复制到的心跳时间，二者之差即复制延迟，最后在主库写入新的心跳。
+ * 心跳时间都由主库时钟产生，不受服务器间时钟偏差影响；副本有一个检查间隔的时间应用上次心跳，
+ * 测得的延迟与实际延迟相差不超过一个检查间隔。
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+
+    static final String SELECT_HEARTBEAT = "select beat_at from replica_heartbeat where id = 1";
+    static final String UPDATE_HEARTBEAT = "update replica_heartbeat set beat_at = now(3) where id = 1";
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+
+    public ReplicaLagMonitor(DataSource primary, List<Replica> replicas, long maxLagMillis,
+                             MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.maxLagMillis = maxLagMillis;
+        for (Replica replica : replicas) {
+            Gauge.builder("database.replica.lag", replica, Replica::getLagMillis)
+                    .tag("replica", replica.getName())
+                    .baseUnit("milliseconds")
+                    .description("Replication lag measured by heartbeat, -1 when unavailable")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${database.routing.checkIntervalMs:500}")
+    public void check() {
+        Timestamp primaryBeat;
+        try {
+            primaryBeat = readHeartbeat(primary);
+        } catch (SQLException e) {
+            // 主库不可用时无法测量延迟，保持各副本上次的状态
+            log.warn("Failed to read heartbeat from primary", e);
+            return;
+        }
+        for (Replica replica : replicas) {
+            try {
+                long lagMillis = Math.max(0, primaryBeat.getTime() - readHeartbeat(replica.getDataSource()).getTime());
+                boolean wasAvailable = replica.isAvailable();
+                replica.update(lagMillis, maxLagMillis);
+                if (wasAvailable != replica.isAvailable()) {
+                    log.info("Replica [{}] {}, lag=[{}]ms", replica.getName(),
+                            replica.isAvailable() ? "available" : "lagging", lagMillis);
+                }
+            } catch (SQLException e) {
+                if (replica.isAvailable()) {
+                    log.warn("Replica [{}] unavailable", replica.getName(), e);
+                }
+                replica.markDown();
+            }
+        }
+        try (Connection connection = primary.getConnection();
+             PreparedStatement update = connection.prepareStatement(UPDATE_HEARTBEAT)) {
+            update.executeUpdate();
+        } catch (SQLException e) {
+            log.warn("Failed to write heartbeat to primary", e);
+        }
+    }
+
+    private static Timestamp readHeartbeat(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement select = connection.prepareStatement(SELECT_HEARTBEAT);
+             ResultSet heartbeat = select.executeQuery()) {
+            if (!heartbeat.next()) {
+                throw new SQLException("Heartbeat row missing in replica_heartbeat");
+            }
+            return heartbeat.getTimestamp(1);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.ncov.module.common.datasource;
+
+import java.lang.annotation.*;
+
+/**
+ * 标注的方法(标注在类上时为类中所有方法)在没有读写事务时从只读副本读取，能接受不超过database.routing.maxLagMs的延迟
+ *
+ * 写入后需要立即读到结果的路径(物资详情、我的物资、管理端列表和审核)不要标注，这些查询始终走主库。
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReplicaRead {
+}
@@ -0,0 +1,23 @@
+package com.ncov.module.common.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * 在{@link ReplicaRead}标注的方法执行期间标记当前线程，由{@link ReplicaRoutingDataSource}据此选择副本
+ */
+@Aspect
+public class ReplicaReadAspect {
+
+    @Around("@annotation(com.ncov.module.common.datasource.ReplicaRead)"
+            + " || @within(com.ncov.module.common.datasource.ReplicaRead)")
+    public Object readFromReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        boolean previous = ReplicaRoutingDataSource.enterReplicaRead();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            ReplicaRoutingDataSource.exitReplicaRead(previous);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.ncov.module.common.datasource;
+
+import com.ncov.module.common.event.MaterialChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离的数据源：只读事务和{@link ReplicaRead}标注的方法轮询可用的只读副本，其余连接都取自主库
+ *
+ * 读写事务中的查询始终走主库。副本延迟超过阈值、无法连接或获取连接失败时不参与轮询，全部不可用时回退到主库。
+ * 本节点写入物资后的stickyPrimary时间内副本读也改走主库，使刚写入的数据在列表中立即可见，
+ * 也避免列表缓存失效后从副本加载到旧数据。
+ * 须经LazyConnectionDataSourceProxy使用，事务中的连接才会在只读标记设置之后获取。
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final ThreadLocal<Boolean> REPLICA_READ = new ThreadLocal<>();
+
+    private final DataSource primary;
+    @Getter
+    private final List<Replica> replicas;
+    private final long stickyPrimaryNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter replicaReads;
+    private final Counter fallbackReads;
+    private volatile long primaryPinnedUntil = System.nanoTime();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, long stickyPrimaryMillis,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.stickyPrimaryNanos = TimeUnit.MILLISECONDS.toNanos(stickyPrimaryMillis);
+        this.replicaReads = Counter.builder("database.replica.reads").tag("target", "replica")
+                .register(meterRegistry);
+        this.fallbackReads = Counter.builder("database.replica.reads").tag("target", "primary")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!isReplicaRead()) {
+            return primary.getConnection();
+        }
+        if (!isPrimaryPinned()) {
+            for (int attempt = 0; attempt < replicas.size(); attempt++) {
+                Replica replica = replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+                if (replica.isAvailable()) {
+                    try {
+                        Connection connection = replica.getDataSource().getConnection();
+                        replicaReads.increment();
+                        return connection;
+                    } catch (SQLException e) {
+                        log.warn("Replica [{}] unavailable, falling back", replica.getName(), e);
+                        replica.markDown();
+                    }
+                }
+            }
+        }
+        fallbackReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    /**
+     * 在其它缓存处理同一事件之前执行，失效后重新加载的列表都取自主库
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMaterialChanged(MaterialChangedEvent event) {
+        primaryPinnedUntil = System.nanoTime() + stickyPrimaryNanos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Replica replica : replicas) {
+            if (replica.getDataSource() instanceof Closeable) {
+                ((Closeable) replica.getDataSource()).close();
+            }
+        }
+    }
+
+    /**
+     * 只读事务，或不在读写事务中且处于{@link ReplicaRead}标注的方法内
+     */
+    boolean isReplicaRead() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return true;
+        }
+        return !TransactionSynchronizationManager.isActualTransactionActive() && Boolean.TRUE.equals(REPLICA_READ.get());
+    }
+
+    boolean isPrimaryPinned() {
+        return System.nanoTime() - primaryPinnedUntil < 0;
+    }
+
+    static boolean enterReplicaRead() {
+        boolean previous = Boolean.TRUE.equals(REPLICA_READ.get());
+        REPLICA_READ.set(Boolean.TRUE);
+        return previous;
+    }
+
+    static void exitReplicaRead(boolean previous) {
+        if (!previous) {
+            REPLICA_READ.remove();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.ncov.module.common.enums;
+
+import com.ncov.module.common.exception.UnsupportedExportFormatException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * 物资导出格式
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+public enum ExportFormat {
+
+    CSV("text/csv;charset=UTF-8", "csv"),
+    NDJSON("application/x-ndjson;charset=UTF-8", "ndjson");
+
+    private String contentType;
+    private String extension;
+
+    public static ExportFormat of(String format) {
+        return Arrays.stream(values())
+                .filter(value -> value.name().equalsIgnoreCase(format))
+                .findFirst()
+                .orElseThrow(() -> new UnsupportedExportFormatException(format));
+    }
+}
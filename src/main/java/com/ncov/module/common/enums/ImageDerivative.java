@@ -0,0 +1,29 @@
+package com.ncov.module.common.enums;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 图片衍生尺寸，均按最长边等比缩放并重新压缩为JPEG
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+public enum ImageDerivative {
+
+    THUMBNAIL("thumbnail", 240, "列表卡片缩略图"),
+    PREVIEW("preview", 960, "详情预览图");
+
+    private String directory;
+    private int maxDimension;
+    private String description;
+
+    /**
+     * 原图名称为"摘要.扩展名"，衍生图名称为"目录/摘要.jpg"
+     */
+    public String getImageName(String originalImageName) {
+        int dot = originalImageName.lastIndexOf('.');
+        String hash = dot < 0 ? originalImageName : originalImageName.substring(0, dot);
+        return directory + "/" + hash + ".jpg";
+    }
+}
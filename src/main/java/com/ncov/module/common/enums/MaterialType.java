@@ -0,0 +1,15 @@
+package com.ncov.module.common.enums;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+public enum MaterialType {
+
+    REQUIRED("物资寻求"),
+    SUPPLIED("物资供应");
+
+    private String description;
+}
@@ -0,0 +1,19 @@
+package com.ncov.module.common.enums;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 批量审核中单条物资的处理结果
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+public enum ReviewOutcome {
+
+    UPDATED("已处理"),
+    NOT_PENDING("非待审核状态，未处理"),
+    NOT_FOUND("物资不存在");
+
+    private String description;
+}
@@ -0,0 +1,54 @@
+package com.ncov.module.common.event;
+
+import com.ncov.module.common.enums.MaterialStatus;
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Objects;
+
+/**
+ * 物资寻求/供应信息发生变更时发布的事件，事务提交后由各内存索引、缓存订阅
+ *
+ * before为空表示新建，after为变更后的完整状态
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class MaterialChangedEvent {
+
+    private final MaterialType type;
+    private final MaterialResponse before;
+    private final MaterialResponse after;
+
+    public static MaterialChangedEvent created(MaterialType type, MaterialResponse material) {
+        return new MaterialChangedEvent(type, null, material);
+    }
+
+    public boolean isCreated() {
+        return Objects.isNull(before);
+    }
+
+    public boolean wasPublished() {
+        return isPublished(before);
+    }
+
+    public boolean isPublished() {
+        return isPublished(after);
+    }
+
+    /**
+     * 变更前或变更后处于公开状态，即公开列表的内容受到了影响
+     */
+    public boolean affectsPublished() {
+        return wasPublished() || isPublished();
+    }
+
+    private static boolean isPublished(MaterialResponse material) {
+        return Objects.nonNull(material)
+                && Objects.nonNull(material.getStatus())
+                && !MaterialStatus.PENDING.name().equals(material.getStatus());
+    }
+}
@@ -0,0 +1,12 @@
+package com.ncov.module.common.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE)
+public class FeedUnavailableException extends RuntimeException {
+
+    public FeedUnavailableException() {
+        super("Too many feed subscribers, please fall back to polling.");
+    }
+}
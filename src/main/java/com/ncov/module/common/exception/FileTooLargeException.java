@@ -0,0 +1,12 @@
+package com.ncov.module.common.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.PAYLOAD_TOO_LARGE)
+public class FileTooLargeException extends RuntimeException {
+
+    public FileTooLargeException(long maxSize) {
+        super("File exceeds the maximum size of " + maxSize + " bytes.");
+    }
+}
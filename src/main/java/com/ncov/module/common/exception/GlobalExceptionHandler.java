@@ -14,6 +14,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import javax.validation.ConstraintViolationException;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.util.Objects;
@@ -44,6 +45,14 @@ public class GlobalExceptionHandler {
         return RestResponse.getResp(e.getBindingResult().getFieldError().getDefaultMessage());
     }
 
+    @ExceptionHandler(ConstraintViolationException.class)
+    @ResponseBody
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public RestResponse parameterValidateFailed(ConstraintViolationException e) {
+        log.warn("ParameterError:{}", e.getMessage());
+        return RestResponse.getResp("参数错误!");
+    }
+
     @ExceptionHandler(HttpRequestMethodNotSupportedException.class)
     @ResponseBody
     @ResponseStatus(HttpStatus.METHOD_NOT_ALLOWED)
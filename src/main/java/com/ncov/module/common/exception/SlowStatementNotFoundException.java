@@ -0,0 +1,12 @@
+package com.ncov.module.common.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.NOT_FOUND)
+public class SlowStatementNotFoundException extends RuntimeException {
+
+    public SlowStatementNotFoundException() {
+        super("Slow statement record does not exist or has been overwritten");
+    }
+}
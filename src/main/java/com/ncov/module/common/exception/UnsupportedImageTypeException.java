@@ -0,0 +1,12 @@
+package com.ncov.module.common.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.UNSUPPORTED_MEDIA_TYPE)
+public class UnsupportedImageTypeException extends RuntimeException {
+
+    public UnsupportedImageTypeException(String contentType) {
+        super("Unsupported image type: " + contentType);
+    }
+}
@@ -0,0 +1,12 @@
+package com.ncov.module.common.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(code = HttpStatus.TOO_MANY_REQUESTS)
+public class UploadRejectedException extends RuntimeException {
+
+    public UploadRejectedException() {
+        super("Too many uploads in progress, please retry later.");
+    }
+}
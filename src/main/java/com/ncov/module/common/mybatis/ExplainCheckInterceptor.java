@@ -0,0 +1,106 @@
+package com.ncov.module.common.mybatis;
+
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * 查询执行前对其执行EXPLAIN，检查受保护的表是否存在无可用索引的全表扫描
+ *
+ * 每种SQL只检查一次，IN列表长度和limit数值不同的SQL视为同一种，已检查的SQL最多保留maxStatements种。
+ * 执行计划为ALL且possible_keys为空时视为缺少索引，与表中数据量无关，
+ * 测试环境中直接抛出异常使测试失败，其它环境只记录警告，EXPLAIN本身出错也不影响原查询。
+ */
+@Slf4j
+@Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+public class ExplainCheckInterceptor implements Interceptor {
+
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern LIMIT = Pattern.compile("(?i)\\blimit\\s+\\d+(\\s*,\\s*\\d+)?");
+
+    private final Set<String> guardedTables;
+    private final boolean failOnFullScan;
+    private final ConcurrentMap<String, Boolean> checkedStatements;
+
+    public ExplainCheckInterceptor(Collection<String> guardedTables, boolean failOnFullScan, long maxStatements) {
+        this.guardedTables = new HashSet<>(guardedTables);
+        this.failOnFullScan = failOnFullScan;
+        this.checkedStatements = CacheBuilder.newBuilder().maximumSize(maxStatements).<String, Boolean>build()
+                .asMap();
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        StatementHandler statementHandler = (StatementHandler) invocation.getTarget();
+        String sql = statementHandler.getBoundSql().getSql();
+        if (isSelect(sql) && Objects.isNull(checkedStatements.putIfAbsent(normalize(sql), Boolean.TRUE))) {
+            check((Connection) invocation.getArgs()[0], statementHandler, sql);
+        }
+        return invocation.proceed();
+    }
+
+    private void check(Connection connection, StatementHandler statementHandler, String sql) throws SQLException {
+        List<String> fullScans;
+        try {
+            fullScans = explain(connection, statementHandler, sql);
+        } catch (SQLException | RuntimeException e) {
+            if (failOnFullScan) {
+                throw e;
+            }
+            log.warn("Failed to explain statement: {}", sql, e);
+            return;
+        }
+        if (!fullScans.isEmpty()) {
+            String message = String.format("Full table scan on %s without usable index: %s", fullScans, sql);
+            if (failOnFullScan) {
+                throw new IllegalStateException(message);
+            }
+            log.warn(message);
+        }
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return target instanceof StatementHandler ? Plugin.wrap(target, this) : target;
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+
+    private List<String> explain(Connection connection, StatementHandler statementHandler, String sql)
+            throws SQLException {
+        List<String> fullScans = new ArrayList<>();
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            statementHandler.getParameterHandler().setParameters(explain);
+            try (ResultSet plan = explain.executeQuery()) {
+                while (plan.next()) {
+                    String table = plan.getString("table");
+                    if (guardedTables.contains(table)
+                            && "ALL".equalsIgnoreCase(plan.getString("type"))
+                            && Objects.isNull(plan.getString("possible_keys"))) {
+                        fullScans.add(table);
+                    }
+                }
+            }
+        }
+        return fullScans;
+    }
+
+    static String normalize(String sql) {
+        return LIMIT.matcher(IN_LIST.matcher(sql).replaceAll("(?)")).replaceAll("limit ?");
+    }
+
+    private static boolean isSelect(String sql) {
+        return sql.trim().regionMatches(true, 0, "select", 0, 6);
+    }
+}
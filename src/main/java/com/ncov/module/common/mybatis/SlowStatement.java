@@ -0,0 +1,38 @@
+package com.ncov.module.common.mybatis;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 一次慢SQL的执行记录
+ */
+@Getter
+@AllArgsConstructor
+public class SlowStatement {
+
+    /**
+     * 记录序号，单调递增
+     */
+    private final long id;
+    private final String mapperId;
+    /**
+     * 合并空白后的SQL，参数保留为占位符
+     */
+    private final String sql;
+    /**
+     * 按占位符顺序排列的绑定值
+     */
+    private final List<Object> parameters;
+    /**
+     * 查询返回的行数或更新影响的行数
+     */
+    private final int rows;
+    /**
+     * 执行失败时的异常，成功时为空
+     */
+    private final String error;
+    private final long elapsedMillis;
+    private final long occurredAt;
+}
@@ -0,0 +1,177 @@
+package com.ncov.module.common.mybatis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.plugin.*;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.lang.reflect.Proxy;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 记录执行时间超过阈值的SQL，保存在固定容量的环形缓冲区中，写满后覆盖最旧的记录
+ *
+ * 未超过阈值的语句只多两次计时和一次比较；超过阈值时才解析mapper id和绑定值。执行失败(如锁等待超时)的语句
+ * 同样计时，超过阈值时连同异常一起记录。由ResultHandler逐行处理结果的查询(如流式导出)耗时包含处理结果的时间，
+ * 不计入慢SQL。缓冲区的写入和读取都不加锁，读取得到的是近似快照。记录失败时只打印日志，不影响语句本身的结果。
+ */
+@Slf4j
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+        @Signature(type = StatementHandler.class, method = "update", args = {Statement.class})
+})
+public class SlowStatementInterceptor implements Interceptor {
+
+    private final long thresholdNanos;
+    private final AtomicReferenceArray<SlowStatement> buffer;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SlowStatementInterceptor(long thresholdMs, int capacity) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+        this.buffer = new AtomicReferenceArray<>(capacity);
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (hasResultHandler(invocation)) {
+            return invocation.proceed();
+        }
+        long start = System.nanoTime();
+        Object result = null;
+        Throwable error = null;
+        try {
+            result = invocation.proceed();
+            return result;
+        } catch (Throwable e) {
+            error = ExceptionUtil.unwrapThrowable(e);
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (elapsed >= thresholdNanos) {
+                try {
+                    record(invocation.getTarget(), result, error, elapsed);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to record slow statement, elapsed=[{}]ms",
+                            TimeUnit.NANOSECONDS.toMillis(elapsed), e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Object plugin(Object target) {
+        return target instanceof StatementHandler ? Plugin.wrap(target, this) : target;
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+
+    /**
+     * 最近的慢SQL，新的在前
+     */
+    public List<SlowStatement> getRecent() {
+        long next = sequence.get();
+        List<SlowStatement> recent = new ArrayList<>();
+        for (long id = next - 1; id >= 0 && id >= next - buffer.length(); id--) {
+            SlowStatement statement = buffer.get((int) (id % buffer.length()));
+            // 读取期间该位置可能已被更新的记录覆盖
+            if (Objects.nonNull(statement) && statement.getId() == id) {
+                recent.add(statement);
+            }
+        }
+        return recent;
+    }
+
+    /**
+     * 按序号查找，已被覆盖时返回空
+     */
+    public Optional<SlowStatement> get(long id) {
+        if (id < 0) {
+            return Optional.empty();
+        }
+        SlowStatement statement = buffer.get((int) (id % buffer.length()));
+        return Objects.nonNull(statement) && statement.getId() == id ? Optional.of(statement) : Optional.empty();
+    }
+
+    void record(String mapperId, Configuration configuration, BoundSql boundSql, Object result, Throwable error,
+                long elapsedNanos) {
+        long id = sequence.getAndIncrement();
+        buffer.set((int) (id % buffer.length()), new SlowStatement(id, mapperId,
+                boundSql.getSql().replaceAll("\\s+", " ").trim(), parameters(configuration, boundSql),
+                rows(result), Objects.isNull(error) ? null : error.toString(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), System.currentTimeMillis()));
+    }
+
+    private void record(Object target, Object result, Throwable error, long elapsedNanos) {
+        StatementHandler statementHandler = (StatementHandler) target;
+        MetaObject handler = SystemMetaObject.forObject(realTarget(statementHandler));
+        String path = handler.hasGetter("delegate") ? "delegate.mappedStatement" : "mappedStatement";
+        MappedStatement mappedStatement = (MappedStatement) handler.getValue(path);
+        record(mappedStatement.getId(), mappedStatement.getConfiguration(), statementHandler.getBoundSql(), result,
+                error, elapsedNanos);
+    }
+
+    /**
+     * 调用方传入了ResultHandler的查询，结果交给handler处理，query本身返回null
+     */
+    private static boolean hasResultHandler(Invocation invocation) {
+        Object[] args = invocation.getArgs();
+        return Objects.nonNull(args) && args.length > 1 && Objects.nonNull(args[1]);
+    }
+
+    /**
+     * 与DefaultParameterHandler相同的取值顺序：附加参数、可直接处理的参数对象、参数对象的属性
+     */
+    private static List<Object> parameters(Configuration configuration, BoundSql boundSql) {
+        Object parameterObject = boundSql.getParameterObject();
+        MetaObject metaObject = null;
+        List<Object> values = new ArrayList<>();
+        for (ParameterMapping mapping : boundSql.getParameterMappings()) {
+            if (mapping.getMode() == ParameterMode.OUT) {
+                continue;
+            }
+            String property = mapping.getProperty();
+            if (boundSql.hasAdditionalParameter(property)) {
+                values.add(boundSql.getAdditionalParameter(property));
+            } else if (Objects.isNull(parameterObject)) {
+                values.add(null);
+            } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+                values.add(parameterObject);
+            } else {
+                if (Objects.isNull(metaObject)) {
+                    metaObject = configuration.newMetaObject(parameterObject);
+                }
+                values.add(metaObject.getValue(property));
+            }
+        }
+        return values;
+    }
+
+    private static int rows(Object result) {
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        return result instanceof Integer ? (Integer) result : 0;
+    }
+
+    private static Object realTarget(Object target) {
+        Object real = target;
+        while (Proxy.isProxyClass(real.getClass())) {
+            real = SystemMetaObject.forObject(real).getValue("h.target");
+        }
+        return real;
+    }
+}
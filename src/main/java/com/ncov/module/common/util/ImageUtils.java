@@ -1,6 +1,7 @@
 package com.ncov.module.common.util;
 
 import com.ncov.module.common.Constants;
+import com.ncov.module.common.enums.ImageDerivative;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.apache.commons.collections4.CollectionUtils;
@@ -9,11 +10,15 @@ import org.apache.commons.lang3.StringUtils;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class ImageUtils {
 
+    private static final Pattern CONTENT_ADDRESSED_NAME = Pattern.compile("[0-9a-f]{64}\\.\\w+");
+
     public static String joinImageUrls(List<String> urls) {
         if (CollectionUtils.isEmpty(urls)) {
             return "";
@@ -27,4 +32,33 @@ public final class ImageUtils {
         }
         return Arrays.stream(joinedUrls.split(Constants.DELIMITER_COMMA)).collect(Collectors.toList());
     }
+
+    /**
+     * 由原图URL得到衍生图URL
+     *
+     * 只有以内容摘要命名的图片才会生成衍生图，其它(历史上传的)图片以及衍生图尚未确认存在的图片直接返回原图URL。
+     *
+     * @param urls           原图URL
+     * @param derivative     衍生尺寸
+     * @param hasDerivatives 按原图文件名判断衍生图是否已存在
+     * @return 与原图一一对应的衍生图URL
+     */
+    public static List<String> getDerivativeUrls(List<String> urls, ImageDerivative derivative,
+                                                 Predicate<String> hasDerivatives) {
+        if (CollectionUtils.isEmpty(urls)) {
+            return urls;
+        }
+        return urls.stream().map(url -> getDerivativeUrl(url, derivative, hasDerivatives))
+                .collect(Collectors.toList());
+    }
+
+    private static String getDerivativeUrl(String url, ImageDerivative derivative,
+                                           Predicate<String> hasDerivatives) {
+        int slash = url.lastIndexOf('/');
+        String imageName = url.substring(slash + 1);
+        if (!CONTENT_ADDRESSED_NAME.matcher(imageName).matches() || !hasDerivatives.test(imageName)) {
+            return url;
+        }
+        return url.substring(0, slash + 1) + derivative.getImageName(imageName);
+    }
 }
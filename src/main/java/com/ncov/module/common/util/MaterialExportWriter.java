@@ -0,0 +1,146 @@
+package com.ncov.module.common.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.ncov.module.common.enums.ExportFormat;
+import com.ncov.module.controller.dto.AddressDto;
+import com.ncov.module.controller.dto.MaterialDto;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * 将物资逐行写为CSV或NDJSON
+ *
+ * 只缓冲固定大小的输出，缓冲区写满即交给下层输出流，已写出的行不再被引用，内存占用与导出行数无关。
+ * 写出失败时抛出{@link UncheckedIOException}，以便在查询结果回调中中止导出。
+ */
+public abstract class MaterialExportWriter implements Flushable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public static MaterialExportWriter of(ExportFormat format, OutputStream output, ObjectMapper objectMapper) {
+        OutputStream buffered = new BufferedOutputStream(output, BUFFER_SIZE);
+        return format == ExportFormat.CSV ? new CsvWriter(buffered) : new NdjsonWriter(buffered, objectMapper);
+    }
+
+    public abstract void write(MaterialResponse material);
+
+    /**
+     * 表头与各列取值一一对应，图片地址以空格分隔
+     */
+    private static class CsvWriter extends MaterialExportWriter {
+
+        private static final List<String> HEADER = Arrays.asList("id", "name", "category", "quantity", "standard",
+                "organisationName", "country", "province", "city", "district", "streetAddress", "contactorName",
+                "contactorPhone", "comment", "status", "reviewMessage", "imageUrls", "gmtCreated", "gmtModified");
+        private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+                .withZone(ZoneId.systemDefault());
+        private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+        private final Writer writer;
+
+        CsvWriter(OutputStream output) {
+            writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+            try {
+                // 带BOM以便Excel按UTF-8识别中文
+                writer.write('\uFEFF');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            writeRow(HEADER);
+        }
+
+        @Override
+        public void write(MaterialResponse material) {
+            MaterialDto dto = Optional.ofNullable(material.getMaterial()).orElseGet(MaterialDto::new);
+            AddressDto address = Optional.ofNullable(material.getAddress()).orElseGet(AddressDto::new);
+            writeRow(Arrays.asList(material.getId(), dto.getName(), dto.getCategory(), format(dto.getQuantity()),
+                    dto.getStandard(), material.getOrganisationName(), address.getCountry(), address.getProvince(),
+                    address.getCity(), address.getDistrict(), address.getStreetAddress(), material.getContactorName(),
+                    material.getContactorPhone(), material.getComment(), material.getStatus(),
+                    material.getReviewMessage(),
+                    Objects.isNull(dto.getImageUrls()) ? null : String.join(" ", dto.getImageUrls()),
+                    format(material.getGmtCreated()), format(material.getGmtModified())));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        private void writeRow(List<String> values) {
+            try {
+                writer.write(values.stream().map(CsvWriter::escape).collect(Collectors.joining(",")));
+                writer.write("\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * 按RFC 4180转义，并为公式起始字符加单引号，防止在表格软件中被当作公式执行
+         */
+        static String escape(String value) {
+            if (Objects.isNull(value) || value.isEmpty()) {
+                return "";
+            }
+            String text = FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                return text;
+            }
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+
+        private static String format(Double quantity) {
+            return Objects.isNull(quantity) ? null : BigDecimal.valueOf(quantity).stripTrailingZeros().toPlainString();
+        }
+
+        private static String format(Date date) {
+            return Objects.isNull(date) ? null : DATE_FORMATTER.format(date.toInstant());
+        }
+    }
+
+    /**
+     * 每行一个JSON对象，字段与列表接口返回的物资一致
+     */
+    private static class NdjsonWriter extends MaterialExportWriter {
+
+        private final OutputStream output;
+        private final ObjectWriter objectWriter;
+
+        NdjsonWriter(OutputStream output, ObjectMapper objectMapper) {
+            this.output = output;
+            // 每行写完不关闭也不刷新下层输出流，由缓冲区决定何时写出
+            this.objectWriter = objectMapper.writer()
+                    .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .without(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        }
+
+        @Override
+        public void write(MaterialResponse material) {
+            try {
+                objectWriter.writeValue(output, material);
+                output.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            output.flush();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ncov.module.common.util;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 全文检索分词
+ *
+ * 文本先做NFKC归一化(全角转半角)并转小写，再按字符类别切分：汉字连续片段切成单字和相邻二字组，
+ * 字母数字连续片段作为一个词，并额外生成长度不小于2的前缀，以支持"n9"匹配"N95"。
+ * 查询时汉字片段只取二字组(单字片段取单字)，字母数字片段取整个词，与建索引时的词项一一对应。
+ * 切分和长度都按码点计算，扩展B区等增补平面的汉字不会被拆成单独的代理字符。
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class NGramTokenizer {
+
+    private static final int MAX_PREFIX_LENGTH = 16;
+
+    /**
+     * 建索引用的词项，同一词项出现多次时重复返回
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        split(text, (run, han) -> {
+            if (han) {
+                for (int i = 0; i < run.length; i++) {
+                    tokens.add(token(run, i, 1));
+                    if (i + 1 < run.length) {
+                        tokens.add(token(run, i, 2));
+                    }
+                }
+            } else {
+                for (int length = 2; length <= Math.min(run.length - 1, MAX_PREFIX_LENGTH); length++) {
+                    tokens.add(token(run, 0, length));
+                }
+                tokens.add(token(run, 0, run.length));
+            }
+        });
+        return tokens;
+    }
+
+    /**
+     * 查询用的词项，文档需包含全部词项才算命中
+     */
+    public static List<String> tokenizeQuery(String query) {
+        List<String> tokens = new ArrayList<>();
+        split(query, (run, han) -> {
+            if (han && run.length > 1) {
+                for (int i = 0; i + 1 < run.length; i++) {
+                    tokens.add(token(run, i, 2));
+                }
+            } else if (!han && run.length > MAX_PREFIX_LENGTH) {
+                tokens.add(token(run, 0, MAX_PREFIX_LENGTH));
+            } else {
+                tokens.add(token(run, 0, run.length));
+            }
+        });
+        return tokens;
+    }
+
+    private static void split(String text, RunConsumer consumer) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder run = new StringBuilder();
+        boolean runIsHan = false;
+        for (int i = 0; i < normalized.length(); ) {
+            int codePoint = normalized.codePointAt(i);
+            i += Character.charCount(codePoint);
+            boolean han = Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.HAN;
+            if (!han && !Character.isLetterOrDigit(codePoint)) {
+                flush(run, runIsHan, consumer);
+                continue;
+            }
+            if (run.length() > 0 && han != runIsHan) {
+                flush(run, runIsHan, consumer);
+            }
+            runIsHan = han;
+            run.appendCodePoint(codePoint);
+        }
+        flush(run, runIsHan, consumer);
+    }
+
+    private static void flush(StringBuilder run, boolean han, RunConsumer consumer) {
+        if (run.length() > 0) {
+            consumer.accept(run.codePoints().toArray(), han);
+            run.setLength(0);
+        }
+    }
+
+    private static String token(int[] codePoints, int offset, int count) {
+        return new String(codePoints, offset, count);
+    }
+
+    @FunctionalInterface
+    private interface RunConsumer {
+
+        /**
+         * @param run 同一类别的连续码点
+         */
+        void accept(int[] run, boolean han);
+    }
+}
@@ -0,0 +1,44 @@
+package com.ncov.module.common.util;
+
+import com.ncov.module.common.exception.InvalidCursorException;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * 列表分页游标，由最后一条记录的(gmt_created, id)编码而成，对客户端不透明
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class PageCursor {
+
+    private static final String DELIMITER = ":";
+
+    private final Date gmtCreated;
+    private final Long id;
+
+    public static String encode(Date gmtCreated, Long id) {
+        if (gmtCreated == null || id == null) {
+            return null;
+        }
+        String raw = gmtCreated.getTime() + DELIMITER + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(DELIMITER);
+            if (parts.length != 2) {
+                throw new InvalidCursorException();
+            }
+            return new PageCursor(new Date(Long.parseLong(parts[0])), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException();
+        }
+    }
+}
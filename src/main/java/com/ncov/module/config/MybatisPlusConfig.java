@@ -1,10 +1,18 @@
 package com.ncov.module.config;
 
 import com.baomidou.mybatisplus.extension.plugins.PaginationInterceptor;
+import com.ncov.module.common.mybatis.ExplainCheckInterceptor;
+import com.ncov.module.common.mybatis.SlowStatementInterceptor;
+import com.ncov.module.common.mybatis.StatementMetricsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.mybatis.spring.annotation.MapperScan;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.Arrays;
+
 @Configuration
 @MapperScan("com.ncov.module.mapper")
 public class MybatisPlusConfig {
@@ -16,4 +24,34 @@ public class MybatisPlusConfig {
     public PaginationInterceptor paginationInterceptor() {
         return new PaginationInterceptor();
     }
-}
\ No newline at end of file
+
+    /**
+     * SQL耗时指标插件
+     */
+    @Bean
+    public StatementMetricsInterceptor statementMetricsInterceptor(MeterRegistry meterRegistry) {
+        return new StatementMetricsInterceptor(meterRegistry);
+    }
+
+    /**
+     * 慢SQL记录插件
+     */
+    @Bean
+    public SlowStatementInterceptor slowStatementInterceptor(
+            @Value("${database.slowStatements.thresholdMs:200}") long thresholdMs,
+            @Value("${database.slowStatements.capacity:256}") int capacity) {
+        return new SlowStatementInterceptor(thresholdMs, capacity);
+    }
+
+    /**
+     * 执行计划检查插件，查询物资表时缺少可用索引则告警(测试环境中失败)，默认只在测试环境开启
+     */
+    @Bean
+    @ConditionalOnProperty(name = "database.explainCheck.enabled", havingValue = "true")
+    public ExplainCheckInterceptor explainCheckInterceptor(
+            @Value("${database.explainCheck.tables:material_required,material_supplied}") String[] tables,
+            @Value("${database.explainCheck.failOnFullScan:false}") boolean failOnFullScan,
+            @Value("${database.explainCheck.maxStatements:1024}") long maxStatements) {
+        return new ExplainCheckInterceptor(Arrays.asList(tables), failOnFullScan, maxStatements);
+    }
+}
@@ -0,0 +1,121 @@
+package com.ncov.module.config;
+
+import com.ncov.module.common.datasource.Replica;
+import com.ncov.module.common.datasource.ReplicaLagMonitor;
+import com.ncov.module.common.datasource.ReplicaReadAspect;
+import com.ncov.module.common.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+/**
+ * 读写分离，未开启时只有spring.datasource配置的单个连接池
+ *
+ * 主库连接池仍按spring.datasource配置，迁移直接在主库执行；副本连接池沿用主库的驱动和连接属性，连接只读，
+ * 获取连接超时较短，副本宕机时尽快回退到主库。
+ */
+@Configuration
+@ConditionalOnProperty(name = "database.routing.enabled", havingValue = "true")
+@ConfigurationProperties("database.routing")
+@Getter
+@Setter
+public class ReplicaRoutingConfiguration {
+
+    private long maxLagMs = 1000;
+    private long stickyPrimaryMs = 1500;
+    private long connectionTimeoutMs = 1000;
+    private List<ReplicaProperties> replicas = new ArrayList<>();
+
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             DataSourceProperties properties,
+                                                             MeterRegistry meterRegistry) {
+        List<Replica> pools = new ArrayList<>();
+        for (int i = 0; i < replicas.size(); i++) {
+            String name = "replica-" + (i + 1);
+            pools.add(new Replica(name, replicaPool(name, replicas.get(i), primaryDataSource, properties,
+                    meterRegistry)));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, pools, stickyPrimaryMs, meterRegistry);
+    }
+
+    /**
+     * 应用中注入的数据源，事务中的连接在第一条语句执行时才按路由获取
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(HikariDataSource primaryDataSource,
+                                               ReplicaRoutingDataSource replicaRoutingDataSource,
+                                               MeterRegistry meterRegistry) {
+        return new ReplicaLagMonitor(primaryDataSource, replicaRoutingDataSource.getReplicas(), maxLagMs,
+                meterRegistry);
+    }
+
+    @Bean
+    public ReplicaReadAspect replicaReadAspect() {
+        return new ReplicaReadAspect();
+    }
+
+    private HikariDataSource replicaPool(String name, ReplicaProperties replica, HikariDataSource primary,
+                                         DataSourceProperties properties, MeterRegistry meterRegistry) {
+        if (isBlank(replica.getUrl())) {
+            throw new IllegalStateException("database.routing.replicas: url of " + name + " is empty");
+        }
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(primary.getPoolName() + "-" + name);
+        pool.setDriverClassName(properties.determineDriverClassName());
+        pool.setJdbcUrl(replica.getUrl());
+        pool.setUsername(Objects.toString(replica.getUsername(), properties.determineUsername()));
+        pool.setPassword(Objects.toString(replica.getPassword(), properties.determinePassword()));
+        pool.setMaximumPoolSize(Objects.isNull(replica.getMaximumPoolSize())
+                ? primary.getMaximumPoolSize() : replica.getMaximumPoolSize());
+        pool.setConnectionTimeout(connectionTimeoutMs);
+        // 启动时副本不可达也创建连接池，获取连接失败时回退到主库，而不是启动失败
+        pool.setInitializationFailTimeout(-1);
+        pool.setReadOnly(true);
+        pool.setDataSourceProperties(primary.getDataSourceProperties());
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+
+    @ToString(exclude = "password")
+    @Getter
+    @Setter
+    public static class ReplicaProperties {
+
+        private String url;
+        private String username;
+        private String password;
+        private Integer maximumPoolSize;
+    }
+}
@@ -1,10 +1,13 @@
 package com.ncov.module.config;
 
+import com.ncov.module.common.cache.ConditionalGetInterceptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.web.servlet.ServletContextInitializer;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import javax.inject.Inject;
 import javax.servlet.ServletContext;
@@ -16,14 +19,21 @@ import java.util.Arrays;
  * Life is not just about survival.
  */
 @Configuration
-public class WebConfiguration implements ServletContextInitializer {
+public class WebConfiguration implements ServletContextInitializer, WebMvcConfigurer {
 
     private static final Logger logger = LoggerFactory.getLogger(WebConfiguration.class);
     @Inject
     private Environment env;
+    @Inject
+    private ConditionalGetInterceptor conditionalGetInterceptor;
 
     @Override
     public void onStartup(ServletContext servletContext) {
         logger.info("Active Profiles {}", Arrays.toString(env.getActiveProfiles()));
     }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(conditionalGetInterceptor);
+    }
 }
@@ -0,0 +1,38 @@
+package com.ncov.module.controller;
+
+import com.ncov.module.common.SwaggerConstants;
+import com.ncov.module.common.cache.MonitoredCache;
+import com.ncov.module.controller.resp.RestResponse;
+import com.ncov.module.controller.resp.cache.CacheStatsResponse;
+import io.swagger.annotations.ApiOperation;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/caches")
+public class CacheController {
+
+    private final List<MonitoredCache> caches;
+
+    @ApiOperation(
+            value = "List in-process cache statistics (admin only).",
+            tags = SwaggerConstants.TAG_ADMIN
+    )
+    @GetMapping
+    @PreAuthorize("hasRole('ROLE_SYSADMIN')")
+    @ResponseStatus(HttpStatus.OK)
+    public RestResponse<List<CacheStatsResponse>> listCacheStats() {
+        return RestResponse.getResp("请求成功.", caches.stream()
+                .map(MonitoredCache::getStats)
+                .collect(Collectors.toList()));
+    }
+}
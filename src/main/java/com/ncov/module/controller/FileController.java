@@ -1,22 +1,42 @@
 package com.ncov.module.controller;
 
+import com.google.common.collect.ImmutableMap;
 import com.ncov.module.common.SwaggerConstants;
+import com.ncov.module.common.exception.UnsupportedImageTypeException;
 import com.ncov.module.controller.resp.RestResponse;
 import com.ncov.module.controller.resp.file.ImageUploadResponse;
+import com.ncov.module.controller.resp.file.UploadStatsResponse;
 import com.ncov.module.service.FileService;
 import io.swagger.annotations.ApiOperation;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
 import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
 
 @RestController
 @RequestMapping("/api")
 @AllArgsConstructor
 public class FileController {
 
+    private static final String IMAGE_WEBP_VALUE = "image/webp";
+    /**
+     * 流式上传只接受的图片类型及其扩展名，对象名的扩展名只由此确定
+     */
+    private static final Map<String, String> IMAGE_EXTENSIONS = ImmutableMap.of(
+            MediaType.IMAGE_JPEG_VALUE, "jpg",
+            MediaType.IMAGE_PNG_VALUE, "png",
+            MediaType.IMAGE_GIF_VALUE, "gif",
+            IMAGE_WEBP_VALUE, "webp");
+
     private FileService fileService;
 
     @ApiOperation(
@@ -31,4 +51,47 @@ public class FileController {
         return RestResponse.getResp("Image uploaded.",
                 ImageUploadResponse.builder().url(imageUrl).gmtCreated(new Date()).build());
     }
+
+    @ApiOperation(
+            value = "Upload an image by streaming the raw request body.",
+            tags = SwaggerConstants.TAG_FILES
+    )
+    @PostMapping(value = "/images/stream", consumes = {MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE,
+            MediaType.IMAGE_GIF_VALUE, IMAGE_WEBP_VALUE})
+    @ResponseStatus(code = HttpStatus.CREATED)
+    public RestResponse<ImageUploadResponse> uploadImageStream(@RequestParam String category,
+                                                               HttpServletRequest request) throws IOException {
+        String imageUrl = fileService.uploadImage(category, getExtension(request.getContentType()),
+                request.getContentType(), request.getContentLengthLong(), request.getInputStream());
+        return RestResponse.getResp("Image uploaded.",
+                ImageUploadResponse.builder().url(imageUrl).gmtCreated(new Date()).build());
+    }
+
+    @ApiOperation(
+            value = "Get image upload statistics (admin only).",
+            tags = SwaggerConstants.TAG_ADMIN
+    )
+    @GetMapping("/images/stats")
+    @PreAuthorize("hasRole('ROLE_SYSADMIN')")
+    @ResponseStatus(code = HttpStatus.OK)
+    public RestResponse<UploadStatsResponse> getUploadStats() {
+        return RestResponse.getResp("请求成功.", fileService.getUploadStats());
+    }
+
+    private static String getExtension(String contentType) {
+        if (Objects.isNull(contentType)) {
+            throw new UnsupportedImageTypeException(null);
+        }
+        String extension;
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            extension = IMAGE_EXTENSIONS.get(mediaType.getType() + "/" + mediaType.getSubtype());
+        } catch (InvalidMediaTypeException e) {
+            throw new UnsupportedImageTypeException(contentType);
+        }
+        if (Objects.isNull(extension)) {
+            throw new UnsupportedImageTypeException(contentType);
+        }
+        return extension;
+    }
 }
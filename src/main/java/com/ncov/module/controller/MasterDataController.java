@@ -1,9 +1,13 @@
 package com.ncov.module.controller;
 
+import com.ncov.module.common.SwaggerConstants;
+import com.ncov.module.common.cache.ConditionalGet;
 import com.ncov.module.controller.resp.RestResponse;
 import com.ncov.module.service.MasterDataService;
+import io.swagger.annotations.ApiOperation;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -16,21 +20,36 @@ public class MasterDataController {
     private final MasterDataService masterDataService;
 
     @GetMapping("/provinces")
+    @ConditionalGet(MasterDataService.class)
     @ResponseStatus(HttpStatus.OK)
     public RestResponse<List<String>> getChinaProvinces() {
         return RestResponse.getResp("请求成功.", masterDataService.getProvinces());
     }
 
     @GetMapping("/cities")
+    @ConditionalGet(MasterDataService.class)
     @ResponseStatus(HttpStatus.OK)
     public RestResponse<List<String>> getCities(@RequestParam String province) {
         return RestResponse.getResp("请求成功.", masterDataService.getCitiesByProvince(province));
     }
 
     @GetMapping("/districts")
+    @ConditionalGet(MasterDataService.class)
     @ResponseStatus(HttpStatus.OK)
     public RestResponse<List<String>> getDistricts(@RequestParam String province, @RequestParam String city) {
         return RestResponse.getResp("请求成功.",
                 masterDataService.getDistrictsByProvinceAndCity(province, city));
     }
+
+    @ApiOperation(
+            value = "Reload province/city/district master data (admin only).",
+            tags = SwaggerConstants.TAG_ADMIN
+    )
+    @PostMapping("/regions:reload")
+    @PreAuthorize("hasRole('ROLE_SYSADMIN')")
+    @ResponseStatus(HttpStatus.OK)
+    public RestResponse reloadRegions() {
+        masterDataService.reload();
+        return RestResponse.getResp("重新加载成功.");
+    }
 }
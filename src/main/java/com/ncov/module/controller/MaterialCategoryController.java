@@ -1,28 +1,42 @@
 package com.ncov.module.controller;
 
+import com.ncov.module.common.SwaggerConstants;
+import com.ncov.module.common.cache.ConditionalGet;
 import com.ncov.module.controller.resp.RestResponse;
 import com.ncov.module.controller.resp.category.MaterialCategoryResponse;
 import com.ncov.module.service.MaterialCategoryService;
+import io.swagger.annotations.ApiOperation;
 import lombok.AllArgsConstructor;
 import org.springframework.http.HttpStatus;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.ResponseStatus;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 
 @RestController
 @AllArgsConstructor
-@RequestMapping("/api/material-categories")
+@RequestMapping("/api")
 public class MaterialCategoryController {
 
     private final MaterialCategoryService materialCategoryService;
 
-    @GetMapping
+    @GetMapping("/material-categories")
+    @ConditionalGet(MaterialCategoryService.class)
     @ResponseStatus(code = HttpStatus.OK)
     public RestResponse<List<MaterialCategoryResponse>> getAll() {
         return RestResponse.getResp(
                 "All categories listed.", materialCategoryService.getAllMaterialCategories());
     }
+
+    @ApiOperation(
+            value = "Reload material categories (admin only).",
+            tags = SwaggerConstants.TAG_ADMIN
+    )
+    @PostMapping("/material-categories:reload")
+    @PreAuthorize("hasRole('ROLE_SYSADMIN')")
+    @ResponseStatus(HttpStatus.OK)
+    public RestResponse reload() {
+        materialCategoryService.reload();
+        return RestResponse.getResp("重新加载成功.");
+    }
 }
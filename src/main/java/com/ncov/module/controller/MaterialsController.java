@@ -1,30 +1,62 @@
 package com.ncov.module.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.ncov.module.common.SwaggerConstants;
+import com.ncov.module.common.enums.ExportFormat;
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.util.MaterialExportWriter;
+import com.ncov.module.controller.request.material.MaterialBatchReviewRequest;
 import com.ncov.module.controller.request.material.MaterialRequest;
 import com.ncov.module.controller.resp.Page;
 import com.ncov.module.controller.resp.RestResponse;
+import com.ncov.module.controller.resp.material.MaterialMatchResponse;
 import com.ncov.module.controller.resp.material.MaterialResponse;
+import com.ncov.module.controller.resp.material.MaterialReviewResult;
 import com.ncov.module.security.UserContext;
+import com.ncov.module.service.MaterialFeedService;
+import com.ncov.module.service.MaterialMatchingService;
+import com.ncov.module.service.MaterialPageCache;
 import com.ncov.module.service.MaterialRequiredService;
+import com.ncov.module.service.MaterialSearchIndex;
 import com.ncov.module.service.MaterialSuppliedService;
 import io.swagger.annotations.ApiOperation;
 import lombok.AllArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.io.IOException;
 import java.util.List;
 
+import static org.apache.commons.lang3.StringUtils.isNotEmpty;
+
 @RestController
 @RequestMapping("/api")
 @AllArgsConstructor
+@Validated
 public class MaterialsController {
 
+    /**
+     * 公开列表每页条数上限；管理员和个人列表沿用原有约定，不限制条数
+     */
+    private static final long MAX_PAGE_SIZE = 100;
+
     private final UserContext userContext;
     private final MaterialSuppliedService materialSuppliedService;
     private final MaterialRequiredService materialRequiredService;
+    private final MaterialPageCache materialPageCache;
+    private final MaterialMatchingService materialMatchingService;
+    private final MaterialFeedService materialFeedService;
+    private final MaterialSearchIndex materialSearchIndex;
+    private final ObjectMapper objectMapper;
 
     @ApiOperation(
             value = "Create new required material.",
@@ -88,6 +120,30 @@ public class MaterialsController {
         return RestResponse.getResp("保存成功");
     }
 
+    @ApiOperation(
+            value = "Approve pending required materials in batch.",
+            tags = SwaggerConstants.TAG_REQUIRED_MATERIALS
+    )
+    @PreAuthorize("hasRole('ROLE_SYSADMIN')")
+    @PatchMapping("/required-materials:batchApprove")
+    @ResponseStatus(HttpStatus.OK)
+    public RestResponse<List<MaterialReviewResult>> batchApproveRequiredMaterials(
+            @RequestBody @Valid MaterialBatchReviewRequest request) {
+        return RestResponse.getResp("保存成功", materialRequiredService.batchApprove(request.getIds()));
+    }
+
+    @ApiOperation(
+            value = "Reject pending required materials in batch.",
+            tags = SwaggerConstants.TAG_REQUIRED_MATERIALS
+    )
+    @PreAuthorize("hasRole('ROLE_SYSADMIN')")
+    @PatchMapping("/required-materials:batchReject")
+    @ResponseStatus(HttpStatus.OK)
+    public RestResponse<List<MaterialReviewResult>> batchRejectRequiredMaterials(
+            @RequestBody @Valid MaterialBatchReviewRequest request, @RequestParam String reviewMessage) {
+        return RestResponse.getResp("保存成功", materialRequiredService.batchReject(request.getIds(), reviewMessage));
+    }
+
     @ApiOperation(
             value = "List required materials.",
             tags = SwaggerConstants.TAG_REQUIRED_MATERIALS
@@ -95,9 +151,32 @@ public class MaterialsController {
     @GetMapping("/required-materials")
     @ResponseStatus(HttpStatus.OK)
     public Page<MaterialResponse> listRequiredMaterials(
-            @RequestParam Integer page, @RequestParam Integer size,
-            @RequestParam(name = "category", required = false) String category) {
-        return materialRequiredService.getRequiredPageList(page, size, category);
+            @RequestParam(defaultValue = "1") @Min(1) Integer page,
+            @RequestParam @Min(1) @Max(MAX_PAGE_SIZE) Integer size,
+            @RequestParam(name = "category", required = false) String category,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "withTotal", defaultValue = "true") boolean withTotal,
+            @RequestParam(name = "q", required = false) String q) {
+        if (isNotEmpty(q)) {
+            MaterialSearchIndex.SearchResult result = materialSearchIndex.search(MaterialType.REQUIRED, q, category);
+            return materialRequiredService.getRequiredPageByIds(result.getIds(), result.getTotal(), page, size);
+        }
+        if (isNotEmpty(cursor)) {
+            return materialRequiredService.getRequiredPageList(page, size, category, cursor, withTotal);
+        }
+        return materialPageCache.get(MaterialType.REQUIRED, category, page, size, withTotal,
+                () -> materialRequiredService.getRequiredPageList(page, size, category, null, withTotal));
+    }
+
+    @ApiOperation(
+            value = "Subscribe to newly published required materials (Server-Sent Events).",
+            tags = SwaggerConstants.TAG_REQUIRED_MATERIALS
+    )
+    @GetMapping(value = "/required-materials/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeRequiredMaterials(
+            @RequestParam(name = "category", required = false) String category,
+            @RequestParam(name = "province", required = false) String province) {
+        return materialFeedService.subscribe(MaterialType.REQUIRED, category, province);
     }
 
     @ApiOperation(
@@ -110,6 +189,17 @@ public class MaterialsController {
         return RestResponse.getResp("请求成功", materialRequiredService.getDetail(id));
     }
 
+    @ApiOperation(
+            value = "List candidate supplied materials matching a required material.",
+            tags = SwaggerConstants.TAG_REQUIRED_MATERIALS
+    )
+    @GetMapping("/required-materials/{id}/matches")
+    @ResponseStatus(HttpStatus.OK)
+    public RestResponse<List<MaterialMatchResponse>> listRequiredMaterialMatches(
+            @PathVariable Long id, @RequestParam(name = "limit", defaultValue = "10") Integer limit) {
+        return RestResponse.getResp("请求成功", materialMatchingService.getSupplyCandidates(id, limit));
+    }
+
     @ApiOperation(
             value = "List all required materials (admin only).",
             tags = SwaggerConstants.TAG_REQUIRED_MATERIALS
@@ -118,7 +208,7 @@ public class MaterialsController {
     @GetMapping("/required-materials/all")
     @ResponseStatus(HttpStatus.OK)
     public Page<MaterialResponse> listAllRequiredMaterials(
-            @RequestParam Integer page, @RequestParam Integer size,
+            @RequestParam @Min(1) Integer page, @RequestParam @Min(1) Integer size,
             @RequestParam(name = "category", required = false) String category,
             @RequestParam(name = "status", required = false) String status,
             @RequestParam(name = "contactPhone", required = false) String contactPhone,
@@ -126,14 +216,32 @@ public class MaterialsController {
         return materialRequiredService.getAllRequiredMaterialsPage(page, size, category, status, contactPhone, userId);
     }
 
+    @ApiOperation(
+            value = "Export all required materials as CSV or NDJSON (admin only).",
+            tags = SwaggerConstants.TAG_REQUIRED_MATERIALS
+    )
+    @PreAuthorize("hasRole('ROLE_SYSADMIN')")
+    @GetMapping("/required-materials/export")
+    public void exportRequiredMaterials(
+            @RequestParam(name = "format", defaultValue = "csv") String format,
+            @RequestParam(name = "category", required = false) String category,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "contactPhone", required = false) String contactPhone,
+            @RequestParam(name = "userId", required = false) Long userId,
+            HttpServletResponse response) throws IOException {
+        MaterialExportWriter writer = startExport(response, ExportFormat.of(format), "required-materials");
+        materialRequiredService.exportRequiredMaterials(category, status, contactPhone, userId, writer::write);
+        writer.flush();
+    }
+
     @ApiOperation(
             value = "List my required materials.",
             tags = SwaggerConstants.TAG_REQUIRED_MATERIALS
     )
     @GetMapping("/required-materials/me")
     @PreAuthorize("hasRole('ROLE_SYSADMIN') or hasRole('ROLE_HOSPITAL')")
-    public Page<MaterialResponse> listMyRequiredMaterials(@RequestParam Integer page,
-                                                          @RequestParam Integer size) {
+    public Page<MaterialResponse> listMyRequiredMaterials(@RequestParam @Min(1) Integer page,
+                                                          @RequestParam @Min(1) Integer size) {
         return materialRequiredService.getAllRequiredMaterialsPage(page
                 , size
                 , null
@@ -179,6 +287,30 @@ public class MaterialsController {
         return RestResponse.getResp("保存成功");
     }
 
+    @ApiOperation(
+            value = "Admin approve pending supplied materials in batch.",
+            tags = SwaggerConstants.TAG_SUPPLIED_MATERIALS
+    )
+    @PatchMapping("/supplied-materials:batchApprove")
+    @PreAuthorize("hasRole('ROLE_SYSADMIN')")
+    @ResponseStatus(HttpStatus.OK)
+    public RestResponse<List<MaterialReviewResult>> batchApproveSuppliedMaterials(
+            @RequestBody @Valid MaterialBatchReviewRequest request) {
+        return RestResponse.getResp("保存成功", materialSuppliedService.batchApprove(request.getIds()));
+    }
+
+    @ApiOperation(
+            value = "Admin reject pending supplied materials in batch.",
+            tags = SwaggerConstants.TAG_SUPPLIED_MATERIALS
+    )
+    @PatchMapping("/supplied-materials:batchReject")
+    @PreAuthorize("hasRole('ROLE_SYSADMIN')")
+    @ResponseStatus(HttpStatus.OK)
+    public RestResponse<List<MaterialReviewResult>> batchRejectSuppliedMaterials(
+            @RequestBody @Valid MaterialBatchReviewRequest request, @RequestParam String reviewMessage) {
+        return RestResponse.getResp("保存成功", materialSuppliedService.batchReject(request.getIds(), reviewMessage));
+    }
+
     @ApiOperation(
             value = "List supplied materials.",
             tags = SwaggerConstants.TAG_SUPPLIED_MATERIALS
@@ -186,9 +318,32 @@ public class MaterialsController {
     @GetMapping("/supplied-materials")
     @ResponseStatus(HttpStatus.OK)
     public Page<MaterialResponse> listSuppliedMaterials(
-            @RequestParam Integer page, @RequestParam Integer size,
-            @RequestParam(name = "category", required = false) String category) {
-        return materialSuppliedService.getSuppliedPageList(page, size, category);
+            @RequestParam(defaultValue = "1") @Min(1) Integer page,
+            @RequestParam @Min(1) @Max(MAX_PAGE_SIZE) Integer size,
+            @RequestParam(name = "category", required = false) String category,
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "withTotal", defaultValue = "true") boolean withTotal,
+            @RequestParam(name = "q", required = false) String q) {
+        if (isNotEmpty(q)) {
+            MaterialSearchIndex.SearchResult result = materialSearchIndex.search(MaterialType.SUPPLIED, q, category);
+            return materialSuppliedService.getSuppliedPageByIds(result.getIds(), result.getTotal(), page, size);
+        }
+        if (isNotEmpty(cursor)) {
+            return materialSuppliedService.getSuppliedPageList(page, size, category, cursor, withTotal);
+        }
+        return materialPageCache.get(MaterialType.SUPPLIED, category, page, size, withTotal,
+                () -> materialSuppliedService.getSuppliedPageList(page, size, category, null, withTotal));
+    }
+
+    @ApiOperation(
+            value = "Subscribe to newly published supplied materials (Server-Sent Events).",
+            tags = SwaggerConstants.TAG_SUPPLIED_MATERIALS
+    )
+    @GetMapping(value = "/supplied-materials/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeSuppliedMaterials(
+            @RequestParam(name = "category", required = false) String category,
+            @RequestParam(name = "province", required = false) String province) {
+        return materialFeedService.subscribe(MaterialType.SUPPLIED, category, province);
     }
 
     @ApiOperation(
@@ -201,6 +356,17 @@ public class MaterialsController {
         return RestResponse.getResp("请求成功", materialSuppliedService.getDetail(id));
     }
 
+    @ApiOperation(
+            value = "List candidate required materials matching a supplied material.",
+            tags = SwaggerConstants.TAG_SUPPLIED_MATERIALS
+    )
+    @GetMapping("/supplied-materials/{id}/matches")
+    @ResponseStatus(HttpStatus.OK)
+    public RestResponse<List<MaterialMatchResponse>> listSuppliedMaterialMatches(
+            @PathVariable Long id, @RequestParam(name = "limit", defaultValue = "10") Integer limit) {
+        return RestResponse.getResp("请求成功", materialMatchingService.getDemandCandidates(id, limit));
+    }
+
     @ApiOperation(
             value = "Admin list all supplied materials.",
             tags = SwaggerConstants.TAG_SUPPLIED_MATERIALS
@@ -209,7 +375,7 @@ public class MaterialsController {
     @PreAuthorize("hasRole('ROLE_SYSADMIN')")
     @ResponseStatus(HttpStatus.OK)
     public Page<MaterialResponse> listAllSuppliedMaterials(
-            @RequestParam Integer page, @RequestParam Integer size,
+            @RequestParam @Min(1) Integer page, @RequestParam @Min(1) Integer size,
             @RequestParam(name = "category", required = false) String category,
             @RequestParam(name = "status", required = false) String status,
             @RequestParam(name = "contactPhone", required = false) String contactPhone,
@@ -217,14 +383,32 @@ public class MaterialsController {
         return materialSuppliedService.getAllSuppliedMaterialsPage(page, size, category, status, contactPhone, userId);
     }
 
+    @ApiOperation(
+            value = "Export all supplied materials as CSV or NDJSON (admin only).",
+            tags = SwaggerConstants.TAG_SUPPLIED_MATERIALS
+    )
+    @PreAuthorize("hasRole('ROLE_SYSADMIN')")
+    @GetMapping("/supplied-materials/export")
+    public void exportSuppliedMaterials(
+            @RequestParam(name = "format", defaultValue = "csv") String format,
+            @RequestParam(name = "category", required = false) String category,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "contactPhone", required = false) String contactPhone,
+            @RequestParam(name = "userId", required = false) Long userId,
+            HttpServletResponse response) throws IOException {
+        MaterialExportWriter writer = startExport(response, ExportFormat.of(format), "supplied-materials");
+        materialSuppliedService.exportSuppliedMaterials(category, status, contactPhone, userId, writer::write);
+        writer.flush();
+    }
+
     @ApiOperation(
             value = "List my supplied materials.",
             tags = SwaggerConstants.TAG_SUPPLIED_MATERIALS
     )
     @GetMapping("/supplied-materials/me")
     @PreAuthorize("hasRole('ROLE_SUPPLIER') or hasRole('ROLE_SYSADMIN')")
-    public Page<MaterialResponse> listMySuppliedMaterials(@RequestParam Integer page,
-                                                          @RequestParam Integer size) {
+    public Page<MaterialResponse> listMySuppliedMaterials(@RequestParam @Min(1) Integer page,
+                                                          @RequestParam @Min(1) Integer size) {
         return materialSuppliedService.getAllSuppliedMaterialsPage(page
                 , size
                 , null
@@ -232,4 +416,15 @@ public class MaterialsController {
                 , null
                 , userContext.getUserId());
     }
+
+    /**
+     * 设置导出的响应头，之后写出的内容直接进入响应流，可由服务端压缩
+     */
+    private MaterialExportWriter startExport(HttpServletResponse response, ExportFormat format, String name)
+            throws IOException {
+        response.setContentType(format.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + name + "." + format.getExtension() + "\"");
+        return MaterialExportWriter.of(format, response.getOutputStream(), objectMapper);
+    }
 }
@@ -0,0 +1,45 @@
+package com.ncov.module.controller;
+
+import com.ncov.module.common.SwaggerConstants;
+import com.ncov.module.controller.resp.RestResponse;
+import com.ncov.module.controller.resp.statement.SlowStatementResponse;
+import com.ncov.module.service.SlowStatementService;
+import io.swagger.annotations.ApiOperation;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/slow-statements")
+public class SlowStatementController {
+
+    private final SlowStatementService slowStatementService;
+
+    @ApiOperation(
+            value = "List recent statements slower than the threshold (admin only).",
+            tags = SwaggerConstants.TAG_ADMIN
+    )
+    @GetMapping
+    @PreAuthorize("hasRole('ROLE_SYSADMIN')")
+    @ResponseStatus(HttpStatus.OK)
+    public RestResponse<List<SlowStatementResponse>> listSlowStatements() {
+        return RestResponse.getResp("请求成功.", slowStatementService.getRecent());
+    }
+
+    @ApiOperation(
+            value = "Run EXPLAIN for a recorded slow statement with its bind values (admin only).",
+            tags = SwaggerConstants.TAG_ADMIN
+    )
+    @GetMapping("/{id}/explain")
+    @PreAuthorize("hasRole('ROLE_SYSADMIN')")
+    @ResponseStatus(HttpStatus.OK)
+    public RestResponse<List<Map<String, Object>>> explainSlowStatement(@PathVariable Long id) throws SQLException {
+        return RestResponse.getResp("请求成功.", slowStatementService.explain(id));
+    }
+}
@@ -0,0 +1,35 @@
+package com.ncov.module.controller;
+
+import com.ncov.module.common.SwaggerConstants;
+import com.ncov.module.controller.resp.RestResponse;
+import com.ncov.module.controller.resp.statistics.RegionStatisticsResponse;
+import com.ncov.module.service.MaterialStatisticsService;
+import io.swagger.annotations.ApiOperation;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/statistics")
+public class StatisticsController {
+
+    private final MaterialStatisticsService materialStatisticsService;
+
+    @ApiOperation(
+            value = "Demand and supply totals grouped by region, category and status.",
+            tags = SwaggerConstants.TAG_STATISTICS
+    )
+    @GetMapping
+    @ResponseStatus(HttpStatus.OK)
+    public RestResponse<List<RegionStatisticsResponse>> getRegionStatistics(
+            @RequestParam(name = "groupBy", defaultValue = "city") String groupBy,
+            @RequestParam(name = "province", required = false) String province,
+            @RequestParam(name = "category", required = false) String category,
+            @RequestParam(name = "status", required = false) String status) {
+        return RestResponse.getResp("请求成功", materialStatisticsService.getRegionStatistics(
+                !"province".equalsIgnoreCase(groupBy), province, category, status));
+    }
+}
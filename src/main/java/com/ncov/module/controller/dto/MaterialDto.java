@@ -31,4 +31,8 @@ public class MaterialDto {
     @NotEmpty(message = "物资类别不能为空")
     private String category;
     private List<String> imageUrls;
+    @ApiModelProperty(value = "缩略图URL，与imageUrls一一对应，仅用于展示", readOnly = true)
+    private List<String> thumbnailUrls;
+    @ApiModelProperty(value = "预览图URL，与imageUrls一一对应，仅用于展示", readOnly = true)
+    private List<String> previewUrls;
 }
@@ -0,0 +1,25 @@
+package com.ncov.module.controller.request.material;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Validated
+public class MaterialBatchReviewRequest {
+
+    @ApiModelProperty(value = "待审核物资ID，每次至多500条")
+    @NotEmpty(message = "需要至少一个物资ID")
+    @Size(max = 500, message = "每次至多审核500条物资")
+    private List<Long> ids;
+}
@@ -1,5 +1,6 @@
 package com.ncov.module.controller.resp;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.NoArgsConstructor;
@@ -19,6 +20,16 @@ public class Page<T> {
     private Long total;
     private Integer pageSize;
     private Integer page;
+    /**
+     * 下一页游标，为空表示没有更多数据
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String cursor;
+    /**
+     * 命中数超过可翻页的上限时为true，此时total大于可取到的条数
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean truncated;
 
     public List<T> getData() {
         return data;
@@ -51,4 +62,20 @@ public class Page<T> {
     public void setPage(Integer page) {
         this.page = page;
     }
+
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public Boolean getTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(Boolean truncated) {
+        this.truncated = truncated;
+    }
 }
@@ -0,0 +1,42 @@
+package com.ncov.module.controller.resp.cache;
+
+import com.google.common.cache.CacheStats;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CacheStatsResponse {
+
+    @ApiModelProperty(value = "缓存名称")
+    private String name;
+    @ApiModelProperty(value = "当前条目数")
+    private Long size;
+    @ApiModelProperty(value = "命中次数")
+    private Long hitCount;
+    @ApiModelProperty(value = "未命中次数")
+    private Long missCount;
+    @ApiModelProperty(value = "命中率")
+    private Double hitRate;
+    @ApiModelProperty(value = "因容量或过期被淘汰的条目数")
+    private Long evictionCount;
+    @ApiModelProperty(value = "主动失效次数")
+    private Long invalidationCount;
+
+    public static CacheStatsResponse of(String name, long size, CacheStats stats, long invalidationCount) {
+        return CacheStatsResponse.builder()
+                .name(name)
+                .size(size)
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictionCount(stats.evictionCount())
+                .invalidationCount(invalidationCount)
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package com.ncov.module.controller.resp.file;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UploadStatsResponse {
+
+    @ApiModelProperty(value = "允许同时进行的上传数")
+    private Integer maxConcurrentUploads;
+    @ApiModelProperty(value = "正在进行的上传数")
+    private Integer inFlightUploads;
+    @ApiModelProperty(value = "成功上传的文件数")
+    private Long completedUploads;
+    @ApiModelProperty(value = "其中使用分片上传的文件数")
+    private Long multipartUploads;
+    @ApiModelProperty(value = "上传失败的文件数")
+    private Long failedUploads;
+    @ApiModelProperty(value = "因并发已满被拒绝的上传数")
+    private Long rejectedUploads;
+    @ApiModelProperty(value = "成功上传的总字节数")
+    private Long uploadedBytes;
+}
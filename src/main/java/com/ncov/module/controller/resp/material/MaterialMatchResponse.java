@@ -0,0 +1,23 @@
+package com.ncov.module.controller.resp.material;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MaterialMatchResponse {
+
+    @ApiModelProperty(value = "匹配到的供应/需求物资")
+    private MaterialResponse material;
+    @ApiModelProperty(value = "地域匹配程度：0 不同省份，1 同省，2 同市，3 同区县")
+    private Integer locationLevel;
+    @ApiModelProperty(value = "数量满足程度，0到1之间，1表示供应量足以覆盖需求量")
+    private Double quantityCoverage;
+    @ApiModelProperty(value = "综合得分，越高越优先")
+    private Double score;
+}
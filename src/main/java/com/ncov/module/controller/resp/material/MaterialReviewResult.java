@@ -0,0 +1,19 @@
+package com.ncov.module.controller.resp.material;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MaterialReviewResult {
+
+    @ApiModelProperty(value = "物资ID")
+    private Long id;
+    @ApiModelProperty(value = "处理结果：UPDATED 已处理，NOT_PENDING 非待审核状态，NOT_FOUND 物资不存在")
+    private String outcome;
+}
@@ -0,0 +1,34 @@
+package com.ncov.module.controller.resp.statement;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SlowStatementResponse {
+
+    @ApiModelProperty(value = "记录序号，用于查询执行计划")
+    private Long id;
+    @ApiModelProperty(value = "mapper方法")
+    private String mapperId;
+    @ApiModelProperty(value = "SQL，参数为占位符")
+    private String sql;
+    @ApiModelProperty(value = "按占位符顺序排列的绑定值")
+    private List<String> parameters;
+    @ApiModelProperty(value = "返回或影响的行数")
+    private Integer rows;
+    @ApiModelProperty(value = "执行失败时的异常，成功时为空")
+    private String error;
+    @ApiModelProperty(value = "执行耗时(毫秒)")
+    private Long elapsedMillis;
+    @ApiModelProperty(value = "执行时间")
+    private Date occurredAt;
+}
@@ -0,0 +1,31 @@
+package com.ncov.module.controller.resp.statistics;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RegionStatisticsResponse {
+
+    @ApiModelProperty(value = "省份")
+    private String province;
+    @ApiModelProperty(value = "城市，按省份汇总时为空")
+    private String city;
+    @ApiModelProperty(value = "物资类别")
+    private String category;
+    @ApiModelProperty(value = "物资状态")
+    private String status;
+    @ApiModelProperty(value = "需求条数")
+    private Long requiredCount;
+    @ApiModelProperty(value = "需求数量合计")
+    private Double requiredQuantity;
+    @ApiModelProperty(value = "供应条数")
+    private Long suppliedCount;
+    @ApiModelProperty(value = "供应数量合计")
+    private Double suppliedQuantity;
+}
@@ -0,0 +1,18 @@
+package com.ncov.module.entity;
+
+import lombok.*;
+
+/**
+ * 按类别和状态分组的物资条数
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MaterialCountEntity {
+
+    private String category;
+    private String status;
+    private Long total;
+}
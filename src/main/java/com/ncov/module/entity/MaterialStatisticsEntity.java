@@ -0,0 +1,21 @@
+package com.ncov.module.entity;
+
+import lombok.*;
+
+/**
+ * 按省、市、类别和状态分组的物资条数与数量合计
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class MaterialStatisticsEntity {
+
+    private String province;
+    private String city;
+    private String category;
+    private String status;
+    private Long total;
+    private Double quantity;
+}
@@ -1,5 +1,6 @@
 package com.ncov.module.entity;
 
+import com.baomidou.mybatisplus.annotation.TableName;
 import lombok.*;
 
 @Getter
@@ -7,6 +8,7 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+@TableName("province_city_district")
 public class ProvinceCityDistrictEntity {
 
     private String province;
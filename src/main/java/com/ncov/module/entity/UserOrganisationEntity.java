@@ -0,0 +1,20 @@
+package com.ncov.module.entity;
+
+import lombok.*;
+
+/**
+ * 用户及其所属机构的投影，由用户表关联医院表和供应商表一次查出
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserOrganisationEntity {
+
+    private UserInfoEntity user;
+    private Long hospitalId;
+    private String hospitalName;
+    private Long supplierId;
+    private String supplierName;
+}
@@ -1,9 +1,35 @@
 package com.ncov.module.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import com.ncov.module.entity.MaterialCountEntity;
+import com.ncov.module.entity.MaterialStatisticsEntity;
 import com.ncov.module.entity.MaterialSuppliedEntity;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.List;
 
 @Mapper
 public interface MaterialSuppliedMapper extends BaseMapper<MaterialSuppliedEntity> {
+
+    List<MaterialCountEntity> selectCountGroupByCategoryAndStatus();
+
+    /**
+     * 按省、市、类别和状态分组统计条数与数量合计
+     */
+    List<MaterialStatisticsEntity> selectStatisticsGroupByRegionAndCategory();
+
+    /**
+     * 批量插入物资，并回填自增主键
+     */
+    int insertAll(@Param("materials") List<MaterialSuppliedEntity> materials);
+
+    /**
+     * 按条件流式读取物资，每读到一行即交给handler处理，不在内存中保留结果集
+     */
+    void streamAll(@Param(Constants.WRAPPER) Wrapper<MaterialSuppliedEntity> wrapper,
+                   ResultHandler<MaterialSuppliedEntity> handler);
 }
@@ -2,6 +2,7 @@ package com.ncov.module.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.ncov.module.entity.UserInfoEntity;
+import com.ncov.module.entity.UserOrganisationEntity;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
@@ -11,5 +12,5 @@ public interface UserInfoMapper extends BaseMapper<UserInfoEntity> {
     Integer selectCountByPhoneOrNickName(@Param("userPhone") String userPhone,
                                          @Param("userNickName") String userNickName);
 
-    UserInfoEntity findByUserPhone(String userPhone);
+    UserOrganisationEntity findWithOrganisationByUserPhone(String userPhone);
 }
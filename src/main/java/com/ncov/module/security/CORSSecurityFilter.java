@@ -23,7 +23,8 @@ public class CORSSecurityFilter implements Filter {
         res.setHeader("Access-Control-Allow-Origin", "*");
         res.setHeader("Access-Control-Allow-Methods", "POST, GET, PUT, OPTIONS, DELETE");
         res.setHeader("Access-Control-Max-Age", "1728000");
-        res.setHeader("Access-Control-Allow-Headers", "Origin, No-Cache,X_Requested_With, X-Requested-With, If-Modified-Since, Pragma, Last-Modified, Cache-Control, Expires, Content-Type, X-E4M-With, Authorization");
+        res.setHeader("Access-Control-Allow-Headers", "Origin, No-Cache,X_Requested_With, X-Requested-With, If-Modified-Since, If-None-Match, Pragma, Last-Modified, Cache-Control, Expires, Content-Type, X-E4M-With, Authorization");
+        res.setHeader("Access-Control-Expose-Headers", "ETag, Last-Modified");
         res.setHeader("Access-Control-Allow-Credentials", "true");
         res.setHeader("XDomainRequestAllowed", "1");
         // 如果是OPTIONS则结束请求
@@ -0,0 +1,130 @@
+package com.ncov.module.security;
+
+import com.ncov.module.config.AuthorisationEndpointConfiguration.EndpointIgnoreToken;
+import org.springframework.http.HttpMethod;
+
+import java.util.*;
+
+/**
+ * 预编译的(路径, 请求方法)匹配规则
+ *
+ * 不含通配符的路径放在哈希表中，值为请求方法的位掩码，一次查表即可判断；
+ * 含通配符的路径按"/"分段构建前缀树，"*"匹配任意一段，位于末尾的"**"匹配其后任意多段(含零段)。
+ * 构建完成后不再修改，可在多线程间共享。
+ */
+public final class EndpointMatcher {
+
+    private static final String ANY_SEGMENT = "*";
+    private static final String ANY_PATH = "**";
+
+    private final Map<String, Integer> exactPaths;
+    private final Node patterns;
+
+    private EndpointMatcher(Map<String, Integer> exactPaths, Node patterns) {
+        this.exactPaths = exactPaths;
+        this.patterns = patterns;
+    }
+
+    public static EndpointMatcher compile(List<EndpointIgnoreToken> endpoints) {
+        Map<String, Integer> exactPaths = new HashMap<>();
+        Node patterns = new Node();
+        for (EndpointIgnoreToken endpoint : Optional.ofNullable(endpoints).orElse(Collections.emptyList())) {
+            int mask = toMask(endpoint.getMethods());
+            String path = endpoint.getPath();
+            if (path.contains(ANY_SEGMENT)) {
+                patterns.add(split(path), 0, mask);
+            } else {
+                exactPaths.merge(path, mask, (left, right) -> left | right);
+            }
+        }
+        return new EndpointMatcher(exactPaths, patterns);
+    }
+
+    public boolean matches(String path, String method) {
+        HttpMethod httpMethod = HttpMethod.resolve(method);
+        if (Objects.isNull(httpMethod)) {
+            return false;
+        }
+        int bit = bit(httpMethod);
+        Integer mask = exactPaths.get(path);
+        if (Objects.nonNull(mask) && (mask & bit) != 0) {
+            return true;
+        }
+        return patterns.hasChildren() && (patterns.match(split(path), 0) & bit) != 0;
+    }
+
+    private static int toMask(List<String> methods) {
+        int mask = 0;
+        for (String method : Optional.ofNullable(methods).orElse(Collections.emptyList())) {
+            HttpMethod httpMethod = HttpMethod.resolve(method.toUpperCase());
+            if (Objects.isNull(httpMethod)) {
+                throw new IllegalArgumentException("Unknown http method: " + method);
+            }
+            mask |= bit(httpMethod);
+        }
+        return mask;
+    }
+
+    private static int bit(HttpMethod method) {
+        return 1 << method.ordinal();
+    }
+
+    private static String[] split(String path) {
+        return path.startsWith("/") ? path.substring(1).split("/", -1) : path.split("/", -1);
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private Node anySegment;
+        /**
+         * 路径恰好在此结束时允许的方法
+         */
+        private int mask;
+        /**
+         * "**"结尾时允许的方法
+         */
+        private int anyPathMask;
+
+        void add(String[] segments, int index, int mask) {
+            if (index == segments.length) {
+                this.mask |= mask;
+                return;
+            }
+            String segment = segments[index];
+            if (ANY_PATH.equals(segment) && index == segments.length - 1) {
+                anyPathMask |= mask;
+                return;
+            }
+            Node child;
+            if (ANY_SEGMENT.equals(segment)) {
+                if (Objects.isNull(anySegment)) {
+                    anySegment = new Node();
+                }
+                child = anySegment;
+            } else {
+                child = children.computeIfAbsent(segment, key -> new Node());
+            }
+            child.add(segments, index + 1, mask);
+        }
+
+        int match(String[] segments, int index) {
+            int result = anyPathMask;
+            if (index == segments.length) {
+                return result | mask;
+            }
+            Node child = children.get(segments[index]);
+            if (Objects.nonNull(child)) {
+                result |= child.match(segments, index + 1);
+            }
+            if (Objects.nonNull(anySegment) && !segments[index].isEmpty()) {
+                result |= anySegment.match(segments, index + 1);
+            }
+            return result;
+        }
+
+        boolean hasChildren() {
+            return !children.isEmpty() || Objects.nonNull(anySegment) || anyPathMask != 0;
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.ncov.module.common.enums.UserRole;
 import com.ncov.module.config.AuthorisationEndpointConfiguration;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.core.env.Environment;
@@ -20,6 +22,7 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Objects;
 import java.util.Optional;
 
 import static java.util.Collections.singletonList;
@@ -36,6 +39,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private Environment env;
     @Inject
     private AuthorisationEndpointConfiguration authorisationEndpointConfiguration;
+    @Inject
+    private JwtTokenCache jwtTokenCache;
+    @Inject
+    private MeterRegistry meterRegistry;
+    private EndpointMatcher endpointsIgnoreToken;
+    private boolean swaggerEnabled;
+
+    /**
+     * 启动时一次性编译免token规则并确定是否开放swagger，请求处理时不再遍历配置
+     */
+    @Override
+    protected void initFilterBean() {
+        endpointsIgnoreToken = EndpointMatcher.compile(authorisationEndpointConfiguration.getEndpointsIgnoreToken());
+        String[] activeProfiles = env.getActiveProfiles();
+        swaggerEnabled = activeProfiles.length > 0
+                && Arrays.asList(Constants.SPRING_PROFILE_LOCAL, Constants.SPRING_PROFILE_DEVELOPMENT)
+                .contains(activeProfiles[0]);
+    }
 
     @Override
     protected void doFilterInternal(@NotNull HttpServletRequest httpServletRequest, @NotNull HttpServletResponse httpServletResponse, @NotNull FilterChain filterChain) throws ServletException, IOException {
@@ -57,19 +78,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String jwt = getJwtFormRequest(httpServletRequest);
         try {
-            Claims jwtClaims = Jwts.parser().setSigningKey(authorisationEndpointConfiguration.getJwtSecret())
-                    .parseClaimsJws(jwt).getBody();
-            JwtUser jwtUser = JwtUser.builder()
-                    .id(jwtClaims.get("id", Long.class))
-                    .userNickName(jwtClaims.get("userNickName", String.class))
-                    .userRole(UserRole.valueOf(jwtClaims.get("userRole", String.class)))
-                    .organisationId(jwtClaims.get("organisationId", Long.class))
-                    .organisationName(jwtClaims.get("organisationName", String.class))
-                    .build();
-            SecurityContextHolder.getContext().setAuthentication(new PreAuthenticatedAuthenticationToken(
-                    "X-JWT-TOKEN", jwtUser,
-                    singletonList(new SimpleGrantedAuthority("ROLE_" + jwtUser.getUserRole().name()))));
-            log.debug("Jwt user set to security context holder, userId=[{}]", jwtUser.getId());
+            PreAuthenticatedAuthenticationToken authentication = jwtTokenCache.get(jwt, () -> verify(jwt));
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+            log.debug("Jwt user set to security context holder, userId=[{}]",
+                    ((JwtUser) authentication.getCredentials()).getId());
         } catch (Exception ex) {
             log.warn("Token validation failed", ex);
             httpServletResponse.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -78,6 +90,38 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(httpServletRequest, httpServletResponse);
     }
 
+    /**
+     * 解析并验签，耗时按结果记录到jwt.verify，缓存命中时不会调用
+     */
+    JwtTokenCache.VerifiedToken verify(String jwt) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+        try {
+            JwtTokenCache.VerifiedToken verified = parse(jwt);
+            outcome = "success";
+            return verified;
+        } finally {
+            sample.stop(meterRegistry.timer("jwt.verify", "outcome", outcome));
+        }
+    }
+
+    private JwtTokenCache.VerifiedToken parse(String jwt) {
+        Claims jwtClaims = Jwts.parser().setSigningKey(authorisationEndpointConfiguration.getJwtSecret())
+                .parseClaimsJws(jwt).getBody();
+        JwtUser jwtUser = JwtUser.builder()
+                .id(jwtClaims.get("id", Long.class))
+                .userNickName(jwtClaims.get("userNickName", String.class))
+                .userRole(UserRole.valueOf(jwtClaims.get("userRole", String.class)))
+                .organisationId(jwtClaims.get("organisationId", Long.class))
+                .organisationName(jwtClaims.get("organisationName", String.class))
+                .build();
+        PreAuthenticatedAuthenticationToken authentication = new PreAuthenticatedAuthenticationToken(
+                "X-JWT-TOKEN", jwtUser,
+                singletonList(new SimpleGrantedAuthority("ROLE_" + jwtUser.getUserRole().name())));
+        return new JwtTokenCache.VerifiedToken(authentication,
+                Objects.isNull(jwtClaims.getExpiration()) ? null : jwtClaims.getExpiration().getTime());
+    }
+
     private String getJwtFormRequest(HttpServletRequest request) {
         return Optional.ofNullable(request.getHeader("Authorization"))
                 .map(header -> header.replace("Bearer ", ""))
@@ -85,18 +129,17 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
 
     private boolean shouldPassSwaggerUrl(HttpServletRequest request) {
+        if (!swaggerEnabled) {
+            return false;
+        }
         String uri = request.getRequestURI();
-        return ("/swagger-ui.html".equals(uri)
+        return "/swagger-ui.html".equals(uri)
                 || uri.startsWith("/webjars")
                 || uri.startsWith("/swagger-resources")
-                || uri.startsWith("/v2/api-docs"))
-                && Arrays.asList(Constants.SPRING_PROFILE_LOCAL, Constants.SPRING_PROFILE_DEVELOPMENT)
-                .contains(env.getActiveProfiles()[0]);
+                || uri.startsWith("/v2/api-docs");
     }
 
     private boolean shouldIgnoreAuthorisation(HttpServletRequest request) {
-        return authorisationEndpointConfiguration.getEndpointsIgnoreToken().stream()
-                .anyMatch(endpoint -> endpoint.getPath().equals(request.getRequestURI())
-                        && endpoint.getMethods().contains(request.getMethod()));
+        return endpointsIgnoreToken.matches(request.getRequestURI(), request.getMethod());
     }
 }
@@ -0,0 +1,58 @@
+package com.ncov.module.security;
+
+import com.google.common.hash.Hashing;
+import com.ncov.module.common.cache.AbstractMonitoredCache;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 已验签的JWT缓存，key为token的SHA-256摘要，value为构建好的认证信息
+ *
+ * 命中时只需一次哈希和查表，不再解析和验签。token过期后条目不再使用，
+ * 写入后的存活时间另有上限，使签名密钥更换等变化能在有限时间内生效。
+ * 缓存的认证信息在请求间共享，使用方不应修改。
+ */
+@Component
+public class JwtTokenCache extends AbstractMonitoredCache<String, JwtTokenCache.VerifiedToken> {
+
+    public JwtTokenCache(@Value("${security.tokenCache.maximumSize:10000}") long maximumSize,
+                         @Value("${security.tokenCache.expireAfterWriteMinutes:30}") long expireAfterWriteMinutes) {
+        super("jwt-tokens", maximumSize, expireAfterWriteMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 获取token对应的认证信息，未命中或已过期时调用verifier验签，验签失败的异常原样抛出且不缓存
+     */
+    public PreAuthenticatedAuthenticationToken get(String jwt, Supplier<VerifiedToken> verifier) {
+        String key = Hashing.sha256().hashString(jwt, StandardCharsets.UTF_8).toString();
+        VerifiedToken verified = load(key, verifier);
+        if (verified.isExpired()) {
+            evict(key);
+            verified = load(key, verifier);
+        }
+        return verified.getAuthentication();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class VerifiedToken {
+
+        private final PreAuthenticatedAuthenticationToken authentication;
+        /**
+         * token的过期时间(毫秒)，为空表示不过期
+         */
+        private final Long expiresAt;
+
+        boolean isExpired() {
+            return Objects.nonNull(expiresAt) && expiresAt <= System.currentTimeMillis();
+        }
+    }
+}
@@ -1,9 +1,12 @@
 package com.ncov.module.service;
 
 import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.core.enums.SqlMethod;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.metadata.TableInfo;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.baomidou.mybatisplus.core.toolkit.GlobalConfigUtils;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
@@ -11,12 +14,17 @@ import com.baomidou.mybatisplus.extension.toolkit.SqlHelper;
 import com.google.common.collect.Maps;
 import com.ncov.module.controller.resp.Page;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.ibatis.session.SqlSession;
 import org.mybatis.spring.SqlSessionUtils;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -99,6 +107,61 @@ public abstract class AbstractService<M extends BaseMapper<T>, T> extends Servic
                 , this::retBool);
     }
 
+    /**
+     * 比较实体修改前后的字段，只更新值发生变化的列，主键取自修改后的实体
+     *
+     * @param before 修改前的实体，通常为查询结果经{@link #copyOf}得到的副本
+     * @param after  修改后的实体
+     * @return 是否有列被更新
+     */
+    @Transactional(rollbackFor = Exception.class)
+    @SuppressWarnings("unchecked")
+    public boolean updateChangedColumns(T before, T after) {
+        UpdateWrapper<T> updateWrapper = changedColumns(before, after);
+        if (StringUtils.isEmpty(updateWrapper.getSqlSet())) {
+            return false;
+        }
+        return updateEntity((Class<T>) after.getClass(), updateWrapper);
+    }
+
+    /**
+     * 值不为null时才赋值，请求中省略的字段保持原值
+     */
+    protected static <V> void setIfPresent(V value, Consumer<V> setter) {
+        if (Objects.nonNull(value)) {
+            setter.accept(value);
+        }
+    }
+
+    /**
+     * 复制实体的全部字段，用作修改前的快照
+     */
+    @SuppressWarnings("unchecked")
+    protected T copyOf(T entity) {
+        T copy = BeanUtils.instantiateClass((Class<T>) entity.getClass());
+        BeanUtils.copyProperties(entity, copy);
+        return copy;
+    }
+
+    /**
+     * 生成只包含变化列的更新条件，逻辑删除列不参与比较
+     */
+    UpdateWrapper<T> changedColumns(T before, T after) {
+        TableInfo tableInfo = TableInfoHelper.getTableInfo(after.getClass());
+        BeanWrapper beforeValues = PropertyAccessorFactory.forBeanPropertyAccess(before);
+        BeanWrapper afterValues = PropertyAccessorFactory.forBeanPropertyAccess(after);
+        UpdateWrapper<T> updateWrapper = new UpdateWrapper<>();
+        tableInfo.getFieldList().stream()
+                .filter(field -> !field.isLogicDelete())
+                .forEach(field -> {
+                    Object value = afterValues.getPropertyValue(field.getProperty());
+                    if (!Objects.equals(beforeValues.getPropertyValue(field.getProperty()), value)) {
+                        updateWrapper.set(field.getColumn(), value);
+                    }
+                });
+        return updateWrapper.eq(tableInfo.getKeyColumn(), afterValues.getPropertyValue(tableInfo.getKeyProperty()));
+    }
+
     /**
      * 查询给定实体类型和条件构造器在表中的集合
      *
@@ -183,6 +246,45 @@ public abstract class AbstractService<M extends BaseMapper<T>, T> extends Servic
                 .build();
     }
 
+    /**
+     * 按给定的id顺序取一页，只查询本页的id，结果保持给定顺序，查询不到的id跳过
+     *
+     * @param rankedIds     排好序的id
+     * @param total         命中总数，大于rankedIds的条数时标记为截断
+     * @param loader        按本页id查询实体
+     * @param idFunction    实体的id
+     * @param carryFunction 类型转换函数
+     * @param <R>           目标类型
+     * @return 分页对象
+     */
+    protected <R> Page<R> selectPageByIds(List<Long> rankedIds
+            , long total
+            , Integer page
+            , Integer size
+            , Function<List<Long>, List<T>> loader
+            , Function<T, Long> idFunction
+            , Function<? super T, R> carryFunction) {
+        int from = (int) Math.min((long) Math.max(page - 1, 0) * size, rankedIds.size());
+        List<Long> pageIds = rankedIds.subList(from, Math.min(from + size, rankedIds.size()));
+        List<R> data = new ArrayList<>();
+        if (!pageIds.isEmpty()) {
+            Map<Long, T> entities = loader.apply(pageIds).stream()
+                    .collect(Collectors.toMap(idFunction, Function.identity()));
+            pageIds.stream()
+                    .map(entities::get)
+                    .filter(Objects::nonNull)
+                    .map(carryFunction)
+                    .forEach(data::add);
+        }
+        return Page.<R>builder()
+                .data(data)
+                .page(page)
+                .pageSize(size)
+                .total(total)
+                .truncated(total > rankedIds.size() ? Boolean.TRUE : null)
+                .build();
+    }
+
     /**
      * mybatis plus分页查询
      *
@@ -2,28 +2,79 @@ package com.ncov.module.service;
 
 import com.ncov.module.client.JdOssClient;
 import com.ncov.module.common.exception.FileUploadException;
-import lombok.AllArgsConstructor;
+import com.ncov.module.controller.resp.file.UploadStatsResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.IOException;
+import java.io.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.Objects;
 import java.util.UUID;
 
+/**
+ * 图片上传
+ *
+ * 图片以内容的SHA-256摘要命名(摘要.扩展名)，相同内容只存储一份。上传时边读边计算摘要：
+ * 不超过一个分片大小的图片先读入内存，摘要命中本地索引或对象已存在时直接返回URL，不再上传；
+ * 更大的图片先流式上传到临时位置，得到摘要后在对象存储内部复制到内容地址并删除临时对象。
+ * 缓冲区在取得上传许可之后才分配，并直接交给对象存储客户端上传，每个上传只占用一个缓冲区。
+ * 上传完成后提交缩略图、预览图的后台生成，不阻塞上传请求。
+ */
 @Service
 @Slf4j
-@AllArgsConstructor
 public class FileService {
 
-    private JdOssClient jdOssClient;
+    private static final String STAGING_DIRECTORY = "staging/";
+
+    private final JdOssClient jdOssClient;
+    private final ImageHashIndex imageHashIndex;
+    private final ThumbnailService thumbnailService;
+    private final int bufferSize;
+
+    public FileService(JdOssClient jdOssClient, ImageHashIndex imageHashIndex, ThumbnailService thumbnailService,
+                       @Value("${oss.upload.partSize:5242880}") int bufferSize) {
+        this.jdOssClient = jdOssClient;
+        this.imageHashIndex = imageHashIndex;
+        this.thumbnailService = thumbnailService;
+        this.bufferSize = bufferSize;
+    }
 
     public String uploadImage(String category, MultipartFile image) {
-        log.info("Uploading image, category=[{}]", category);
-        String imageName = getImageName(category, FilenameUtils.getExtension(image.getOriginalFilename()));
-        try {
-            String imageUrl = jdOssClient.uploadImage(imageName, image);
-            log.info("Uploaded image name [{}], imageUrl=[{}]", imageName, imageUrl);
+        try (InputStream input = image.getInputStream()) {
+            return uploadImage(category, FilenameUtils.getExtension(image.getOriginalFilename()),
+                    image.getContentType(), image.getSize(), input);
+        } catch (IOException e) {
+            log.error("Error when uploading image", e);
+            throw new FileUploadException();
+        }
+    }
+
+    /**
+     * 将请求体直接以流的方式上传，不经过multipart解析，也不缓冲到临时文件
+     *
+     * @param contentLength 内容长度，未知时传-1
+     */
+    public String uploadImage(String category, String extension, String contentType, long contentLength,
+                              InputStream image) {
+        log.info("Uploading image, category=[{}], contentLength=[{}]", category, contentLength);
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        InputStream hashing = new DigestInputStream(image, digest);
+        // 先取得上传许可再分配缓冲区，排队等待的请求不占用内存
+        try (JdOssClient.UploadPermit permit = jdOssClient.acquireUploadPermit(contentLength)) {
+            byte[] buffer = new byte[contentLength >= 0 && contentLength < bufferSize
+                    ? (int) contentLength + 1 : bufferSize];
+            int read = IOUtils.read(hashing, buffer);
+            String imageUrl = read < buffer.length
+                    ? uploadBuffered(permit, getImageName(digest, extension), buffer, read, contentType)
+                    : uploadStaged(permit, digest, extension, buffer, hashing, contentType);
+            log.info("Uploaded image, category=[{}], imageUrl=[{}]", category, imageUrl);
             return imageUrl;
         } catch (IOException e) {
             log.error("Error when uploading image", e);
@@ -31,7 +82,52 @@ public class FileService {
         }
     }
 
-    private String getImageName(String imageType, String imageExtension) {
-        return String.format("%s-%s.%s", imageType, UUID.randomUUID().toString(), imageExtension);
+    public UploadStatsResponse getUploadStats() {
+        return jdOssClient.getStats();
+    }
+
+    private String uploadBuffered(JdOssClient.UploadPermit permit, String imageName, byte[] buffer, int length,
+                                  String contentType) throws IOException {
+        String imageUrl = imageHashIndex.get(imageName);
+        if (Objects.nonNull(imageUrl)) {
+            log.info("Image already uploaded, imageName=[{}]", imageName);
+            // 之前的任务可能被丢弃或失败，已生成时只检查是否存在
+            thumbnailService.submit(imageName);
+            return imageUrl;
+        }
+        if (jdOssClient.exists(imageName)) {
+            log.info("Image already exists in object storage, imageName=[{}]", imageName);
+        } else {
+            jdOssClient.uploadBuffered(permit, imageName, buffer, length, null, contentType, false);
+        }
+        imageUrl = jdOssClient.getImageUrl(imageName);
+        thumbnailService.submit(imageName);
+        imageHashIndex.put(imageName, imageUrl);
+        return imageUrl;
+    }
+
+    /**
+     * 缓冲区已读满：连同剩余内容上传到临时位置，缓冲区作为第一个分片复用
+     */
+    private String uploadStaged(JdOssClient.UploadPermit permit, MessageDigest digest, String extension,
+                                byte[] buffer, InputStream image, String contentType) throws IOException {
+        String stagingName = STAGING_DIRECTORY + UUID.randomUUID().toString() + "." + extension;
+        long size = jdOssClient.uploadBuffered(permit, stagingName, buffer, buffer.length, image, contentType, true);
+        String imageName = getImageName(digest, extension);
+        try {
+            if (Objects.isNull(imageHashIndex.get(imageName)) && !jdOssClient.exists(imageName)) {
+                jdOssClient.copy(stagingName, imageName, size);
+            }
+        } finally {
+            jdOssClient.delete(stagingName);
+        }
+        String imageUrl = jdOssClient.getImageUrl(imageName);
+        thumbnailService.submit(imageName);
+        imageHashIndex.put(imageName, imageUrl);
+        return imageUrl;
+    }
+
+    private String getImageName(MessageDigest digest, String imageExtension) {
+        return String.format("%s.%s", Hex.encodeHexString(digest.digest()), imageExtension);
     }
 }
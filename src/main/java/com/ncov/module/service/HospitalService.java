@@ -22,11 +22,13 @@ import java.util.Date;
 public class HospitalService extends ServiceImpl<HospitalInfoMapper, HospitalInfoEntity> {
 
     private final UserInfoService userInfoService;
+    private final UserOrganisationCache userOrganisationCache;
 
     @Transactional(rollbackFor = Exception.class)
     public HospitalResponse signUp(HospitalSignUpRequest hospitalSignUpRequest) {
         UserInfoEntity userInfo = saveUserInfo(hospitalSignUpRequest);
         HospitalInfoEntity hospitalInfo = saveHospitalInfo(hospitalSignUpRequest, userInfo.getId());
+        userOrganisationCache.invalidate(userInfo.getId());
         return HospitalResponse.builder()
                 .id(hospitalInfo.getId().toString())
                 .contactorName(hospitalInfo.getHospitalContactorName())
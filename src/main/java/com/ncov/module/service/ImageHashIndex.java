@@ -0,0 +1,45 @@
+package com.ncov.module.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.ncov.module.common.cache.MonitoredCache;
+import com.ncov.module.controller.resp.cache.CacheStatsResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * 图片内容摘要到URL的本地索引
+ *
+ * 命中时说明相同内容已在对象存储中，可直接返回URL而不必再次上传或查询对象存储。
+ * 未命中不代表对象不存在(如服务重启或其它实例上传)，调用方需再向对象存储确认。
+ */
+@Service
+public class ImageHashIndex implements MonitoredCache {
+
+    private final Cache<String, String> cache;
+
+    public ImageHashIndex(@Value("${oss.dedup.indexSize:100000}") long maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    public String get(String imageName) {
+        return cache.getIfPresent(imageName);
+    }
+
+    public void put(String imageName, String url) {
+        cache.put(imageName, url);
+    }
+
+    @Override
+    public String getName() {
+        return "image-hashes";
+    }
+
+    @Override
+    public CacheStatsResponse getStats() {
+        return CacheStatsResponse.of(getName(), cache.size(), cache.stats(), 0);
+    }
+}
@@ -1,26 +1,156 @@
 package com.ncov.module.service;
 
+import com.ncov.module.common.cache.VersionedContent;
+import com.ncov.module.common.datasource.ReplicaRead;
+import com.ncov.module.entity.ProvinceCityDistrictEntity;
 import com.ncov.module.mapper.ProvinceCityDistrictMapper;
-import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 
+/**
+ * 省市区主数据
+ *
+ * province_city_district表只在迁移脚本中维护，启动后首次访问时整表读入内存，构建为省-市-区三层的不可变树，
+ * 之后的查询不再访问数据库。表内容变更后调用{@link #reload()}重新加载。
+ * 内容版本为整表数据的摘要，只在数据确实变化时改变，供接口做HTTP条件请求。
+ */
 @Service
-@AllArgsConstructor
-public class MasterDataService {
+@Slf4j
+@ReplicaRead
+public class MasterDataService implements VersionedContent {
 
     private final ProvinceCityDistrictMapper provinceCityDistrictMapper;
+    private volatile Regions regions;
+
+    public MasterDataService(ProvinceCityDistrictMapper provinceCityDistrictMapper) {
+        this.provinceCityDistrictMapper = provinceCityDistrictMapper;
+    }
 
     public List<String> getProvinces() {
-        return provinceCityDistrictMapper.selectDistinctProvinces();
+        return getRegions().root.getNames();
     }
 
     public List<String> getCitiesByProvince(String province) {
-        return provinceCityDistrictMapper.selectDistinctCitiesByProvince(province);
+        return getRegions().root.getChild(province).getNames();
     }
 
     public List<String> getDistrictsByProvinceAndCity(String province, String city) {
-        return provinceCityDistrictMapper.selectDistinctDistrictsByProvinceAndCity(province, city);
+        return getRegions().root.getChild(province).getChild(city).getNames();
+    }
+
+    @Override
+    public String getContentVersion() {
+        return getRegions().version;
+    }
+
+    @Override
+    public long getLastModified() {
+        return getRegions().lastModified;
+    }
+
+    /**
+     * 重新读取省市区表并整体替换内存中的数据
+     */
+    public synchronized void reload() {
+        Regions previous = regions;
+        Regions loaded = load();
+        if (Objects.nonNull(previous) && previous.version.equals(loaded.version)) {
+            loaded = new Regions(loaded.root, loaded.version, previous.lastModified);
+        }
+        regions = loaded;
+    }
+
+    private Regions getRegions() {
+        Regions current = regions;
+        if (Objects.isNull(current)) {
+            synchronized (this) {
+                if (Objects.isNull(regions)) {
+                    regions = load();
+                }
+                current = regions;
+            }
+        }
+        return current;
+    }
+
+    private Regions load() {
+        RegionNode.Builder root = new RegionNode.Builder();
+        StringBuilder content = new StringBuilder();
+        List<ProvinceCityDistrictEntity> rows = provinceCityDistrictMapper.selectList(null);
+        for (ProvinceCityDistrictEntity row : rows) {
+            root.child(row.getProvince()).child(row.getCity()).child(row.getDistrict());
+            content.append(row.getProvince()).append('|').append(row.getCity()).append('|')
+                    .append(row.getDistrict()).append('\n');
+        }
+        String version = DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8));
+        log.info("Province city district master data loaded, rows=[{}], version=[{}]", rows.size(), version);
+        return new Regions(root.build(), version, System.currentTimeMillis() / 1000 * 1000);
+    }
+
+    private static final class Regions {
+
+        private final RegionNode root;
+        private final String version;
+        private final long lastModified;
+
+        private Regions(RegionNode root, String version, long lastModified) {
+            this.root = root;
+            this.version = version;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * 省市区树的一个节点，names按数据首次出现的顺序保存所有下级名称
+     */
+    private static final class RegionNode {
+
+        private static final RegionNode EMPTY = new RegionNode(Collections.emptyList(), Collections.emptyMap());
+
+        private final List<String> names;
+        private final Map<String, RegionNode> children;
+
+        private RegionNode(List<String> names, Map<String, RegionNode> children) {
+            this.names = names;
+            this.children = children;
+        }
+
+        List<String> getNames() {
+            return names;
+        }
+
+        RegionNode getChild(String name) {
+            if (Objects.isNull(name)) {
+                return EMPTY;
+            }
+            return children.getOrDefault(name, EMPTY);
+        }
+
+        private static final class Builder {
+
+            private final Map<String, Builder> children = new LinkedHashMap<>();
+
+            Builder child(String name) {
+                if (Objects.isNull(name)) {
+                    return new Builder();
+                }
+                return children.computeIfAbsent(name.intern(), key -> new Builder());
+            }
+
+            RegionNode build() {
+                if (children.isEmpty()) {
+                    return EMPTY;
+                }
+                String[] names = children.keySet().toArray(new String[0]);
+                Map<String, RegionNode> built = new HashMap<>(children.size() * 4 / 3 + 1);
+                children.forEach((name, child) -> built.put(name, child.build()));
+                return new RegionNode(Collections.unmodifiableList(Arrays.asList(names)),
+                        Collections.unmodifiableMap(built));
+            }
+        }
     }
 }
@@ -1,28 +1,101 @@
 package com.ncov.module.service;
 
+import com.ncov.module.common.cache.VersionedContent;
+import com.ncov.module.common.datasource.ReplicaRead;
 import com.ncov.module.controller.resp.category.MaterialCategoryResponse;
 import com.ncov.module.mapper.MaterialCategoryMapper;
-import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
+/**
+ * 物资类别
+ *
+ * 类别只在迁移脚本中维护，首次访问时读入内存，表内容变更后调用{@link #reload()}重新加载。
+ */
 @Service
 @Slf4j
-@AllArgsConstructor
-public class MaterialCategoryService {
+@ReplicaRead
+public class MaterialCategoryService implements VersionedContent {
 
     private final MaterialCategoryMapper materialCategoryMapper;
+    private volatile Categories categories;
+
+    public MaterialCategoryService(MaterialCategoryMapper materialCategoryMapper) {
+        this.materialCategoryMapper = materialCategoryMapper;
+    }
 
     public List<MaterialCategoryResponse> getAllMaterialCategories() {
-        return materialCategoryMapper.selectAll().stream()
+        return getCategories().list;
+    }
+
+    @Override
+    public String getContentVersion() {
+        return getCategories().version;
+    }
+
+    @Override
+    public long getLastModified() {
+        return getCategories().lastModified;
+    }
+
+    /**
+     * 重新读取类别表并整体替换内存中的数据
+     */
+    public synchronized void reload() {
+        Categories previous = categories;
+        Categories loaded = load();
+        if (Objects.nonNull(previous) && previous.version.equals(loaded.version)) {
+            loaded = new Categories(loaded.list, loaded.version, previous.lastModified);
+        }
+        categories = loaded;
+    }
+
+    private Categories getCategories() {
+        Categories current = categories;
+        if (Objects.isNull(current)) {
+            synchronized (this) {
+                if (Objects.isNull(categories)) {
+                    categories = load();
+                }
+                current = categories;
+            }
+        }
+        return current;
+    }
+
+    private Categories load() {
+        List<MaterialCategoryResponse> list = materialCategoryMapper.selectAll().stream()
                 .map(category -> MaterialCategoryResponse.builder()
                         .id(category.getId().toString())
                         .name(category.getName())
                         .unit(category.getUnit())
                         .build())
                 .collect(Collectors.toList());
+        String content = list.stream()
+                .map(category -> category.getId() + "|" + category.getName() + "|" + category.getUnit())
+                .collect(Collectors.joining("\n"));
+        String version = DigestUtils.md5DigestAsHex(content.getBytes(StandardCharsets.UTF_8));
+        log.info("Material categories loaded, size=[{}], version=[{}]", list.size(), version);
+        return new Categories(Collections.unmodifiableList(list), version, System.currentTimeMillis() / 1000 * 1000);
+    }
+
+    private static final class Categories {
+
+        private final List<MaterialCategoryResponse> list;
+        private final String version;
+        private final long lastModified;
+
+        private Categories(List<MaterialCategoryResponse> list, String version, long lastModified) {
+            this.list = list;
+            this.version = version;
+            this.lastModified = lastModified;
+        }
     }
 }
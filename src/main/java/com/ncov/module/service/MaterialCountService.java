@@ -0,0 +1,117 @@
+package com.ncov.module.service;
+
+import com.ncov.module.common.enums.MaterialStatus;
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.event.MaterialChangedEvent;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+import com.ncov.module.entity.MaterialCountEntity;
+import com.ncov.module.mapper.MaterialRequiredMapper;
+import com.ncov.module.mapper.MaterialSuppliedMapper;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.apache.commons.lang3.StringUtils.isEmpty;
+
+/**
+ * 物资条数的近似统计，按(类型, 类别, 状态)在内存中计数
+ *
+ * 写操作通过{@link MaterialChangedEvent}增量更新计数，定时与数据库的分组统计对账，
+ * 公开列表据此返回总数而不必每次执行COUNT查询。首次对账完成前返回null，由调用方自行决定是否精确统计。
+ */
+@Service
+@Slf4j
+public class MaterialCountService {
+
+    private final MaterialRequiredMapper materialRequiredMapper;
+    private final MaterialSuppliedMapper materialSuppliedMapper;
+    private final Map<MaterialType, ConcurrentMap<CountKey, AtomicLong>> counters = new ConcurrentHashMap<>();
+
+    public MaterialCountService(MaterialRequiredMapper materialRequiredMapper,
+                                MaterialSuppliedMapper materialSuppliedMapper) {
+        this.materialRequiredMapper = materialRequiredMapper;
+        this.materialSuppliedMapper = materialSuppliedMapper;
+    }
+
+    /**
+     * 已公开(非待审核)物资的近似条数
+     *
+     * @param type     物资类型
+     * @param category 物资类别，为空时统计所有类别
+     * @return 近似条数，尚未完成对账时返回null
+     */
+    public Long getPublishedCount(MaterialType type, String category) {
+        ConcurrentMap<CountKey, AtomicLong> typeCounters = counters.get(type);
+        if (Objects.isNull(typeCounters)) {
+            return null;
+        }
+        long total = 0;
+        for (Map.Entry<CountKey, AtomicLong> entry : typeCounters.entrySet()) {
+            CountKey key = entry.getKey();
+            if (!MaterialStatus.PENDING.name().equals(key.status)
+                    && (isEmpty(category) || category.equals(key.category))) {
+                total += entry.getValue().get();
+            }
+        }
+        return Math.max(total, 0);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMaterialChanged(MaterialChangedEvent event) {
+        ConcurrentMap<CountKey, AtomicLong> typeCounters = counters.get(event.getType());
+        if (Objects.isNull(typeCounters)) {
+            return;
+        }
+        adjust(typeCounters, event.getBefore(), -1);
+        adjust(typeCounters, event.getAfter(), 1);
+    }
+
+    /**
+     * 定时与数据库对账，修正增量计数的偏差
+     */
+    @Scheduled(fixedDelayString = "${material.count.reconcileIntervalMs:300000}")
+    public void reconcile() {
+        reconcile(MaterialType.REQUIRED, materialRequiredMapper::selectCountGroupByCategoryAndStatus);
+        reconcile(MaterialType.SUPPLIED, materialSuppliedMapper::selectCountGroupByCategoryAndStatus);
+    }
+
+    private void reconcile(MaterialType type, Supplier<List<MaterialCountEntity>> query) {
+        try {
+            ConcurrentMap<CountKey, AtomicLong> fresh = new ConcurrentHashMap<>();
+            query.get().forEach(count -> fresh.put(new CountKey(count.getCategory(), count.getStatus()),
+                    new AtomicLong(Objects.isNull(count.getTotal()) ? 0 : count.getTotal())));
+            counters.put(type, fresh);
+            log.debug("Material counts reconciled, type=[{}], groups=[{}]", type, fresh.size());
+        } catch (Exception e) {
+            log.warn("Failed to reconcile material counts, type=[{}]", type, e);
+        }
+    }
+
+    private void adjust(ConcurrentMap<CountKey, AtomicLong> typeCounters, MaterialResponse material, int delta) {
+        if (Objects.isNull(material) || Objects.isNull(material.getStatus())) {
+            return;
+        }
+        String category = Objects.isNull(material.getMaterial()) ? null : material.getMaterial().getCategory();
+        typeCounters.computeIfAbsent(new CountKey(category, material.getStatus()), key -> new AtomicLong())
+                .addAndGet(delta);
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class CountKey {
+
+        private final String category;
+        private final String status;
+    }
+}
@@ -0,0 +1,233 @@
+package com.ncov.module.service;
+
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.event.MaterialChangedEvent;
+import com.ncov.module.common.exception.FeedUnavailableException;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.apache.commons.lang3.StringUtils.isEmpty;
+
+/**
+ * 新发布物资的SSE推送
+ *
+ * 物资变为公开状态(认证用户发布即公开或审核通过)时推送给订阅者，可按类别、省份过滤。
+ * 连接使用Servlet异步请求保持，不占用请求线程；每个订阅者有固定大小的缓冲区，由少量发送线程依次写出，
+ * 缓冲区满时丢弃最旧的事件，慢连接不会拖慢其它订阅者。
+ *
+ * 写出是阻塞的：不读取数据的客户端会让一个发送线程卡在写出上，直到容器的写超时(server.connection-timeout)
+ * 后失败并移除该订阅者，其它订阅者的发送在此期间由剩余的线程完成。发送线程数应大于预期同时卡住的连接数。
+ */
+@Service
+@Slf4j
+public class MaterialFeedService {
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger reservedSubscribers = new AtomicInteger();
+    private final Executor dispatcher;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMs;
+    private final AtomicLong deliveredEvents = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+
+    @Autowired
+    public MaterialFeedService(@Value("${material.feed.dispatchers:8}") int dispatchers,
+                               @Value("${material.feed.bufferSize:32}") int bufferSize,
+                               @Value("${material.feed.maxSubscribers:5000}") int maxSubscribers,
+                               @Value("${material.feed.timeoutMinutes:30}") long timeoutMinutes) {
+        this(newDispatcher(dispatchers), bufferSize, maxSubscribers, TimeUnit.MINUTES.toMillis(timeoutMinutes));
+    }
+
+    MaterialFeedService(Executor dispatcher, int bufferSize, int maxSubscribers, long timeoutMs) {
+        this.dispatcher = dispatcher;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * 订阅新发布的物资，类别、省份为空时不过滤
+     */
+    public SseEmitter subscribe(MaterialType type, String category, String province) {
+        // 先占用名额再订阅，并发订阅时不会超出上限
+        if (reservedSubscribers.incrementAndGet() > maxSubscribers) {
+            reservedSubscribers.decrementAndGet();
+            throw new FeedUnavailableException();
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, type, category, province);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(emitter::complete);
+        log.debug("Feed subscribed, type=[{}], category=[{}], province=[{}], subscribers=[{}]",
+                type, category, province, subscribers.size());
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMaterialChanged(MaterialChangedEvent event) {
+        if (!event.isPublished() || event.wasPublished()) {
+            return;
+        }
+        MaterialResponse material = event.getAfter();
+        subscribers.stream()
+                .filter(subscriber -> subscriber.accepts(event.getType(), material))
+                .filter(subscriber -> subscriber.offer(material))
+                .forEach(subscriber -> dispatcher.execute(subscriber::drain));
+    }
+
+    /**
+     * 定期发送注释行保持连接，并及时发现已断开的连接
+     */
+    @Scheduled(fixedDelayString = "${material.feed.heartbeatMs:30000}")
+    public void heartbeat() {
+        subscribers.stream()
+                .filter(Subscriber::offerHeartbeat)
+                .forEach(subscriber -> dispatcher.execute(subscriber::drain));
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getDeliveredEvents() {
+        return deliveredEvents.get();
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        if (dispatcher instanceof ExecutorService) {
+            ((ExecutorService) dispatcher).shutdownNow();
+        }
+    }
+
+    /**
+     * 移除订阅者并归还名额，连接完成和发送失败都会调用，只归还一次
+     */
+    private void unsubscribe(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            reservedSubscribers.decrementAndGet();
+        }
+    }
+
+    private static ExecutorService newDispatcher(int dispatchers) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newFixedThreadPool(dispatchers, runnable -> {
+            Thread thread = new Thread(runnable, "material-feed-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final MaterialType type;
+        private final String category;
+        private final String province;
+        private final Deque<MaterialResponse> buffer = new ArrayDeque<>();
+        private boolean heartbeatPending;
+        private boolean draining;
+
+        private Subscriber(SseEmitter emitter, MaterialType type, String category, String province) {
+            this.emitter = emitter;
+            this.type = type;
+            this.category = category;
+            this.province = province;
+        }
+
+        private boolean accepts(MaterialType materialType, MaterialResponse material) {
+            return type == materialType
+                    && (isEmpty(category) || Objects.nonNull(material.getMaterial())
+                    && category.equals(material.getMaterial().getCategory()))
+                    && (isEmpty(province) || Objects.nonNull(material.getAddress())
+                    && province.equals(material.getAddress().getProvince()));
+        }
+
+        /**
+         * 放入缓冲区，已满时丢弃最旧的事件
+         *
+         * @return 是否需要调度发送
+         */
+        private synchronized boolean offer(MaterialResponse material) {
+            if (buffer.size() >= bufferSize) {
+                buffer.pollFirst();
+                droppedEvents.incrementAndGet();
+            }
+            buffer.addLast(material);
+            return schedule();
+        }
+
+        private synchronized boolean offerHeartbeat() {
+            heartbeatPending = true;
+            return schedule();
+        }
+
+        private boolean schedule() {
+            if (draining) {
+                return false;
+            }
+            draining = true;
+            return true;
+        }
+
+        private void drain() {
+            while (true) {
+                MaterialResponse material;
+                boolean heartbeat;
+                synchronized (this) {
+                    material = buffer.pollFirst();
+                    heartbeat = Objects.isNull(material) && heartbeatPending;
+                    heartbeatPending = false;
+                    if (Objects.isNull(material) && !heartbeat) {
+                        draining = false;
+                        return;
+                    }
+                }
+                try {
+                    if (heartbeat) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .id(material.getId())
+                                .name(type.name().toLowerCase())
+                                .data(material, MediaType.APPLICATION_JSON));
+                        deliveredEvents.incrementAndGet();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Feed subscriber disconnected, type=[{}]", type);
+                    unsubscribe(this);
+                    synchronized (this) {
+                        buffer.clear();
+                        draining = false;
+                    }
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+    }
+}
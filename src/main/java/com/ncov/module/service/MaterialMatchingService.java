@@ -0,0 +1,287 @@
+package com.ncov.module.service;
+
+import com.google.common.collect.Iterables;
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.event.MaterialChangedEvent;
+import com.ncov.module.controller.dto.AddressDto;
+import com.ncov.module.controller.resp.material.MaterialMatchResponse;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * 物资供需匹配服务
+ *
+ * 在内存中按类别和省/市/区县逐级索引所有已公开的需求和供应，为一条需求给出排序后的候选供应，反之亦然。
+ * 索引在启动时加载一次，之后由{@link MaterialChangedEvent}增量维护，查询不访问数据库。
+ * 排序依据：地域接近程度(同区县 > 同市 > 同省)优先，其次是数量满足程度，数量都能满足时数量越接近越优先，
+ * 最后是发布时间。每级地域内的物资按数量分组、组内按发布时间倒序，查询从最近的地域开始按排序依次读取，
+ * 取满所需条数即停止，不遍历整个类别。
+ */
+@Service
+@Slf4j
+public class MaterialMatchingService {
+
+    private static final int MAX_LIMIT = 100;
+    private static final int MAX_LOCATION_LEVEL = 3;
+
+    private final MaterialRequiredService materialRequiredService;
+    private final MaterialSuppliedService materialSuppliedService;
+    private final Map<MaterialType, MaterialIndex> indexes = new EnumMap<>(MaterialType.class);
+
+    public MaterialMatchingService(MaterialRequiredService materialRequiredService,
+                                   MaterialSuppliedService materialSuppliedService) {
+        this.materialRequiredService = materialRequiredService;
+        this.materialSuppliedService = materialSuppliedService;
+        for (MaterialType type : MaterialType.values()) {
+            indexes.put(type, new MaterialIndex());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            materialRequiredService.getAllPublishedMaterials().forEach(indexes.get(MaterialType.REQUIRED)::put);
+            materialSuppliedService.getAllPublishedMaterials().forEach(indexes.get(MaterialType.SUPPLIED)::put);
+            log.info("Material matching index loaded, required=[{}], supplied=[{}]",
+                    indexes.get(MaterialType.REQUIRED).size(), indexes.get(MaterialType.SUPPLIED).size());
+        } catch (Exception e) {
+            log.error("Failed to load material matching index", e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMaterialChanged(MaterialChangedEvent event) {
+        MaterialIndex index = indexes.get(event.getType());
+        if (event.isPublished()) {
+            index.put(event.getAfter());
+        } else if (event.wasPublished()) {
+            index.remove(event.getBefore().getId());
+        }
+    }
+
+    /**
+     * 为一条已公开的需求查找候选供应
+     */
+    public List<MaterialMatchResponse> getSupplyCandidates(Long requiredId, Integer limit) {
+        return match(MaterialType.REQUIRED, requiredId, MaterialType.SUPPLIED, limit);
+    }
+
+    /**
+     * 为一条已公开的供应查找候选需求
+     */
+    public List<MaterialMatchResponse> getDemandCandidates(Long suppliedId, Integer limit) {
+        return match(MaterialType.SUPPLIED, suppliedId, MaterialType.REQUIRED, limit);
+    }
+
+    private List<MaterialMatchResponse> match(MaterialType sourceType, Long sourceId,
+                                              MaterialType candidateType, Integer limit) {
+        MaterialResponse source = indexes.get(sourceType).get(String.valueOf(sourceId));
+        if (Objects.isNull(source)) {
+            return Collections.emptyList();
+        }
+        int size = Math.min(Objects.isNull(limit) || limit <= 0 ? 10 : limit, MAX_LIMIT);
+        Double quantity = MaterialIndex.quantityOf(source);
+        List<MaterialMatchResponse> result = new ArrayList<>(size);
+        for (int level = MAX_LOCATION_LEVEL; level >= 0 && result.size() < size; level--) {
+            MaterialBucket bucket = indexes.get(candidateType).getBucket(MaterialIndex.regionKey(source, level));
+            if (Objects.isNull(bucket)) {
+                continue;
+            }
+            for (MaterialResponse candidate : bucket.ranked(quantity, MaterialType.REQUIRED == sourceType)) {
+                // 更近一级地域的物资已在上一轮读取
+                if (locationLevel(source.getAddress(), candidate.getAddress()) != level) {
+                    continue;
+                }
+                result.add(score(source, sourceType, candidate));
+                if (result.size() >= size) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private MaterialMatchResponse score(MaterialResponse source, MaterialType sourceType, MaterialResponse candidate) {
+        int locationLevel = locationLevel(source.getAddress(), candidate.getAddress());
+        double coverage = MaterialType.REQUIRED == sourceType
+                ? coverage(candidate.getMaterial().getQuantity(), source.getMaterial().getQuantity())
+                : coverage(source.getMaterial().getQuantity(), candidate.getMaterial().getQuantity());
+        return MaterialMatchResponse.builder()
+                .material(candidate)
+                .locationLevel(locationLevel)
+                .quantityCoverage(coverage)
+                .score(locationLevel + coverage)
+                .build();
+    }
+
+    private static int locationLevel(AddressDto source, AddressDto candidate) {
+        if (Objects.isNull(source) || Objects.isNull(candidate)
+                || Objects.isNull(source.getProvince()) || !source.getProvince().equals(candidate.getProvince())) {
+            return 0;
+        }
+        if (Objects.isNull(source.getCity()) || !source.getCity().equals(candidate.getCity())) {
+            return 1;
+        }
+        if (Objects.isNull(source.getDistrict()) || !source.getDistrict().equals(candidate.getDistrict())) {
+            return 2;
+        }
+        return 3;
+    }
+
+    private static double coverage(Double supplied, Double required) {
+        if (Objects.isNull(supplied) || Objects.isNull(required) || required <= 0) {
+            return 0;
+        }
+        return Math.min(supplied / required, 1);
+    }
+
+    /**
+     * 单一类型物资的索引，读操作无锁，写操作串行以保持各个map一致
+     *
+     * 每条物资按(类别)、(类别, 省)、(类别, 省, 市)、(类别, 省, 市, 区县)各登记一次，地址缺少的层级不登记。
+     */
+    private static final class MaterialIndex {
+
+        private final ConcurrentMap<String, MaterialResponse> byId = new ConcurrentHashMap<>();
+        private final ConcurrentMap<List<String>, MaterialBucket> byRegion = new ConcurrentHashMap<>();
+
+        synchronized void put(MaterialResponse material) {
+            remove(material.getId());
+            byId.put(material.getId(), material);
+            for (int level = 0; level <= MAX_LOCATION_LEVEL; level++) {
+                List<String> key = regionKey(material, level);
+                if (Objects.isNull(key)) {
+                    break;
+                }
+                byRegion.computeIfAbsent(key, region -> new MaterialBucket()).add(material);
+            }
+        }
+
+        synchronized void remove(String id) {
+            MaterialResponse present = byId.remove(id);
+            if (Objects.isNull(present)) {
+                return;
+            }
+            for (int level = 0; level <= MAX_LOCATION_LEVEL; level++) {
+                List<String> key = regionKey(present, level);
+                if (Objects.isNull(key)) {
+                    break;
+                }
+                MaterialBucket bucket = byRegion.get(key);
+                if (Objects.nonNull(bucket)) {
+                    bucket.remove(present);
+                }
+            }
+        }
+
+        MaterialResponse get(String id) {
+            return byId.get(id);
+        }
+
+        MaterialBucket getBucket(List<String> regionKey) {
+            return Objects.isNull(regionKey) ? null : byRegion.get(regionKey);
+        }
+
+        int size() {
+            return byId.size();
+        }
+
+        /**
+         * 类别及前level级地域组成的key，地址缺少该级时返回null
+         */
+        static List<String> regionKey(MaterialResponse material, int level) {
+            String category = Objects.isNull(material.getMaterial())
+                    ? "" : Objects.toString(material.getMaterial().getCategory(), "");
+            if (level == 0) {
+                return Collections.singletonList(category);
+            }
+            AddressDto address = material.getAddress();
+            if (Objects.isNull(address)) {
+                return null;
+            }
+            String[] key = {category, address.getProvince(), address.getCity(), address.getDistrict()};
+            for (int i = 1; i <= level; i++) {
+                if (Objects.isNull(key[i])) {
+                    return null;
+                }
+            }
+            return Arrays.asList(Arrays.copyOf(key, level + 1));
+        }
+
+        /**
+         * 物资数量，缺失或不为正时返回null，此时与任何物资的数量满足程度都是0
+         */
+        static Double quantityOf(MaterialResponse material) {
+            Double quantity = Objects.isNull(material.getMaterial()) ? null : material.getMaterial().getQuantity();
+            return Objects.nonNull(quantity) && quantity > 0 ? quantity : null;
+        }
+    }
+
+    /**
+     * 同一类别、同一地域的物资，数量为正的按数量分组，组内及其余物资均按发布时间倒序
+     */
+    private static final class MaterialBucket {
+
+        private static final Comparator<MaterialResponse> RECENCY = Comparator
+                .comparing(MaterialResponse::getGmtCreated, Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(MaterialResponse::getId);
+
+        private final ConcurrentSkipListMap<Double, NavigableSet<MaterialResponse>> byQuantity =
+                new ConcurrentSkipListMap<>();
+        private final NavigableSet<MaterialResponse> unquantified = new ConcurrentSkipListSet<>(RECENCY);
+        private final NavigableSet<MaterialResponse> all = new ConcurrentSkipListSet<>(RECENCY);
+
+        void add(MaterialResponse material) {
+            all.add(material);
+            Double quantity = MaterialIndex.quantityOf(material);
+            if (Objects.isNull(quantity)) {
+                unquantified.add(material);
+            } else {
+                byQuantity.computeIfAbsent(quantity, key -> new ConcurrentSkipListSet<>(RECENCY)).add(material);
+            }
+        }
+
+        void remove(MaterialResponse material) {
+            all.remove(material);
+            Double quantity = MaterialIndex.quantityOf(material);
+            if (Objects.isNull(quantity)) {
+                unquantified.remove(material);
+                return;
+            }
+            NavigableSet<MaterialResponse> group = byQuantity.get(quantity);
+            if (Objects.nonNull(group) && group.remove(material) && group.isEmpty()) {
+                byQuantity.remove(quantity, group);
+            }
+        }
+
+        /**
+         * 按数量满足程度从高到低依次返回，不复制、不排序
+         *
+         * 来源为需求(数量R)时：先是不小于R的供应，由小到大；再是小于R的供应，由大到小。
+         * 来源为供应(数量S)时：先是不大于S的需求，由大到小；再是大于S的需求，由小到大。
+         * 数量缺失的物资排在最后；来源数量缺失时满足程度都是0，只按发布时间排序。
+         */
+        Iterable<MaterialResponse> ranked(Double quantity, boolean sourceRequired) {
+            if (Objects.isNull(quantity)) {
+                return all;
+            }
+            Collection<NavigableSet<MaterialResponse>> covering = sourceRequired
+                    ? byQuantity.tailMap(quantity, true).values()
+                    : byQuantity.headMap(quantity, true).descendingMap().values();
+            Collection<NavigableSet<MaterialResponse>> partial = sourceRequired
+                    ? byQuantity.headMap(quantity, false).descendingMap().values()
+                    : byQuantity.tailMap(quantity, false).values();
+            return Iterables.concat(Iterables.concat(covering), Iterables.concat(partial), unquantified);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.ncov.module.service;
+
+import com.ncov.module.common.cache.AbstractMonitoredCache;
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.event.MaterialChangedEvent;
+import com.ncov.module.controller.resp.Page;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 公开物资列表的读穿透缓存，按(类型, 类别, 页数, 条数)缓存分页结果
+ *
+ * 公开列表内容发生变化时(新建即发布、审核通过、驳回、修改已发布的物资)按类型整体失效。
+ * 每个类型维护一个版本号并作为key的一部分，失效前已开始的查询只会写入旧版本的key，不会把旧数据带回缓存。
+ */
+@Service
+@Slf4j
+public class MaterialPageCache extends AbstractMonitoredCache<MaterialPageCache.PageKey, Page<MaterialResponse>> {
+
+    private final Map<MaterialType, AtomicLong> versions = new EnumMap<>(MaterialType.class);
+
+    public MaterialPageCache(@Value("${material.pageCache.maximumSize:2000}") long maximumSize,
+                             @Value("${material.pageCache.expireAfterWriteSeconds:60}") long expireAfterWriteSeconds) {
+        super("material-pages", maximumSize, expireAfterWriteSeconds, TimeUnit.SECONDS);
+        for (MaterialType type : MaterialType.values()) {
+            versions.put(type, new AtomicLong());
+        }
+    }
+
+    public Page<MaterialResponse> get(MaterialType type, String category, Integer page, Integer size,
+                                      boolean withTotal, Supplier<Page<MaterialResponse>> loader) {
+        PageKey key = new PageKey(type, versions.get(type).get(), category, page, size, withTotal);
+        return load(key, loader);
+    }
+
+    public void invalidate(MaterialType type) {
+        versions.get(type).incrementAndGet();
+        evictIf(key -> key.type == type);
+        log.debug("Material page cache invalidated, type=[{}]", type);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMaterialChanged(MaterialChangedEvent event) {
+        if (event.affectsPublished()) {
+            invalidate(event.getType());
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    static final class PageKey {
+
+        private final MaterialType type;
+        private final long version;
+        private final String category;
+        private final Integer page;
+        private final Integer size;
+        private final boolean withTotal;
+    }
+}
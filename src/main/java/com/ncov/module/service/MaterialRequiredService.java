@@ -1,27 +1,36 @@
 package com.ncov.module.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.google.common.collect.Lists;
+import com.ncov.module.common.datasource.ReplicaRead;
+import com.ncov.module.common.enums.ImageDerivative;
 import com.ncov.module.common.enums.MaterialStatus;
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.enums.ReviewOutcome;
+import com.ncov.module.common.event.MaterialChangedEvent;
 import com.ncov.module.common.exception.MaterialNotFoundException;
 import com.ncov.module.common.util.ImageUtils;
+import com.ncov.module.common.util.PageCursor;
 import com.ncov.module.controller.dto.AddressDto;
 import com.ncov.module.controller.dto.MaterialDto;
 import com.ncov.module.controller.request.material.MaterialRequest;
 import com.ncov.module.controller.resp.material.MaterialResponse;
+import com.ncov.module.controller.resp.material.MaterialReviewResult;
 import com.ncov.module.entity.MaterialRequiredEntity;
 import com.ncov.module.entity.UserInfoEntity;
 import com.ncov.module.mapper.MaterialRequiredMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Date;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
@@ -35,33 +44,88 @@ import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 @Service
 public class MaterialRequiredService extends AbstractService<MaterialRequiredMapper, MaterialRequiredEntity> {
 
+    private static final int INSERT_BATCH_SIZE = 200;
+
     @Autowired
     private MaterialRequiredMapper materialRequiredMapper;
     @Autowired
     private UserInfoService userInfoService;
+    @Autowired
+    private MaterialCountService materialCountService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private ThumbnailService thumbnailService;
 
     /**
      * 根据相关条件，查询物料寻求分页列表
      *
      * @return
      */
+    @ReplicaRead
     public com.ncov.module.controller.resp.Page<MaterialResponse> getRequiredPageList(
-            Integer pageNum, Integer pageSize, String category) {
+            Integer pageNum, Integer pageSize, String category, String cursor, boolean withTotal) {
         LambdaQueryWrapper<MaterialRequiredEntity> queryWrapper = new LambdaQueryWrapper<MaterialRequiredEntity>()
                 .ne(MaterialRequiredEntity::getMaterialRequiredStatus, MaterialStatus.PENDING.name())
-                .orderByDesc(MaterialRequiredEntity::getGmtCreated);
+                .orderByDesc(MaterialRequiredEntity::getGmtCreated)
+                .orderByDesc(MaterialRequiredEntity::getId);
         if (isNotEmpty(category)) {
             queryWrapper.eq(MaterialRequiredEntity::getMaterialRequiredCategory, category);
         }
+        if (isNotEmpty(cursor)) {
+            return getRequiredPageAfter(PageCursor.decode(cursor), pageNum, pageSize, queryWrapper,
+                    withTotal ? materialCountService.getPublishedCount(MaterialType.REQUIRED, category) : null);
+        }
 
+        // 优先使用内存中的近似总数，尚未对账完成时才由分页插件执行COUNT
+        Long approximateTotal = withTotal ? materialCountService.getPublishedCount(MaterialType.REQUIRED, category) : null;
+        boolean searchCount = withTotal && Objects.isNull(approximateTotal);
         Page<MaterialRequiredEntity> results = materialRequiredMapper.selectPage(
-                new Page<MaterialRequiredEntity>().setCurrent(pageNum).setSize(pageSize),
+                new Page<MaterialRequiredEntity>(pageNum, pageSize, searchCount),
                 queryWrapper);
         return com.ncov.module.controller.resp.Page.<MaterialResponse>builder()
                 .data(carry(results.getRecords()))
                 .page(pageNum)
                 .pageSize(pageSize)
-                .total(results.getTotal())
+                .total(searchCount ? Long.valueOf(results.getTotal()) : approximateTotal)
+                .cursor(nextCursor(results.getRecords(), pageSize))
+                .build();
+    }
+
+    /**
+     * 按全文检索给出的排序取一页物资，只查询本页的id，结果保持检索排序，未公开或已删除的物资跳过
+     *
+     * @param total 检索命中总数，不受检索返回条数上限的限制
+     */
+    @ReplicaRead
+    public com.ncov.module.controller.resp.Page<MaterialResponse> getRequiredPageByIds(
+            List<Long> rankedIds, long total, Integer pageNum, Integer pageSize) {
+        return selectPageByIds(rankedIds, total, pageNum, pageSize, pageIds -> materialRequiredMapper.selectList(
+                new LambdaQueryWrapper<MaterialRequiredEntity>()
+                        .in(MaterialRequiredEntity::getId, pageIds)
+                        .ne(MaterialRequiredEntity::getMaterialRequiredStatus, MaterialStatus.PENDING.name())),
+                MaterialRequiredEntity::getId, this::carry);
+    }
+
+    /**
+     * 从游标位置继续查询下一页，按(gmt_created, id)定位，不走OFFSET和COUNT，深分页与首页代价相同
+     */
+    private com.ncov.module.controller.resp.Page<MaterialResponse> getRequiredPageAfter(
+            PageCursor after, Integer pageNum, Integer pageSize, LambdaQueryWrapper<MaterialRequiredEntity> queryWrapper,
+            Long total) {
+        queryWrapper.and(wrapper -> wrapper
+                .lt(MaterialRequiredEntity::getGmtCreated, after.getGmtCreated())
+                .or(nested -> nested
+                        .eq(MaterialRequiredEntity::getGmtCreated, after.getGmtCreated())
+                        .lt(MaterialRequiredEntity::getId, after.getId())))
+                .last("limit " + pageSize);
+        List<MaterialRequiredEntity> records = materialRequiredMapper.selectList(queryWrapper);
+        return com.ncov.module.controller.resp.Page.<MaterialResponse>builder()
+                .data(carry(records))
+                .page(pageNum)
+                .pageSize(pageSize)
+                .total(total)
+                .cursor(nextCursor(records, pageSize))
                 .build();
     }
 
@@ -80,8 +144,11 @@ public class MaterialRequiredService extends AbstractService<MaterialRequiredMap
         if (user.isVerified()) {
             materialRequiredEntities.forEach(MaterialRequiredEntity::approve);
         }
-        saveBatch(materialRequiredEntities);
-        return carry(materialRequiredEntities);
+        insertAll(materialRequiredEntities);
+        List<MaterialResponse> responses = carry(materialRequiredEntities);
+        responses.forEach(response -> eventPublisher.publishEvent(
+                MaterialChangedEvent.created(MaterialType.REQUIRED, response)));
+        return responses;
     }
 
     @Transactional(rollbackFor = Exception.class)
@@ -94,26 +161,28 @@ public class MaterialRequiredService extends AbstractService<MaterialRequiredMap
         }
         MaterialDto materialDto = material.getMaterials().get(0);
         AddressDto address = material.getAddress();
-        MaterialRequiredEntity entity = MaterialRequiredEntity.builder()
-                .id(materialId)
-                .country(address.getCountry())
-                .province(address.getProvince())
-                .city(address.getCity())
-                .district(address.getDistrict())
-                .streetAddress(address.getStreetAddress())
-                .materialRequiredContactorName(material.getContactorName())
-                .materialRequiredContactorPhone(material.getContactorPhone())
-                .materialRequiredOrganizationName(material.getOrganisationName())
-                .materialRequiredComment(material.getComment())
-                .materialRequiredImageUrls(ImageUtils.joinImageUrls(materialDto.getImageUrls()))
-                .materialRequiredName(materialDto.getName())
-                .materialRequiredCategory(materialDto.getCategory())
-                .materialRequiredQuantity(materialDto.getQuantity())
-                .materialRequiredStandard(materialDto.getStandard())
-                .gmtModified(new Date())
-                .build();
-        updateById(entity);
-        return carry(entity);
+        MaterialRequiredEntity entity = copyOf(presentMaterial);
+        entity.setId(materialId);
+        setIfPresent(address.getCountry(), entity::setCountry);
+        setIfPresent(address.getProvince(), entity::setProvince);
+        setIfPresent(address.getCity(), entity::setCity);
+        setIfPresent(address.getDistrict(), entity::setDistrict);
+        setIfPresent(address.getStreetAddress(), entity::setStreetAddress);
+        setIfPresent(material.getContactorName(), entity::setMaterialRequiredContactorName);
+        setIfPresent(material.getContactorPhone(), entity::setMaterialRequiredContactorPhone);
+        setIfPresent(material.getOrganisationName(), entity::setMaterialRequiredOrganizationName);
+        setIfPresent(material.getComment(), entity::setMaterialRequiredComment);
+        setIfPresent(materialDto.getImageUrls(),
+                urls -> entity.setMaterialRequiredImageUrls(ImageUtils.joinImageUrls(urls)));
+        setIfPresent(materialDto.getName(), entity::setMaterialRequiredName);
+        setIfPresent(materialDto.getCategory(), entity::setMaterialRequiredCategory);
+        setIfPresent(materialDto.getQuantity(), entity::setMaterialRequiredQuantity);
+        setIfPresent(materialDto.getStandard(), entity::setMaterialRequiredStandard);
+        entity.setGmtModified(new Date());
+        updateChangedColumns(presentMaterial, entity);
+        MaterialResponse after = carry(entity);
+        eventPublisher.publishEvent(new MaterialChangedEvent(MaterialType.REQUIRED, carry(presentMaterial), after));
+        return after;
     }
 
     public com.ncov.module.controller.resp.Page<MaterialResponse> getAllRequiredMaterialsPage(
@@ -130,22 +199,112 @@ public class MaterialRequiredService extends AbstractService<MaterialRequiredMap
                 .build();
     }
 
+    /**
+     * 以流式查询按与分页列表相同的条件逐行导出物资，不经过分页插件，也不在内存中累积结果
+     */
+    @ReplicaRead
+    public void exportRequiredMaterials(
+            String category, String status, String contactPhone, Long userId, Consumer<MaterialResponse> consumer) {
+        materialRequiredMapper.streamAll(
+                getFilterQueryWrapper(category, status, contactPhone, userId).eq(MaterialRequiredEntity::getDeleted, 0),
+                context -> consumer.accept(carry(context.getResultObject())));
+    }
+
     public void approve(Long id) {
         MaterialRequiredEntity material = getById(id);
+        MaterialRequiredEntity original = copyOf(material);
         material.approve();
-        updateById(material);
+        updateChangedColumns(original, material);
+        eventPublisher.publishEvent(new MaterialChangedEvent(MaterialType.REQUIRED, carry(original), carry(material)));
     }
 
     public void reject(Long id, String message) {
         MaterialRequiredEntity material = getById(id);
+        MaterialRequiredEntity original = copyOf(material);
         material.reject(message);
-        updateById(material);
+        updateChangedColumns(original, material);
+        eventPublisher.publishEvent(new MaterialChangedEvent(MaterialType.REQUIRED, carry(original), carry(material)));
+    }
+
+    /**
+     * 批量审核通过，只处理待审核的物资，返回每个ID的处理结果
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public List<MaterialReviewResult> batchApprove(List<Long> ids) {
+        return batchReview(ids, MaterialRequiredEntity::approve, wrapper -> wrapper
+                .set(MaterialRequiredEntity::getMaterialRequiredStatus, MaterialStatus.PUBLISHED.name())
+                .set(MaterialRequiredEntity::getReviewMessage, ""));
+    }
+
+    /**
+     * 批量驳回，只处理待审核的物资，返回每个ID的处理结果
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public List<MaterialReviewResult> batchReject(List<Long> ids, String message) {
+        return batchReview(ids, material -> material.reject(message), wrapper -> wrapper
+                .set(MaterialRequiredEntity::getReviewMessage, message));
+    }
+
+    /**
+     * 锁定并读取整批物资后，对其中待审核的物资执行一条 UPDATE ... WHERE id IN (...) AND status = 'PENDING'，
+     * 无论批次大小都只需两次数据库往返
+     */
+    private List<MaterialReviewResult> batchReview(List<Long> ids, Consumer<MaterialRequiredEntity> review,
+                                                   Consumer<LambdaUpdateWrapper<MaterialRequiredEntity>> assignments) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        Map<Long, MaterialRequiredEntity> materials = materialRequiredMapper.selectList(
+                new LambdaQueryWrapper<MaterialRequiredEntity>()
+                        .in(MaterialRequiredEntity::getId, distinctIds)
+                        .last("for update"))
+                .stream()
+                .collect(Collectors.toMap(MaterialRequiredEntity::getId, Function.identity()));
+        List<MaterialRequiredEntity> pending = materials.values().stream()
+                .filter(material -> !material.isApproved())
+                .collect(Collectors.toList());
+        // 审核会改变实体的状态，处理结果按审核前是否待审核判断
+        Set<Long> pendingIds = pending.stream().map(MaterialRequiredEntity::getId).collect(Collectors.toSet());
+        if (!pending.isEmpty()) {
+            LambdaUpdateWrapper<MaterialRequiredEntity> wrapper = new LambdaUpdateWrapper<MaterialRequiredEntity>()
+                    .set(MaterialRequiredEntity::getGmtModified, new Date())
+                    .in(MaterialRequiredEntity::getId, pendingIds)
+                    .eq(MaterialRequiredEntity::getMaterialRequiredStatus, MaterialStatus.PENDING.name());
+            assignments.accept(wrapper);
+            materialRequiredMapper.update(null, wrapper);
+            pending.forEach(material -> {
+                MaterialResponse before = carry(material);
+                review.accept(material);
+                eventPublisher.publishEvent(new MaterialChangedEvent(MaterialType.REQUIRED, before, carry(material)));
+            });
+        }
+        log.info("Batch reviewed required materials, requested=[{}], updated=[{}]",
+                distinctIds.size(), pending.size());
+        return distinctIds.stream()
+                .map(id -> MaterialReviewResult.builder()
+                        .id(id)
+                        .outcome(getReviewOutcome(id, materials, pendingIds).name())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private static ReviewOutcome getReviewOutcome(Long id, Map<Long, MaterialRequiredEntity> materials, Set<Long> pendingIds) {
+        if (!materials.containsKey(id)) {
+            return ReviewOutcome.NOT_FOUND;
+        }
+        return pendingIds.contains(id) ? ReviewOutcome.UPDATED : ReviewOutcome.NOT_PENDING;
     }
 
     public MaterialResponse getDetail(Long id) {
         return carry(getById(id));
     }
 
+    /**
+     * 查询所有已公开的物资，仅用于启动时构建内存索引
+     */
+    public List<MaterialResponse> getAllPublishedMaterials() {
+        return carry(materialRequiredMapper.selectList(new LambdaQueryWrapper<MaterialRequiredEntity>()
+                .ne(MaterialRequiredEntity::getMaterialRequiredStatus, MaterialStatus.PENDING.name())));
+    }
+
     private LambdaQueryWrapper<MaterialRequiredEntity> getFilterQueryWrapper(String category,
                                                                              String status,
                                                                              String contactPhone,
@@ -167,6 +326,21 @@ public class MaterialRequiredService extends AbstractService<MaterialRequiredMap
         return queryWrapper;
     }
 
+    /**
+     * 以多行INSERT写入并回填主键，每条语句至多{@link #INSERT_BATCH_SIZE}行，一次发布通常只需一次数据库往返
+     */
+    private void insertAll(List<MaterialRequiredEntity> materials) {
+        Lists.partition(materials, INSERT_BATCH_SIZE).forEach(materialRequiredMapper::insertAll);
+    }
+
+    private String nextCursor(List<MaterialRequiredEntity> records, Integer pageSize) {
+        if (records.isEmpty() || records.size() < pageSize) {
+            return null;
+        }
+        MaterialRequiredEntity last = records.get(records.size() - 1);
+        return PageCursor.encode(last.getGmtCreated(), last.getId());
+    }
+
     private MaterialRequiredEntity getById(Long id) {
         return Optional.ofNullable(materialRequiredMapper.selectById(id))
                 .orElseThrow(MaterialNotFoundException::new);
@@ -178,7 +352,7 @@ public class MaterialRequiredService extends AbstractService<MaterialRequiredMap
                 .collect(Collectors.toList());
     }
 
-    private MaterialResponse carry(MaterialRequiredEntity material) {
+    MaterialResponse carry(MaterialRequiredEntity material) {
         return MaterialResponse.builder()
                 .address(AddressDto.builder()
                         .country(material.getCountry())
@@ -192,13 +366,17 @@ public class MaterialRequiredService extends AbstractService<MaterialRequiredMap
                 .contactorPhone(material.getMaterialRequiredContactorPhone())
                 .gmtCreated(material.getGmtCreated())
                 .gmtModified(material.getGmtModified())
-                .id(material.getId().toString())
+                .id(Objects.toString(material.getId(), null))
                 .material(MaterialDto.builder()
                         .category(material.getMaterialRequiredCategory())
                         .standard(material.getMaterialRequiredStandard())
                         .quantity(material.getMaterialRequiredQuantity())
                         .name(material.getMaterialRequiredName())
                         .imageUrls(material.getImageUrls())
+                        .thumbnailUrls(ImageUtils.getDerivativeUrls(material.getImageUrls(), ImageDerivative.THUMBNAIL,
+                                thumbnailService::hasDerivatives))
+                        .previewUrls(ImageUtils.getDerivativeUrls(material.getImageUrls(), ImageDerivative.PREVIEW,
+                                thumbnailService::hasDerivatives))
                         .build())
                 .organisationName(material.getMaterialRequiredOrganizationName())
                 .status(material.getMaterialRequiredStatus())
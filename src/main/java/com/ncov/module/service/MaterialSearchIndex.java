@@ -0,0 +1,272 @@
+package com.ncov.module.service;
+
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.event.MaterialChangedEvent;
+import com.ncov.module.common.util.NGramTokenizer;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.function.Supplier;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNotEmpty;
+
+/**
+ * 已公开物资的全文检索
+ *
+ * 对物资名称、机构名称和备注建立内存倒排索引(分词见{@link NGramTokenizer})，查询不访问数据库。
+ * 索引在启动时加载，之后由{@link MaterialChangedEvent}增量维护，并定时从数据库重建，
+ * 修正其它节点的写入和丢失的事件造成的偏差。重建在锁外完成，只在替换时短暂持有写锁。
+ * 命中需包含查询的全部词项，按 Σ 字段权重 × ln(1 + N/df) 排序，得分相同时较新的物资在前。
+ */
+@Service
+@Slf4j
+public class MaterialSearchIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int ORGANISATION_WEIGHT = 2;
+    private static final int COMMENT_WEIGHT = 1;
+
+    private final MaterialRequiredService materialRequiredService;
+    private final MaterialSuppliedService materialSuppliedService;
+    private final int maxResults;
+    private final Map<MaterialType, InvertedIndex> indexes = new EnumMap<>(MaterialType.class);
+
+    @Autowired
+    public MaterialSearchIndex(MaterialRequiredService materialRequiredService,
+                               MaterialSuppliedService materialSuppliedService,
+                               @Value("${material.search.maxResults:1000}") int maxResults) {
+        this.materialRequiredService = materialRequiredService;
+        this.materialSuppliedService = materialSuppliedService;
+        this.maxResults = maxResults;
+        for (MaterialType type : MaterialType.values()) {
+            indexes.put(type, new InvertedIndex());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reconcile();
+        log.info("Material search index loaded, required=[{}], supplied=[{}]",
+                indexes.get(MaterialType.REQUIRED).size(), indexes.get(MaterialType.SUPPLIED).size());
+    }
+
+    /**
+     * 定时与数据库对账，用已公开物资重建索引
+     */
+    @Scheduled(fixedDelayString = "${material.search.reconcileIntervalMs:300000}",
+            initialDelayString = "${material.search.reconcileIntervalMs:300000}")
+    public void reconcile() {
+        reconcile(MaterialType.REQUIRED, materialRequiredService::getAllPublishedMaterials);
+        reconcile(MaterialType.SUPPLIED, materialSuppliedService::getAllPublishedMaterials);
+    }
+
+    private void reconcile(MaterialType type, Supplier<List<MaterialResponse>> query) {
+        try {
+            InvertedIndex fresh = new InvertedIndex();
+            query.get().forEach(fresh::put);
+            indexes.get(type).replaceWith(fresh);
+            log.debug("Material search index reconciled, type=[{}], documents=[{}]", type, fresh.size());
+        } catch (Exception e) {
+            log.warn("Failed to reconcile material search index, type=[{}]", type, e);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMaterialChanged(MaterialChangedEvent event) {
+        InvertedIndex index = indexes.get(event.getType());
+        if (event.isPublished()) {
+            index.put(event.getAfter());
+        } else if (event.wasPublished()) {
+            index.remove(Long.valueOf(event.getBefore().getId()));
+        }
+    }
+
+    /**
+     * 检索已公开的物资
+     *
+     * @param category 为空时不限类别
+     * @return 按相关度排序的物资id(至多material.search.maxResults条)及命中总数
+     */
+    public SearchResult search(MaterialType type, String q, String category) {
+        if (isBlank(q)) {
+            return SearchResult.EMPTY;
+        }
+        return indexes.get(type).search(NGramTokenizer.tokenizeQuery(q), category, maxResults);
+    }
+
+    public int size(MaterialType type) {
+        return indexes.get(type).size();
+    }
+
+    private static final class InvertedIndex {
+
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        /** 词项 -> 物资id -> 加权词频 */
+        private Map<String, Map<Long, Integer>> postings = new HashMap<>();
+        private Map<Long, Document> documents = new HashMap<>();
+
+        void put(MaterialResponse material) {
+            Long id = Long.valueOf(material.getId());
+            Map<String, Integer> weights = new HashMap<>();
+            addField(weights, Objects.isNull(material.getMaterial()) ? null : material.getMaterial().getName(),
+                    NAME_WEIGHT);
+            addField(weights, material.getOrganisationName(), ORGANISATION_WEIGHT);
+            addField(weights, material.getComment(), COMMENT_WEIGHT);
+            String category = Objects.isNull(material.getMaterial()) ? null : material.getMaterial().getCategory();
+            lock.writeLock().lock();
+            try {
+                removeLocked(id);
+                weights.forEach((token, weight) ->
+                        postings.computeIfAbsent(token, t -> new HashMap<>()).put(id, weight));
+                documents.put(id, new Document(weights.keySet(), category));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /**
+         * 换用另一个索引的内容，fresh此后不应再使用
+         */
+        void replaceWith(InvertedIndex fresh) {
+            lock.writeLock().lock();
+            try {
+                postings = fresh.postings;
+                documents = fresh.documents;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long id) {
+            lock.writeLock().lock();
+            try {
+                removeLocked(id);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        SearchResult search(List<String> tokens, String category, int limit) {
+            if (tokens.isEmpty()) {
+                return SearchResult.EMPTY;
+            }
+            Map<Long, Double> scores;
+            lock.readLock().lock();
+            try {
+                List<Map<Long, Integer>> lists = new ArrayList<>();
+                for (String token : new LinkedHashSet<>(tokens)) {
+                    Map<Long, Integer> list = postings.get(token);
+                    if (Objects.isNull(list)) {
+                        return SearchResult.EMPTY;
+                    }
+                    lists.add(list);
+                }
+                // 从最短的倒排表出发求交集
+                lists.sort(Comparator.comparingInt(Map::size));
+                scores = new HashMap<>();
+                int total = documents.size();
+                candidates:
+                for (Map.Entry<Long, Integer> entry : lists.get(0).entrySet()) {
+                    Long id = entry.getKey();
+                    if (isNotEmpty(category) && !category.equals(documents.get(id).category)) {
+                        continue;
+                    }
+                    double score = 0;
+                    for (Map<Long, Integer> list : lists) {
+                        Integer weight = list.get(id);
+                        if (Objects.isNull(weight)) {
+                            continue candidates;
+                        }
+                        score += weight * Math.log(1 + (double) total / list.size());
+                    }
+                    scores.put(id, score);
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            Comparator<Map.Entry<Long, Double>> ranking = Map.Entry.<Long, Double>comparingByValue()
+                    .thenComparing(Map.Entry.comparingByKey());
+            // 小顶堆保留得分最高的limit条
+            PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(ranking);
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                top.offer(entry);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>(top);
+            ranked.sort(ranking.reversed());
+            List<Long> ids = new ArrayList<>(ranked.size());
+            ranked.forEach(entry -> ids.add(entry.getKey()));
+            return new SearchResult(ids, scores.size());
+        }
+
+        int size() {
+            lock.readLock().lock();
+            try {
+                return documents.size();
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private void removeLocked(Long id) {
+            Document present = documents.remove(id);
+            if (Objects.isNull(present)) {
+                return;
+            }
+            for (String token : present.tokens) {
+                Map<Long, Integer> list = postings.get(token);
+                if (Objects.nonNull(list)) {
+                    list.remove(id);
+                    if (list.isEmpty()) {
+                        postings.remove(token);
+                    }
+                }
+            }
+        }
+
+        private static void addField(Map<String, Integer> weights, String text, int weight) {
+            for (String token : NGramTokenizer.tokenize(text)) {
+                weights.merge(token, weight, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * 检索结果：排序后的物资id只保留前limit条，total为不受该上限影响的命中总数
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class SearchResult {
+
+        private static final SearchResult EMPTY = new SearchResult(Collections.emptyList(), 0);
+
+        private final List<Long> ids;
+        private final long total;
+    }
+
+    private static final class Document {
+
+        private final Set<String> tokens;
+        private final String category;
+
+        private Document(Set<String> tokens, String category) {
+            this.tokens = tokens;
+            this.category = category;
+        }
+    }
+}
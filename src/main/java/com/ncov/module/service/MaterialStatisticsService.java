@@ -0,0 +1,180 @@
+package com.ncov.module.service;
+
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.event.MaterialChangedEvent;
+import com.ncov.module.controller.dto.AddressDto;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+import com.ncov.module.controller.resp.statistics.RegionStatisticsResponse;
+import com.ncov.module.entity.MaterialStatisticsEntity;
+import com.ncov.module.mapper.MaterialRequiredMapper;
+import com.ncov.module.mapper.MaterialSuppliedMapper;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.function.Supplier;
+
+import static org.apache.commons.lang3.StringUtils.isNotEmpty;
+
+/**
+ * 需求与供应的地域统计，按(类型, 省, 市, 类别, 状态)在内存中累计条数和数量
+ *
+ * 写操作通过{@link MaterialChangedEvent}增量更新，定时与数据库的分组统计对账以修正偏差。
+ * 查询只遍历分组，代价与分组数相关而与物资条数无关。首次对账完成前该类型没有数据。
+ */
+@Service
+@Slf4j
+public class MaterialStatisticsService {
+
+    private static final Comparator<String> NULLS_FIRST = Comparator.nullsFirst(Comparator.naturalOrder());
+    private static final Comparator<RegionStatisticsResponse> ORDER = Comparator
+            .comparing(RegionStatisticsResponse::getProvince, NULLS_FIRST)
+            .thenComparing(RegionStatisticsResponse::getCity, NULLS_FIRST)
+            .thenComparing(RegionStatisticsResponse::getCategory, NULLS_FIRST)
+            .thenComparing(RegionStatisticsResponse::getStatus, NULLS_FIRST);
+
+    private final MaterialRequiredMapper materialRequiredMapper;
+    private final MaterialSuppliedMapper materialSuppliedMapper;
+    private final Map<MaterialType, ConcurrentMap<GroupKey, GroupTotals>> groups = new ConcurrentHashMap<>();
+
+    public MaterialStatisticsService(MaterialRequiredMapper materialRequiredMapper,
+                                     MaterialSuppliedMapper materialSuppliedMapper) {
+        this.materialRequiredMapper = materialRequiredMapper;
+        this.materialSuppliedMapper = materialSuppliedMapper;
+    }
+
+    /**
+     * 按地域和类别汇总需求与供应
+     *
+     * @param byCity   true按省、市汇总，false只按省汇总
+     * @param province 省份，为空时不限
+     * @param category 物资类别，为空时不限
+     * @param status   物资状态，为空时不限
+     */
+    public List<RegionStatisticsResponse> getRegionStatistics(boolean byCity, String province, String category,
+                                                              String status) {
+        Map<GroupKey, RegionStatisticsResponse> rows = new HashMap<>();
+        for (MaterialType type : MaterialType.values()) {
+            ConcurrentMap<GroupKey, GroupTotals> typeGroups = groups.get(type);
+            if (Objects.isNull(typeGroups)) {
+                continue;
+            }
+            for (Map.Entry<GroupKey, GroupTotals> entry : typeGroups.entrySet()) {
+                GroupKey key = entry.getKey();
+                if ((isNotEmpty(province) && !province.equals(key.province))
+                        || (isNotEmpty(category) && !category.equals(key.category))
+                        || (isNotEmpty(status) && !status.equals(key.status))) {
+                    continue;
+                }
+                GroupKey rowKey = byCity ? key : new GroupKey(key.province, null, key.category, key.status);
+                RegionStatisticsResponse row = rows.computeIfAbsent(rowKey, GroupKey::toResponse);
+                long count = entry.getValue().count.get();
+                double quantity = entry.getValue().quantity.sum();
+                if (MaterialType.REQUIRED == type) {
+                    row.setRequiredCount(row.getRequiredCount() + count);
+                    row.setRequiredQuantity(row.getRequiredQuantity() + quantity);
+                } else {
+                    row.setSuppliedCount(row.getSuppliedCount() + count);
+                    row.setSuppliedQuantity(row.getSuppliedQuantity() + quantity);
+                }
+            }
+        }
+        List<RegionStatisticsResponse> result = new ArrayList<>();
+        for (RegionStatisticsResponse row : rows.values()) {
+            if (row.getRequiredCount() > 0 || row.getSuppliedCount() > 0) {
+                result.add(row);
+            }
+        }
+        result.sort(ORDER);
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMaterialChanged(MaterialChangedEvent event) {
+        ConcurrentMap<GroupKey, GroupTotals> typeGroups = groups.get(event.getType());
+        if (Objects.isNull(typeGroups)) {
+            return;
+        }
+        adjust(typeGroups, event.getBefore(), -1);
+        adjust(typeGroups, event.getAfter(), 1);
+    }
+
+    /**
+     * 定时与数据库对账，修正增量统计的偏差
+     */
+    @Scheduled(fixedDelayString = "${material.statistics.reconcileIntervalMs:300000}")
+    public void reconcile() {
+        reconcile(MaterialType.REQUIRED, materialRequiredMapper::selectStatisticsGroupByRegionAndCategory);
+        reconcile(MaterialType.SUPPLIED, materialSuppliedMapper::selectStatisticsGroupByRegionAndCategory);
+    }
+
+    private void reconcile(MaterialType type, Supplier<List<MaterialStatisticsEntity>> query) {
+        try {
+            ConcurrentMap<GroupKey, GroupTotals> fresh = new ConcurrentHashMap<>();
+            query.get().forEach(group -> {
+                GroupTotals totals = new GroupTotals();
+                totals.count.set(Objects.isNull(group.getTotal()) ? 0 : group.getTotal());
+                totals.quantity.add(Objects.isNull(group.getQuantity()) ? 0 : group.getQuantity());
+                fresh.put(new GroupKey(group.getProvince(), group.getCity(), group.getCategory(), group.getStatus()),
+                        totals);
+            });
+            groups.put(type, fresh);
+            log.debug("Material statistics reconciled, type=[{}], groups=[{}]", type, fresh.size());
+        } catch (Exception e) {
+            log.warn("Failed to reconcile material statistics, type=[{}]", type, e);
+        }
+    }
+
+    private void adjust(ConcurrentMap<GroupKey, GroupTotals> typeGroups, MaterialResponse material, int delta) {
+        if (Objects.isNull(material) || Objects.isNull(material.getStatus())) {
+            return;
+        }
+        AddressDto address = Objects.isNull(material.getAddress()) ? new AddressDto() : material.getAddress();
+        String category = Objects.isNull(material.getMaterial()) ? null : material.getMaterial().getCategory();
+        Double quantity = Objects.isNull(material.getMaterial()) ? null : material.getMaterial().getQuantity();
+        GroupTotals totals = typeGroups.computeIfAbsent(
+                new GroupKey(address.getProvince(), address.getCity(), category, material.getStatus()),
+                key -> new GroupTotals());
+        totals.count.addAndGet(delta);
+        if (Objects.nonNull(quantity)) {
+            totals.quantity.add(delta * quantity);
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class GroupKey {
+
+        private final String province;
+        private final String city;
+        private final String category;
+        private final String status;
+
+        private RegionStatisticsResponse toResponse() {
+            return RegionStatisticsResponse.builder()
+                    .province(province)
+                    .city(city)
+                    .category(category)
+                    .status(status)
+                    .requiredCount(0L)
+                    .requiredQuantity(0.0)
+                    .suppliedCount(0L)
+                    .suppliedQuantity(0.0)
+                    .build();
+        }
+    }
+
+    private static final class GroupTotals {
+
+        private final AtomicLong count = new AtomicLong();
+        private final DoubleAdder quantity = new DoubleAdder();
+    }
+}
@@ -1,62 +1,126 @@
 package com.ncov.module.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
-import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.google.common.collect.Lists;
+import com.ncov.module.common.datasource.ReplicaRead;
+import com.ncov.module.common.enums.ImageDerivative;
 import com.ncov.module.common.enums.MaterialStatus;
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.enums.ReviewOutcome;
+import com.ncov.module.common.event.MaterialChangedEvent;
 import com.ncov.module.common.exception.MaterialNotFoundException;
 import com.ncov.module.common.util.ImageUtils;
+import com.ncov.module.common.util.PageCursor;
 import com.ncov.module.controller.dto.AddressDto;
 import com.ncov.module.controller.dto.MaterialDto;
 import com.ncov.module.controller.request.material.MaterialRequest;
 import com.ncov.module.controller.resp.material.MaterialResponse;
+import com.ncov.module.controller.resp.material.MaterialReviewResult;
 import com.ncov.module.entity.MaterialSuppliedEntity;
 import com.ncov.module.entity.UserInfoEntity;
 import com.ncov.module.mapper.MaterialSuppliedMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Date;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 
 @Service
 @Slf4j
-public class MaterialSuppliedService extends ServiceImpl<MaterialSuppliedMapper, MaterialSuppliedEntity> {
+public class MaterialSuppliedService extends AbstractService<MaterialSuppliedMapper, MaterialSuppliedEntity> {
+
+    private static final int INSERT_BATCH_SIZE = 200;
 
     @Autowired
     private MaterialSuppliedMapper materialSuppliedMapper;
     @Autowired
     private UserInfoService userInfoService;
+    @Autowired
+    private MaterialCountService materialCountService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private ThumbnailService thumbnailService;
 
     /**
      * 根据相关条件，查询物料供应分页列表
      *
      * @return
      */
+    @ReplicaRead
     public com.ncov.module.controller.resp.Page<MaterialResponse> getSuppliedPageList(
-            Integer pageNum, Integer pageSize, String category) {
+            Integer pageNum, Integer pageSize, String category, String cursor, boolean withTotal) {
         LambdaQueryWrapper<MaterialSuppliedEntity> queryWrapper = new LambdaQueryWrapper<MaterialSuppliedEntity>()
                 .ne(MaterialSuppliedEntity::getMaterialSuppliedStatus, MaterialStatus.PENDING.name())
-                .orderByDesc(MaterialSuppliedEntity::getGmtCreated);
+                .orderByDesc(MaterialSuppliedEntity::getGmtCreated)
+                .orderByDesc(MaterialSuppliedEntity::getId);
         if (isNotEmpty(category)) {
             queryWrapper.eq(MaterialSuppliedEntity::getMaterialSuppliedCategory, category);
         }
+        if (isNotEmpty(cursor)) {
+            return getSuppliedPageAfter(PageCursor.decode(cursor), pageNum, pageSize, queryWrapper,
+                    withTotal ? materialCountService.getPublishedCount(MaterialType.SUPPLIED, category) : null);
+        }
+
+        // 优先使用内存中的近似总数，尚未对账完成时才由分页插件执行COUNT
+        Long approximateTotal = withTotal ? materialCountService.getPublishedCount(MaterialType.SUPPLIED, category) : null;
+        boolean searchCount = withTotal && Objects.isNull(approximateTotal);
         Page<MaterialSuppliedEntity> results = materialSuppliedMapper.selectPage(
-                new Page<MaterialSuppliedEntity>().setCurrent(pageNum).setSize(pageSize),
+                new Page<MaterialSuppliedEntity>(pageNum, pageSize, searchCount),
                 queryWrapper);
         return com.ncov.module.controller.resp.Page.<MaterialResponse>builder()
                 .data(carry(results.getRecords()))
                 .page(pageNum)
                 .pageSize(pageSize)
-                .total(results.getTotal())
+                .total(searchCount ? Long.valueOf(results.getTotal()) : approximateTotal)
+                .cursor(nextCursor(results.getRecords(), pageSize))
+                .build();
+    }
+
+    /**
+     * 按全文检索给出的排序取一页物资，只查询本页的id，结果保持检索排序，未公开或已删除的物资跳过
+     *
+     * @param total 检索命中总数，不受检索返回条数上限的限制
+     */
+    @ReplicaRead
+    public com.ncov.module.controller.resp.Page<MaterialResponse> getSuppliedPageByIds(
+            List<Long> rankedIds, long total, Integer pageNum, Integer pageSize) {
+        return selectPageByIds(rankedIds, total, pageNum, pageSize, pageIds -> materialSuppliedMapper.selectList(
+                new LambdaQueryWrapper<MaterialSuppliedEntity>()
+                        .in(MaterialSuppliedEntity::getId, pageIds)
+                        .ne(MaterialSuppliedEntity::getMaterialSuppliedStatus, MaterialStatus.PENDING.name())),
+                MaterialSuppliedEntity::getId, this::carry);
+    }
+
+    /**
+     * 从游标位置继续查询下一页，按(gmt_created, id)定位，不走OFFSET和COUNT，深分页与首页代价相同
+     */
+    private com.ncov.module.controller.resp.Page<MaterialResponse> getSuppliedPageAfter(
+            PageCursor after, Integer pageNum, Integer pageSize, LambdaQueryWrapper<MaterialSuppliedEntity> queryWrapper,
+            Long total) {
+        queryWrapper.and(wrapper -> wrapper
+                .lt(MaterialSuppliedEntity::getGmtCreated, after.getGmtCreated())
+                .or(nested -> nested
+                        .eq(MaterialSuppliedEntity::getGmtCreated, after.getGmtCreated())
+                        .lt(MaterialSuppliedEntity::getId, after.getId())))
+                .last("limit " + pageSize);
+        List<MaterialSuppliedEntity> records = materialSuppliedMapper.selectList(queryWrapper);
+        return com.ncov.module.controller.resp.Page.<MaterialResponse>builder()
+                .data(carry(records))
+                .page(pageNum)
+                .pageSize(pageSize)
+                .total(total)
+                .cursor(nextCursor(records, pageSize))
                 .build();
     }
 
@@ -67,8 +131,11 @@ public class MaterialSuppliedService extends ServiceImpl<MaterialSuppliedMapper,
         if (user.isVerified()) {
             materials.forEach(MaterialSuppliedEntity::approve);
         }
-        saveBatch(materials);
-        return carry(materials);
+        insertAll(materials);
+        List<MaterialResponse> responses = carry(materials);
+        responses.forEach(response -> eventPublisher.publishEvent(
+                MaterialChangedEvent.created(MaterialType.SUPPLIED, response)));
+        return responses;
     }
 
     @Transactional(rollbackFor = Exception.class)
@@ -79,38 +146,111 @@ public class MaterialSuppliedService extends ServiceImpl<MaterialSuppliedMapper,
         }
         MaterialDto materialDto = material.getMaterials().get(0);
         AddressDto address = material.getAddress();
-        MaterialSuppliedEntity entity = MaterialSuppliedEntity.builder()
-                .id(materialId)
-                .country(address.getCountry())
-                .province(address.getProvince())
-                .city(address.getCity())
-                .district(address.getDistrict())
-                .streetAddress(address.getStreetAddress())
-                .materialSuppliedContactorName(material.getContactorName())
-                .materialSuppliedContactorPhone(material.getContactorPhone())
-                .materialSuppliedOrganizationName(material.getOrganisationName())
-                .materialSuppliedComment(material.getComment())
-                .materialSuppliedImageUrls(ImageUtils.joinImageUrls(materialDto.getImageUrls()))
-                .materialSuppliedName(materialDto.getName())
-                .materialSuppliedCategory(materialDto.getCategory())
-                .materialSuppliedQuantity(materialDto.getQuantity())
-                .materialSuppliedStandard(materialDto.getStandard())
-                .gmtModified(new Date())
-                .build();
-        updateById(entity);
-        return carry(entity);
+        MaterialSuppliedEntity entity = copyOf(presentMaterial);
+        entity.setId(materialId);
+        setIfPresent(address.getCountry(), entity::setCountry);
+        setIfPresent(address.getProvince(), entity::setProvince);
+        setIfPresent(address.getCity(), entity::setCity);
+        setIfPresent(address.getDistrict(), entity::setDistrict);
+        setIfPresent(address.getStreetAddress(), entity::setStreetAddress);
+        setIfPresent(material.getContactorName(), entity::setMaterialSuppliedContactorName);
+        setIfPresent(material.getContactorPhone(), entity::setMaterialSuppliedContactorPhone);
+        setIfPresent(material.getOrganisationName(), entity::setMaterialSuppliedOrganizationName);
+        setIfPresent(material.getComment(), entity::setMaterialSuppliedComment);
+        setIfPresent(materialDto.getImageUrls(),
+                urls -> entity.setMaterialSuppliedImageUrls(ImageUtils.joinImageUrls(urls)));
+        setIfPresent(materialDto.getName(), entity::setMaterialSuppliedName);
+        setIfPresent(materialDto.getCategory(), entity::setMaterialSuppliedCategory);
+        setIfPresent(materialDto.getQuantity(), entity::setMaterialSuppliedQuantity);
+        setIfPresent(materialDto.getStandard(), entity::setMaterialSuppliedStandard);
+        entity.setGmtModified(new Date());
+        updateChangedColumns(presentMaterial, entity);
+        MaterialResponse after = carry(entity);
+        eventPublisher.publishEvent(new MaterialChangedEvent(MaterialType.SUPPLIED, carry(presentMaterial), after));
+        return after;
     }
 
     public void approve(Long id) {
         MaterialSuppliedEntity material = getById(id);
+        MaterialSuppliedEntity original = copyOf(material);
         material.approve();
-        updateById(material);
+        updateChangedColumns(original, material);
+        eventPublisher.publishEvent(new MaterialChangedEvent(MaterialType.SUPPLIED, carry(original), carry(material)));
     }
 
     public void reject(Long id, String message) {
         MaterialSuppliedEntity material = getById(id);
+        MaterialSuppliedEntity original = copyOf(material);
         material.reject(message);
-        updateById(material);
+        updateChangedColumns(original, material);
+        eventPublisher.publishEvent(new MaterialChangedEvent(MaterialType.SUPPLIED, carry(original), carry(material)));
+    }
+
+    /**
+     * 批量审核通过，只处理待审核的物资，返回每个ID的处理结果
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public List<MaterialReviewResult> batchApprove(List<Long> ids) {
+        return batchReview(ids, MaterialSuppliedEntity::approve, wrapper -> wrapper
+                .set(MaterialSuppliedEntity::getMaterialSuppliedStatus, MaterialStatus.PUBLISHED.name())
+                .set(MaterialSuppliedEntity::getReviewMessage, ""));
+    }
+
+    /**
+     * 批量驳回，只处理待审核的物资，返回每个ID的处理结果
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public List<MaterialReviewResult> batchReject(List<Long> ids, String message) {
+        return batchReview(ids, material -> material.reject(message), wrapper -> wrapper
+                .set(MaterialSuppliedEntity::getReviewMessage, message));
+    }
+
+    /**
+     * 锁定并读取整批物资后，对其中待审核的物资执行一条 UPDATE ... WHERE id IN (...) AND status = 'PENDING'，
+     * 无论批次大小都只需两次数据库往返
+     */
+    private List<MaterialReviewResult> batchReview(List<Long> ids, Consumer<MaterialSuppliedEntity> review,
+                                                   Consumer<LambdaUpdateWrapper<MaterialSuppliedEntity>> assignments) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        Map<Long, MaterialSuppliedEntity> materials = materialSuppliedMapper.selectList(
+                new LambdaQueryWrapper<MaterialSuppliedEntity>()
+                        .in(MaterialSuppliedEntity::getId, distinctIds)
+                        .last("for update"))
+                .stream()
+                .collect(Collectors.toMap(MaterialSuppliedEntity::getId, Function.identity()));
+        List<MaterialSuppliedEntity> pending = materials.values().stream()
+                .filter(material -> !material.isApproved())
+                .collect(Collectors.toList());
+        // 审核会改变实体的状态，处理结果按审核前是否待审核判断
+        Set<Long> pendingIds = pending.stream().map(MaterialSuppliedEntity::getId).collect(Collectors.toSet());
+        if (!pending.isEmpty()) {
+            LambdaUpdateWrapper<MaterialSuppliedEntity> wrapper = new LambdaUpdateWrapper<MaterialSuppliedEntity>()
+                    .set(MaterialSuppliedEntity::getGmtModified, new Date())
+                    .in(MaterialSuppliedEntity::getId, pendingIds)
+                    .eq(MaterialSuppliedEntity::getMaterialSuppliedStatus, MaterialStatus.PENDING.name());
+            assignments.accept(wrapper);
+            materialSuppliedMapper.update(null, wrapper);
+            pending.forEach(material -> {
+                MaterialResponse before = carry(material);
+                review.accept(material);
+                eventPublisher.publishEvent(new MaterialChangedEvent(MaterialType.SUPPLIED, before, carry(material)));
+            });
+        }
+        log.info("Batch reviewed supplied materials, requested=[{}], updated=[{}]",
+                distinctIds.size(), pending.size());
+        return distinctIds.stream()
+                .map(id -> MaterialReviewResult.builder()
+                        .id(id)
+                        .outcome(getReviewOutcome(id, materials, pendingIds).name())
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    private static ReviewOutcome getReviewOutcome(Long id, Map<Long, MaterialSuppliedEntity> materials, Set<Long> pendingIds) {
+        if (!materials.containsKey(id)) {
+            return ReviewOutcome.NOT_FOUND;
+        }
+        return pendingIds.contains(id) ? ReviewOutcome.UPDATED : ReviewOutcome.NOT_PENDING;
     }
 
     public com.ncov.module.controller.resp.Page<MaterialResponse> getAllSuppliedMaterialsPage(
@@ -127,10 +267,29 @@ public class MaterialSuppliedService extends ServiceImpl<MaterialSuppliedMapper,
                 .build();
     }
 
+    /**
+     * 以流式查询按与分页列表相同的条件逐行导出物资，不经过分页插件，也不在内存中累积结果
+     */
+    @ReplicaRead
+    public void exportSuppliedMaterials(
+            String category, String status, String contactPhone, Long userId, Consumer<MaterialResponse> consumer) {
+        materialSuppliedMapper.streamAll(
+                getFilterQueryWrapper(category, status, contactPhone, userId).eq(MaterialSuppliedEntity::getDeleted, 0),
+                context -> consumer.accept(carry(context.getResultObject())));
+    }
+
     public MaterialResponse getDetail(Long id) {
         return carry(getById(id));
     }
 
+    /**
+     * 查询所有已公开的物资，仅用于启动时构建内存索引
+     */
+    public List<MaterialResponse> getAllPublishedMaterials() {
+        return carry(materialSuppliedMapper.selectList(new LambdaQueryWrapper<MaterialSuppliedEntity>()
+                .ne(MaterialSuppliedEntity::getMaterialSuppliedStatus, MaterialStatus.PENDING.name())));
+    }
+
     private LambdaQueryWrapper<MaterialSuppliedEntity> getFilterQueryWrapper(String category,
                                                                              String status,
                                                                              String contactPhone,
@@ -152,6 +311,21 @@ public class MaterialSuppliedService extends ServiceImpl<MaterialSuppliedMapper,
         return queryWrapper;
     }
 
+    /**
+     * 以多行INSERT写入并回填主键，每条语句至多{@link #INSERT_BATCH_SIZE}行，一次发布通常只需一次数据库往返
+     */
+    private void insertAll(List<MaterialSuppliedEntity> materials) {
+        Lists.partition(materials, INSERT_BATCH_SIZE).forEach(materialSuppliedMapper::insertAll);
+    }
+
+    private String nextCursor(List<MaterialSuppliedEntity> records, Integer pageSize) {
+        if (records.isEmpty() || records.size() < pageSize) {
+            return null;
+        }
+        MaterialSuppliedEntity last = records.get(records.size() - 1);
+        return PageCursor.encode(last.getGmtCreated(), last.getId());
+    }
+
     private MaterialSuppliedEntity getById(Long id) {
         return Optional.ofNullable(materialSuppliedMapper.selectById(id))
                 .orElseThrow(MaterialNotFoundException::new);
@@ -177,13 +351,17 @@ public class MaterialSuppliedService extends ServiceImpl<MaterialSuppliedMapper,
                 .contactorPhone(material.getMaterialSuppliedContactorPhone())
                 .gmtCreated(material.getGmtCreated())
                 .gmtModified(material.getGmtModified())
-                .id(material.getId().toString())
+                .id(Objects.toString(material.getId(), null))
                 .material(MaterialDto.builder()
                         .name(material.getMaterialSuppliedName())
                         .quantity(material.getMaterialSuppliedQuantity())
                         .standard(material.getMaterialSuppliedStandard())
                         .category(material.getMaterialSuppliedCategory())
                         .imageUrls(material.getImageUrls())
+                        .thumbnailUrls(ImageUtils.getDerivativeUrls(material.getImageUrls(), ImageDerivative.THUMBNAIL,
+                                thumbnailService::hasDerivatives))
+                        .previewUrls(ImageUtils.getDerivativeUrls(material.getImageUrls(), ImageDerivative.PREVIEW,
+                                thumbnailService::hasDerivatives))
                         .build())
                 .organisationName(material.getMaterialSuppliedOrganizationName())
                 .status(material.getMaterialSuppliedStatus())
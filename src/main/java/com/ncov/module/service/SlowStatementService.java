@@ -0,0 +1,76 @@
+package com.ncov.module.service;
+
+import com.ncov.module.common.exception.SlowStatementNotFoundException;
+import com.ncov.module.common.mybatis.SlowStatement;
+import com.ncov.module.common.mybatis.SlowStatementInterceptor;
+import com.ncov.module.controller.resp.statement.SlowStatementResponse;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.apache.commons.lang3.StringUtils.abbreviate;
+
+/**
+ * 慢SQL记录的查询，执行计划在请求时用记录的SQL和绑定值重新EXPLAIN，不在记录时执行
+ */
+@Service
+@AllArgsConstructor
+public class SlowStatementService {
+
+    private static final int MAX_PARAMETER_LENGTH = 200;
+
+    private final SlowStatementInterceptor slowStatementInterceptor;
+    private final DataSource dataSource;
+
+    public List<SlowStatementResponse> getRecent() {
+        return slowStatementInterceptor.getRecent().stream()
+                .map(SlowStatementService::carry)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 当前的执行计划，每行为一个列名到值的映射
+     */
+    public List<Map<String, Object>> explain(Long id) throws SQLException {
+        SlowStatement statement = slowStatementInterceptor.get(id)
+                .orElseThrow(SlowStatementNotFoundException::new);
+        List<Map<String, Object>> plan = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.getSql())) {
+            List<Object> parameters = statement.getParameters();
+            for (int i = 0; i < parameters.size(); i++) {
+                explain.setObject(i + 1, parameters.get(i));
+            }
+            try (ResultSet rows = explain.executeQuery()) {
+                ResultSetMetaData columns = rows.getMetaData();
+                while (rows.next()) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    for (int column = 1; column <= columns.getColumnCount(); column++) {
+                        row.put(columns.getColumnLabel(column), rows.getObject(column));
+                    }
+                    plan.add(row);
+                }
+            }
+        }
+        return plan;
+    }
+
+    private static SlowStatementResponse carry(SlowStatement statement) {
+        return SlowStatementResponse.builder()
+                .id(statement.getId())
+                .mapperId(statement.getMapperId())
+                .sql(statement.getSql())
+                .parameters(statement.getParameters().stream()
+                        .map(value -> abbreviate(Objects.toString(value, null), MAX_PARAMETER_LENGTH))
+                        .collect(Collectors.toList()))
+                .rows(statement.getRows())
+                .error(abbreviate(statement.getError(), MAX_PARAMETER_LENGTH))
+                .elapsedMillis(statement.getElapsedMillis())
+                .occurredAt(new Date(statement.getOccurredAt()))
+                .build();
+    }
+}
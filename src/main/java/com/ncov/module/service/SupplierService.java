@@ -22,11 +22,13 @@ import java.util.*;
 public class SupplierService extends ServiceImpl<SupplierMapper, SupplierInfoEntity> {
 
     private final UserInfoService userInfoService;
+    private final UserOrganisationCache userOrganisationCache;
 
     @Transactional(rollbackFor = Exception.class)
     public SupplierResponse signUp(SupplierSignUpRequest supplierSignUpRequest) {
         UserInfoEntity userInfo = this.saveUserInfo(supplierSignUpRequest);
         SupplierInfoEntity supplierInfo = this.saveSupplierInfo(supplierSignUpRequest, userInfo.getId());
+        userOrganisationCache.invalidate(userInfo.getId());
         return SupplierResponse.builder()
                 .id(supplierInfo.getId().toString())
                 .contactorName(supplierInfo.getMaterialSupplierContactorName())
@@ -0,0 +1,260 @@
+package com.ncov.module.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.ncov.module.client.JdOssClient;
+import com.ncov.module.common.enums.ImageDerivative;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.*;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 图片衍生图(缩略图、预览图)的后台生成
+ *
+ * 上传完成后提交任务，由固定大小的线程池从对象存储读回原图，按{@link ImageDerivative}的尺寸缩放、
+ * 重新压缩为JPEG后写回对象存储。队列已满时丢弃任务，列表仍可使用原图，不影响上传本身。
+ *
+ * 只有确认衍生图都已存在的原图才返回衍生图URL，列表等读取只查询本地记录，不提交任务也不访问对象存储。
+ * 被丢弃的任务、重启前生成的衍生图由定时对账补齐：按名称顺序分批列出对象存储中的原图，提交未确认的原图，
+ * 队列满时停在当前位置，下次从该处继续；生成失败的原图在retryDelay之后才再次尝试。
+ */
+@Service
+@Slf4j
+public class ThumbnailService {
+
+    private final JdOssClient jdOssClient;
+    private final ThreadPoolExecutor executor;
+    private final float quality;
+    private final long maxPixels;
+    private final AtomicLong generatedImages = new AtomicLong();
+    private final AtomicLong failedImages = new AtomicLong();
+    private final AtomicLong droppedImages = new AtomicLong();
+    private final Set<String> queuedImages = ConcurrentHashMap.newKeySet();
+    private final Cache<String, Boolean> readyImages;
+    private final Cache<String, Boolean> failedImageNames;
+    private final int reconcileBatchSize;
+    private String reconcileCursor;
+
+    public ThumbnailService(JdOssClient jdOssClient,
+                            @Value("${image.thumbnail.workers:2}") int workers,
+                            @Value("${image.thumbnail.queueCapacity:200}") int queueCapacity,
+                            @Value("${image.thumbnail.quality:0.8}") float quality,
+                            @Value("${image.thumbnail.maxPixels:50000000}") long maxPixels,
+                            @Value("${image.thumbnail.readyImagesSize:100000}") long readyImagesSize,
+                            @Value("${image.thumbnail.retryDelaySeconds:600}") long retryDelaySeconds,
+                            @Value("${image.thumbnail.reconcileBatchSize:1000}") int reconcileBatchSize) {
+        this.jdOssClient = jdOssClient;
+        this.reconcileBatchSize = reconcileBatchSize;
+        this.quality = quality;
+        this.maxPixels = maxPixels;
+        // 淘汰只会让该原图在下次对账时重新确认，不会返回不存在的衍生图
+        this.readyImages = CacheBuilder.newBuilder().maximumSize(readyImagesSize).build();
+        this.failedImageNames = CacheBuilder.newBuilder().maximumSize(readyImagesSize)
+                .expireAfterWrite(retryDelaySeconds, TimeUnit.SECONDS).build();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "thumbnail-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 提交原图的衍生图生成任务，不等待完成；同一原图已在队列中时不重复提交
+     */
+    public void submit(String imageName) {
+        if (!queuedImages.add(imageName)) {
+            return;
+        }
+        // 队列满时提前丢弃，避免逐个构造拒绝异常
+        if (executor.getQueue().remainingCapacity() == 0) {
+            queuedImages.remove(imageName);
+            droppedImages.incrementAndGet();
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(imageName);
+                } finally {
+                    queuedImages.remove(imageName);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queuedImages.remove(imageName);
+            droppedImages.incrementAndGet();
+            log.debug("Thumbnail queue is full, skipped image [{}]", imageName);
+        }
+    }
+
+    /**
+     * 原图的衍生图是否都已确认存在，只查询本地记录
+     */
+    public boolean hasDerivatives(String imageName) {
+        return Objects.nonNull(readyImages.getIfPresent(imageName));
+    }
+
+    /**
+     * 定时对账，为未确认的原图提交生成任务，每次至多列出一批原图
+     */
+    @Scheduled(fixedDelayString = "${image.thumbnail.reconcileIntervalMs:60000}")
+    public synchronized void reconcile() {
+        try {
+            List<String> imageNames = jdOssClient.listImages(reconcileCursor, reconcileBatchSize);
+            for (String imageName : imageNames) {
+                if (executor.getQueue().remainingCapacity() == 0) {
+                    log.debug("Thumbnail queue is full, reconcile paused at [{}]", reconcileCursor);
+                    return;
+                }
+                if (Objects.isNull(readyImages.getIfPresent(imageName))
+                        && Objects.isNull(failedImageNames.getIfPresent(imageName))) {
+                    submit(imageName);
+                }
+                reconcileCursor = imageName;
+            }
+            if (imageNames.size() < reconcileBatchSize) {
+                reconcileCursor = null;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to reconcile thumbnails, cursor=[{}]", reconcileCursor, e);
+        }
+    }
+
+    public long getGeneratedImages() {
+        return generatedImages.get();
+    }
+
+    public long getFailedImages() {
+        return failedImages.get();
+    }
+
+    public long getDroppedImages() {
+        return droppedImages.get();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void generate(String imageName) {
+        try {
+            List<ImageDerivative> missing = Arrays.stream(ImageDerivative.values())
+                    .filter(derivative -> !jdOssClient.exists(derivative.getImageName(imageName)))
+                    .collect(Collectors.toList());
+            if (missing.isEmpty()) {
+                readyImages.put(imageName, Boolean.TRUE);
+                return;
+            }
+            BufferedImage original = read(imageName, missing);
+            if (Objects.isNull(original)) {
+                failedImageNames.put(imageName, Boolean.TRUE);
+                return;
+            }
+            for (ImageDerivative derivative : missing) {
+                byte[] jpeg = encode(scale(original, derivative.getMaxDimension()));
+                jdOssClient.putDerivative(derivative.getImageName(imageName), jpeg, "image/jpeg");
+            }
+            readyImages.put(imageName, Boolean.TRUE);
+            generatedImages.incrementAndGet();
+            log.debug("Thumbnails generated, image=[{}], derivatives=[{}]", imageName, missing);
+        } catch (IOException | RuntimeException e) {
+            failedImageNames.put(imageName, Boolean.TRUE);
+            failedImages.incrementAndGet();
+            log.warn("Failed to generate thumbnails, image=[{}]", imageName, e);
+        }
+    }
+
+    /**
+     * 读取原图，像素数超限或不是可识别的图片时返回null；原图远大于目标尺寸时解码阶段即抽样，减少内存占用
+     */
+    private BufferedImage read(String imageName, List<ImageDerivative> derivatives) throws IOException {
+        int largest = derivatives.stream().mapToInt(ImageDerivative::getMaxDimension).max().orElse(1);
+        try (InputStream input = jdOssClient.download(imageName);
+             ImageInputStream imageInput = ImageIO.createImageInputStream(input)) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInput);
+            if (!readers.hasNext()) {
+                log.warn("Unsupported image format, image=[{}]", imageName);
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxPixels) {
+                    log.warn("Image too large for thumbnails, image=[{}], size=[{}x{}]", imageName, width, height);
+                    return null;
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (largest * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage original, int maxDimension) {
+        double ratio = Math.min(1.0, (double) maxDimension / Math.max(original.getWidth(), original.getHeight()));
+        int width = Math.max(1, (int) Math.round(original.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(original.getHeight() * ratio));
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(original, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    private byte[] encode(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream imageOutput = new MemoryCacheImageOutputStream(output)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.setOutput(imageOutput);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+}
@@ -15,6 +15,7 @@ import com.ncov.module.controller.resp.user.UserResponse;
 import com.ncov.module.entity.HospitalInfoEntity;
 import com.ncov.module.entity.SupplierInfoEntity;
 import com.ncov.module.entity.UserInfoEntity;
+import com.ncov.module.entity.UserOrganisationEntity;
 import com.ncov.module.mapper.HospitalInfoMapper;
 import com.ncov.module.mapper.SupplierMapper;
 import com.ncov.module.mapper.UserInfoMapper;
@@ -42,17 +43,20 @@ public class UserInfoService extends AbstractService<UserInfoMapper, UserInfoEnt
     private final UserInfoMapper userInfoMapper;
     private final HospitalInfoMapper hospitalInfoMapper;
     private final SupplierMapper supplierMapper;
+    private final UserOrganisationCache userOrganisationCache;
     private final String jwtSecret;
     private final Long jwtExpirationInMs;
 
     public UserInfoService(UserInfoMapper userInfoMapper,
                            HospitalInfoMapper hospitalInfoMapper,
                            SupplierMapper supplierMapper,
+                           UserOrganisationCache userOrganisationCache,
                            @Value("${security.jwtSecret}") String jwtSecret,
                            @Value("${security.jwtExpirationInMs}") Long jwtExpirationInMs) {
         this.userInfoMapper = userInfoMapper;
         this.hospitalInfoMapper = hospitalInfoMapper;
         this.supplierMapper = supplierMapper;
+        this.userOrganisationCache = userOrganisationCache;
         this.jwtSecret = jwtSecret;
         this.jwtExpirationInMs = jwtExpirationInMs;
     }
@@ -70,8 +74,10 @@ public class UserInfoService extends AbstractService<UserInfoMapper, UserInfoEnt
 
     public SignInResponse signIn(String telephone, String password) {
         log.info("Signing in, phone=[{}]", telephone);
-        UserInfoEntity user = Optional.ofNullable(userInfoMapper.findByUserPhone(telephone))
+        UserOrganisationEntity userOrganisation = Optional.ofNullable(
+                userInfoMapper.findWithOrganisationByUserPhone(telephone))
                 .orElseThrow(() -> new BadCredentialsException("User not exist"));
+        UserInfoEntity user = userOrganisation.getUser();
         if (!user.getUserPasswordSHA256().equals(DigestUtils.sha256Hex(password))) {
             log.warn("Password is incorrect, phone=[{}]", telephone);
             throw new BadCredentialsException("Incorrect password");
@@ -80,7 +86,7 @@ public class UserInfoService extends AbstractService<UserInfoMapper, UserInfoEnt
         JwtBuilder jwtBuilder = new DefaultJwtBuilder()
                 .signWith(SignatureAlgorithm.HS256, jwtSecret);
 
-        addOrganisationClaimToJwt(user, jwtBuilder);
+        addOrganisationClaimToJwt(userOrganisation, jwtBuilder);
 
         Date now = new Date();
         Date jwtExpirationTime = new Date(now.getTime() + jwtExpirationInMs);
@@ -115,21 +121,25 @@ public class UserInfoService extends AbstractService<UserInfoMapper, UserInfoEnt
 
     public UserDetailResponse getDetail(Long id) {
         UserInfoEntity user = getUser(id);
-        HospitalInfoEntity hospital = null;
-        SupplierInfoEntity supplier = null;
-        if (user.isHospital()) {
-            hospital = hospitalInfoMapper.selectByHospitalCreatorUserId(user.getId());
-        }
-        if (user.isSupplier()) {
-            supplier = supplierMapper.selectByMaterialSupplierCreatorUserId(user.getId());
-        }
-        return toDetailResponse(user, hospital, supplier);
+        UserOrganisationCache.UserOrganisation organisation = userOrganisationCache.get(user.getId(), () -> {
+            HospitalInfoEntity hospital = null;
+            SupplierInfoEntity supplier = null;
+            if (user.isHospital()) {
+                hospital = hospitalInfoMapper.selectByHospitalCreatorUserId(user.getId());
+            }
+            if (user.isSupplier()) {
+                supplier = supplierMapper.selectByMaterialSupplierCreatorUserId(user.getId());
+            }
+            return new UserOrganisationCache.UserOrganisation(hospital, supplier);
+        });
+        return toDetailResponse(user, organisation.getHospital(), organisation.getSupplier());
     }
 
     public void verifyUser(Long id) {
         UserInfoEntity user = getUser(id);
         user.verify();
         updateById(user);
+        userOrganisationCache.invalidate(id);
     }
 
     public UserInfoEntity getUser(Long id) {
@@ -151,17 +161,16 @@ public class UserInfoService extends AbstractService<UserInfoMapper, UserInfoEnt
         return query;
     }
 
-    private void addOrganisationClaimToJwt(UserInfoEntity user, JwtBuilder jwtBuilder) {
+    private void addOrganisationClaimToJwt(UserOrganisationEntity userOrganisation, JwtBuilder jwtBuilder) {
+        UserInfoEntity user = userOrganisation.getUser();
         if (user.isHospital()) {
-            HospitalInfoEntity hospital = hospitalInfoMapper.selectByHospitalCreatorUserId(user.getId());
-            jwtBuilder.claim("organisationId", hospital.getId());
-            jwtBuilder.claim("organisationName", hospital.getHospitalName());
+            jwtBuilder.claim("organisationId", userOrganisation.getHospitalId());
+            jwtBuilder.claim("organisationName", userOrganisation.getHospitalName());
             return;
         }
         if (user.isSupplier()) {
-            SupplierInfoEntity supplier = supplierMapper.selectByMaterialSupplierCreatorUserId(user.getId());
-            jwtBuilder.claim("organisationId", supplier.getId());
-            jwtBuilder.claim("organisationName", supplier.getMaterialSupplierName());
+            jwtBuilder.claim("organisationId", userOrganisation.getSupplierId());
+            jwtBuilder.claim("organisationName", userOrganisation.getSupplierName());
         }
     }
 
@@ -0,0 +1,57 @@
+package com.ncov.module.service;
+
+import com.ncov.module.common.cache.AbstractMonitoredCache;
+import com.ncov.module.entity.HospitalInfoEntity;
+import com.ncov.module.entity.SupplierInfoEntity;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 用户ID到所属机构(医院或供应商)的缓存
+ *
+ * 用户详情据此省去每次对机构表的查询。机构注册和用户审核时失效，事务中的失效在提交后执行，
+ * 避免并发的读取在提交前重新加载到旧数据。
+ */
+@Service
+public class UserOrganisationCache extends AbstractMonitoredCache<Long, UserOrganisationCache.UserOrganisation> {
+
+    public UserOrganisationCache(@Value("${user.organisationCache.maximumSize:10000}") long maximumSize,
+                                 @Value("${user.organisationCache.expireAfterWriteMinutes:60}") long expireAfterWriteMinutes) {
+        super("user-organisations", maximumSize, expireAfterWriteMinutes, TimeUnit.MINUTES);
+    }
+
+    public UserOrganisation get(Long userId, Supplier<UserOrganisation> loader) {
+        return load(userId, loader);
+    }
+
+    public void invalidate(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        } else {
+            evict(userId);
+        }
+    }
+
+    /**
+     * 用户所属机构，非医院或供应商用户两者均为空
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class UserOrganisation {
+
+        private final HospitalInfoEntity hospital;
+        private final SupplierInfoEntity supplier;
+    }
+}
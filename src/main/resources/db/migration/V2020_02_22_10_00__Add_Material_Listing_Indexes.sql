@@ -0,0 +1,19 @@
+-- 公开列表：status <> 'PENDING' [and category = ?] and deleted = 0 order by gmt_created desc, id desc
+-- InnoDB二级索引末尾隐含主键，(..., gmt_created)即按(gmt_created, id)有序，游标分页和排序都不需要filesort
+alter table material_required
+add index idx_material_required_listing (deleted, gmt_created),
+add index idx_material_required_category_listing (material_required_category, deleted, gmt_created),
+-- 管理端按状态、联系电话、发布用户筛选，均按gmt_created倒序
+add index idx_material_required_status (material_required_status, deleted, gmt_created),
+add index idx_material_required_contactor_phone (material_required_contactor_phone, deleted, gmt_created),
+add index idx_material_required_user (material_required_user_id, deleted, gmt_created),
+-- 按类别、状态分组计数，覆盖索引
+add index idx_material_required_counts (deleted, material_required_category, material_required_status);
+
+alter table material_supplied
+add index idx_material_supplied_listing (deleted, gmt_created),
+add index idx_material_supplied_category_listing (material_supplied_category, deleted, gmt_created),
+add index idx_material_supplied_status (material_supplied_status, deleted, gmt_created),
+add index idx_material_supplied_contactor_phone (material_supplied_contactor_phone, deleted, gmt_created),
+add index idx_material_supplied_user (material_supplied_user_id, deleted, gmt_created),
+add index idx_material_supplied_counts (deleted, material_supplied_category, material_supplied_status);
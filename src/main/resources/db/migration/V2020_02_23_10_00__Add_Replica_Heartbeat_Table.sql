@@ -0,0 +1,9 @@
+-- 读写分离开启时由各应用节点定时在主库更新，复制到只读副本后用于计算复制延迟
+create table if not exists replica_heartbeat
+(
+    `id`      int         not null,
+    `beat_at` datetime(3) not null,
+    primary key (`id`)
+);
+
+insert into replica_heartbeat (id, beat_at) values (1, now(3));
@@ -0,0 +1,138 @@
+package com.ncov.module.client;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.*;
+import com.ncov.module.common.exception.FileTooLargeException;
+import com.ncov.module.common.exception.UploadRejectedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class JdOssClientTest {
+
+    private AmazonS3 s3;
+    private JdOssClient jdOssClient;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        s3 = mock(AmazonS3.class);
+        meterRegistry = new SimpleMeterRegistry();
+        InitiateMultipartUploadResult initiated = new InitiateMultipartUploadResult();
+        initiated.setUploadId("upload-1");
+        when(s3.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenReturn(initiated);
+        when(s3.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(((UploadPartRequest) invocation.getArgument(0)).getPartNumber());
+            result.setETag("etag");
+            return result;
+        });
+        jdOssClient = new JdOssClient(s3, "https://oss.com", "4ncov", 4, 10, 1, 10, meterRegistry);
+    }
+
+    @Test
+    void should_put_object_directly_when_upload_image_given_known_small_length() throws IOException {
+        String url = jdOssClient.uploadImage("a.png", new ByteArrayInputStream(new byte[3]), "image/png", 3);
+
+        assertEquals("https://oss.com/4ncov/images/a.png", url);
+        verify(s3).putObject(eq("4ncov"), eq("images/a.png"), any(InputStream.class), any(ObjectMetadata.class));
+        verify(s3, never()).initiateMultipartUpload(any());
+    }
+
+    @Test
+    void should_upload_in_parts_when_upload_image_given_unknown_length_larger_than_part() throws IOException {
+        jdOssClient.uploadImage("a.png", new ByteArrayInputStream(new byte[9]), "image/png", -1);
+
+        ArgumentCaptor<UploadPartRequest> parts = ArgumentCaptor.forClass(UploadPartRequest.class);
+        verify(s3, times(3)).uploadPart(parts.capture());
+        assertEquals(4L, parts.getAllValues().get(0).getPartSize());
+        assertEquals(1L, parts.getAllValues().get(2).getPartSize());
+        verify(s3).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+        assertEquals(1L, jdOssClient.getStats().getMultipartUploads().longValue());
+        assertEquals(9L, jdOssClient.getStats().getUploadedBytes().longValue());
+        assertEquals(9.0, meterRegistry.get("oss.upload.bytes").counter().count(), 1e-9);
+        assertEquals(1L, meterRegistry.get("oss.upload").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void should_abort_multipart_upload_when_upload_image_given_stream_exceeds_max_size() {
+        assertThrows(FileTooLargeException.class, () ->
+                jdOssClient.uploadImage("a.png", new ByteArrayInputStream(new byte[20]), "image/png", -1));
+
+        verify(s3).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3, never()).completeMultipartUpload(any());
+        assertEquals(1L, jdOssClient.getStats().getFailedUploads().longValue());
+        assertEquals(1L, meterRegistry.get("oss.upload").tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    void should_count_image_only_when_copied_given_staged_upload_reusing_caller_buffer() throws IOException {
+        byte[] buffer = new byte[4];
+        try (JdOssClient.UploadPermit permit = jdOssClient.acquireUploadPermit(-1)) {
+            long size = jdOssClient.uploadBuffered(permit, "staging/a.png", buffer, 4,
+                    new ByteArrayInputStream(new byte[5]), "image/png", true);
+            assertEquals(9L, size);
+            assertEquals(0L, jdOssClient.getStats().getCompletedUploads().longValue());
+            assertEquals(0L, jdOssClient.getStats().getUploadedBytes().longValue());
+
+            jdOssClient.copy("staging/a.png", "a.png", size);
+        }
+
+        verify(s3, times(3)).uploadPart(any(UploadPartRequest.class));
+        assertEquals(1L, jdOssClient.getStats().getCompletedUploads().longValue());
+        assertEquals(9L, jdOssClient.getStats().getUploadedBytes().longValue());
+        assertEquals(0, jdOssClient.getStats().getInFlightUploads().intValue());
+    }
+
+    @Test
+    void should_reject_upload_when_upload_image_given_all_permits_in_use() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(s3.putObject(anyString(), anyString(), any(InputStream.class), any(ObjectMetadata.class)))
+                .thenAnswer(invocation -> {
+                    started.countDown();
+                    release.await();
+                    return new PutObjectResult();
+                });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> jdOssClient.uploadImage("a.png", new ByteArrayInputStream(new byte[1]),
+                    "image/png", 1));
+            started.await();
+
+            assertThrows(UploadRejectedException.class, () ->
+                    jdOssClient.uploadImage("b.png", new ByteArrayInputStream(new byte[1]), "image/png", 1));
+            assertEquals(1L, jdOssClient.getStats().getRejectedUploads().longValue());
+            assertEquals(1L, meterRegistry.get("oss.upload").tag("outcome", "rejected").timer().count());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void should_not_take_permit_or_count_upload_when_put_derivative_given_all_permits_in_use() {
+        try (JdOssClient.UploadPermit permit = jdOssClient.acquireUploadPermit(3)) {
+            jdOssClient.putDerivative("thumbnail/a.jpg", new byte[3], "image/jpeg");
+        }
+
+        verify(s3).putObject(eq("4ncov"), eq("images/thumbnail/a.jpg"), any(InputStream.class),
+                any(ObjectMetadata.class));
+        assertEquals(0L, jdOssClient.getStats().getCompletedUploads().longValue());
+        assertEquals(0L, jdOssClient.getStats().getUploadedBytes().longValue());
+    }
+}
@@ -0,0 +1,62 @@
+package com.ncov.module.common.cache;
+
+import com.ncov.module.service.MaterialCategoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConditionalGetInterceptorTest {
+
+    private ConditionalGetInterceptor interceptor;
+    private HandlerMethod handler;
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        MaterialCategoryService content = mock(MaterialCategoryService.class);
+        when(content.getContentVersion()).thenReturn("v1");
+        when(content.getLastModified()).thenReturn(-1L);
+        ApplicationContext applicationContext = mock(ApplicationContext.class);
+        when(applicationContext.getBean(MaterialCategoryService.class)).thenReturn(content);
+        interceptor = new ConditionalGetInterceptor(applicationContext);
+        handler = new HandlerMethod(this, ConditionalGetInterceptorTest.class.getDeclaredMethod("annotated"));
+    }
+
+    @Test
+    void should_set_etag_and_cache_control_when_pre_handle_given_no_condition() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/api/material-categories"),
+                response, handler));
+        assertEquals("\"v1\"", response.getHeader("ETag"));
+        assertEquals("max-age=60, public", response.getHeader("Cache-Control"));
+    }
+
+    @Test
+    void should_answer_304_when_pre_handle_given_matching_if_none_match() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/material-categories");
+        request.addHeader("If-None-Match", "\"v1\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(request, response, handler));
+        assertEquals(304, response.getStatus());
+    }
+
+    @Test
+    void should_proceed_when_pre_handle_given_stale_if_none_match() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/material-categories");
+        request.addHeader("If-None-Match", "\"v0\"");
+
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), handler));
+    }
+
+    @ConditionalGet(value = MaterialCategoryService.class, maxAgeSeconds = 60)
+    void annotated() {
+    }
+}
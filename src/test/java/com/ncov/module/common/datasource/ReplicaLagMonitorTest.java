@@ -0,0 +1,107 @@
+package com.ncov.module.common.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaLagMonitorTest {
+
+    private static final long PRIMARY_BEAT = 1_582_000_000_000L;
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replicaDataSource;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private PreparedStatement primarySelect;
+    @Mock
+    private PreparedStatement primaryUpdate;
+    @Mock
+    private ResultSet primaryHeartbeat;
+
+    private Replica replica;
+    private MeterRegistry meterRegistry;
+    private ReplicaLagMonitor monitor;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.initMocks(this);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(primaryConnection.prepareStatement(ReplicaLagMonitor.SELECT_HEARTBEAT)).thenReturn(primarySelect);
+        when(primaryConnection.prepareStatement(ReplicaLagMonitor.UPDATE_HEARTBEAT)).thenReturn(primaryUpdate);
+        when(primarySelect.executeQuery()).thenReturn(primaryHeartbeat);
+        when(primaryHeartbeat.next()).thenReturn(true);
+        when(primaryHeartbeat.getTimestamp(1)).thenReturn(new Timestamp(PRIMARY_BEAT));
+        replica = new Replica("replica-1", replicaDataSource);
+        meterRegistry = new SimpleMeterRegistry();
+        monitor = new ReplicaLagMonitor(primary, Collections.singletonList(replica), 1000, meterRegistry);
+    }
+
+    @Test
+    void should_make_replica_available_and_write_heartbeat_when_check_given_lag_within_limit() throws SQLException {
+        givenReplicaBeat(PRIMARY_BEAT - 300);
+
+        monitor.check();
+
+        assertTrue(replica.isAvailable());
+        assertEquals(300, replica.getLagMillis());
+        assertEquals(300.0, meterRegistry.get("database.replica.lag").tag("replica", "replica-1").gauge().value());
+        verify(primaryUpdate).executeUpdate();
+    }
+
+    @Test
+    void should_make_replica_unavailable_when_check_given_lag_over_limit() throws SQLException {
+        replica.update(0, 1000);
+        givenReplicaBeat(PRIMARY_BEAT - 5000);
+
+        monitor.check();
+
+        assertFalse(replica.isAvailable());
+        assertEquals(5000, replica.getLagMillis());
+    }
+
+    @Test
+    void should_mark_replica_down_when_check_given_replica_unreachable() throws SQLException {
+        replica.update(0, 1000);
+        when(replicaDataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        monitor.check();
+
+        assertFalse(replica.isAvailable());
+        assertEquals(-1, replica.getLagMillis());
+    }
+
+    @Test
+    void should_keep_replica_state_when_check_given_primary_unreachable() throws SQLException {
+        replica.update(200, 1000);
+        when(primary.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        monitor.check();
+
+        assertTrue(replica.isAvailable());
+        verify(replicaDataSource, never()).getConnection();
+    }
+
+    private void givenReplicaBeat(long beat) throws SQLException {
+        Connection connection = mock(Connection.class);
+        PreparedStatement select = mock(PreparedStatement.class);
+        ResultSet heartbeat = mock(ResultSet.class);
+        when(replicaDataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(ReplicaLagMonitor.SELECT_HEARTBEAT)).thenReturn(select);
+        when(select.executeQuery()).thenReturn(heartbeat);
+        when(heartbeat.next()).thenReturn(true);
+        when(heartbeat.getTimestamp(1)).thenReturn(new Timestamp(beat));
+    }
+}
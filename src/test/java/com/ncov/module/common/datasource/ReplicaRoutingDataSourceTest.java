@@ -0,0 +1,133 @@
+package com.ncov.module.common.datasource;
+
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.event.MaterialChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource firstReplica;
+    @Mock
+    private DataSource secondReplica;
+    @Mock
+    private Connection primaryConnection;
+    @Mock
+    private Connection firstReplicaConnection;
+    @Mock
+    private Connection secondReplicaConnection;
+
+    private Replica first;
+    private Replica second;
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        MockitoAnnotations.initMocks(this);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(firstReplica.getConnection()).thenReturn(firstReplicaConnection);
+        when(secondReplica.getConnection()).thenReturn(secondReplicaConnection);
+        first = new Replica("replica-1", firstReplica);
+        second = new Replica("replica-2", secondReplica);
+        first.update(0, 1000);
+        second.update(0, 1000);
+        routing = new ReplicaRoutingDataSource(primary, Arrays.asList(first, second), 60_000,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReplicaRoutingDataSource.exitReplicaRead(false);
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void should_use_primary_when_get_connection_given_no_replica_read() throws SQLException {
+        assertSame(primaryConnection, routing.getConnection());
+    }
+
+    @Test
+    void should_alternate_replicas_when_get_connection_given_replica_read() throws SQLException {
+        ReplicaRoutingDataSource.enterReplicaRead();
+
+        assertSame(firstReplicaConnection, routing.getConnection());
+        assertSame(secondReplicaConnection, routing.getConnection());
+        assertSame(firstReplicaConnection, routing.getConnection());
+    }
+
+    @Test
+    void should_use_replica_when_get_connection_given_read_only_transaction() throws SQLException {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertSame(firstReplicaConnection, routing.getConnection());
+    }
+
+    @Test
+    void should_use_primary_when_get_connection_given_replica_read_inside_read_write_transaction()
+            throws SQLException {
+        ReplicaRoutingDataSource.enterReplicaRead();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        assertSame(primaryConnection, routing.getConnection());
+        verify(firstReplica, never()).getConnection();
+    }
+
+    @Test
+    void should_skip_lagging_replica_when_get_connection_given_replica_read() throws SQLException {
+        first.update(5000, 1000);
+        ReplicaRoutingDataSource.enterReplicaRead();
+
+        assertSame(secondReplicaConnection, routing.getConnection());
+        assertSame(secondReplicaConnection, routing.getConnection());
+    }
+
+    @Test
+    void should_fall_back_to_primary_and_mark_down_when_get_connection_given_replicas_failing()
+            throws SQLException {
+        when(firstReplica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        second.markDown();
+        ReplicaRoutingDataSource.enterReplicaRead();
+
+        assertSame(primaryConnection, routing.getConnection());
+        assertFalse(first.isAvailable());
+        assertEquals(-1, first.getLagMillis());
+    }
+
+    @Test
+    void should_use_primary_when_get_connection_given_material_changed_recently() throws SQLException {
+        routing.onMaterialChanged(new MaterialChangedEvent(MaterialType.REQUIRED, null, null));
+        ReplicaRoutingDataSource.enterReplicaRead();
+
+        assertSame(primaryConnection, routing.getConnection());
+        verify(firstReplica, never()).getConnection();
+    }
+
+    @Test
+    void should_keep_replica_read_until_outermost_method_exits_when_exit_given_nested_replica_reads() {
+        boolean outer = ReplicaRoutingDataSource.enterReplicaRead();
+        boolean inner = ReplicaRoutingDataSource.enterReplicaRead();
+        ReplicaRoutingDataSource.exitReplicaRead(inner);
+
+        assertTrue(routing.isReplicaRead());
+        ReplicaRoutingDataSource.exitReplicaRead(outer);
+        assertFalse(routing.isReplicaRead());
+    }
+}
@@ -0,0 +1,108 @@
+package com.ncov.module.common.mybatis;
+
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.plugin.Invocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ExplainCheckInterceptorTest {
+
+    private static final String SQL = "SELECT id FROM material_required WHERE material_required_comment = ?";
+
+    @Mock
+    private StatementHandler statementHandler;
+    @Mock
+    private BoundSql boundSql;
+    @Mock
+    private ParameterHandler parameterHandler;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PreparedStatement explain;
+    @Mock
+    private ResultSet plan;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        when(boundSql.getSql()).thenReturn(SQL);
+        when(statementHandler.getBoundSql()).thenReturn(boundSql);
+        when(statementHandler.getParameterHandler()).thenReturn(parameterHandler);
+        when(connection.prepareStatement("EXPLAIN " + SQL)).thenReturn(explain);
+        when(explain.executeQuery()).thenReturn(plan);
+        when(plan.next()).thenReturn(true, false);
+        when(plan.getString("table")).thenReturn("material_required");
+    }
+
+    @Test
+    void should_throw_when_intercept_given_full_scan_without_possible_keys_and_fail_on_full_scan() throws Exception {
+        when(plan.getString("type")).thenReturn("ALL");
+        ExplainCheckInterceptor interceptor = new ExplainCheckInterceptor(
+                Collections.singletonList("material_required"), true, 100);
+
+        assertThrows(IllegalStateException.class, () -> interceptor.intercept(invocation()));
+        verify(parameterHandler).setParameters(explain);
+    }
+
+    @Test
+    void should_proceed_when_intercept_given_index_lookup() throws Throwable {
+        when(plan.getString("type")).thenReturn("ref");
+        when(plan.getString("possible_keys")).thenReturn("idx_material_required_listing");
+        ExplainCheckInterceptor interceptor = new ExplainCheckInterceptor(
+                Collections.singletonList("material_required"), true, 100);
+
+        interceptor.intercept(invocation());
+
+        verify(statementHandler).prepare(connection, 30);
+    }
+
+    @Test
+    void should_explain_each_statement_only_once_when_intercept_given_repeated_statement() throws Throwable {
+        when(plan.getString("type")).thenReturn("range");
+        when(plan.getString("possible_keys")).thenReturn("PRIMARY");
+        ExplainCheckInterceptor interceptor = new ExplainCheckInterceptor(
+                Collections.singletonList("material_required"), true, 100);
+
+        interceptor.intercept(invocation());
+        interceptor.intercept(invocation());
+
+        verify(connection, times(1)).prepareStatement(anyString());
+        verify(statementHandler, times(2)).prepare(connection, 30);
+    }
+
+    @Test
+    void should_proceed_when_intercept_given_explain_fails_and_not_fail_on_full_scan() throws Throwable {
+        when(explain.executeQuery()).thenThrow(new SQLException("EXPLAIN not supported"));
+        ExplainCheckInterceptor interceptor = new ExplainCheckInterceptor(
+                Collections.singletonList("material_required"), false, 100);
+
+        interceptor.intercept(invocation());
+
+        verify(statementHandler).prepare(connection, 30);
+    }
+
+    @Test
+    void should_treat_as_same_statement_when_normalize_given_different_in_list_and_limit() {
+        assertEquals(ExplainCheckInterceptor.normalize("SELECT id FROM t WHERE id IN (?) LIMIT 20"),
+                ExplainCheckInterceptor.normalize("SELECT id FROM t WHERE id IN (?, ?,?) limit 500"));
+    }
+
+    private Invocation invocation() throws NoSuchMethodException {
+        return new Invocation(statementHandler,
+                StatementHandler.class.getMethod("prepare", Connection.class, Integer.class),
+                new Object[]{connection, 30});
+    }
+}
@@ -0,0 +1,137 @@
+package com.ncov.module.common.mybatis;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SlowStatementInterceptorTest {
+
+    private final Configuration configuration = new Configuration();
+
+    @Test
+    void should_not_record_when_intercept_given_statement_faster_than_threshold() throws Throwable {
+        SlowStatementInterceptor interceptor = new SlowStatementInterceptor(60000, 4);
+        Invocation invocation = mock(Invocation.class);
+        when(invocation.proceed()).thenReturn(Collections.emptyList());
+
+        interceptor.intercept(invocation);
+
+        assertTrue(interceptor.getRecent().isEmpty());
+        verify(invocation, never()).getTarget();
+    }
+
+    @Test
+    void should_return_result_when_intercept_given_recording_fails() throws Throwable {
+        SlowStatementInterceptor interceptor = new SlowStatementInterceptor(0, 4);
+        Invocation invocation = mock(Invocation.class);
+        List<Integer> rows = Collections.singletonList(1);
+        when(invocation.proceed()).thenReturn(rows);
+        when(invocation.getTarget()).thenReturn(new Object());
+
+        assertSame(rows, interceptor.intercept(invocation));
+        assertTrue(interceptor.getRecent().isEmpty());
+    }
+
+    @Test
+    void should_record_error_and_rethrow_when_intercept_given_statement_fails() throws Throwable {
+        SlowStatementInterceptor interceptor = new SlowStatementInterceptor(0, 4);
+        Invocation invocation = mock(Invocation.class);
+        SQLTimeoutException timeout = new SQLTimeoutException("Lock wait timeout exceeded");
+        when(invocation.proceed()).thenThrow(new InvocationTargetException(timeout));
+        when(invocation.getTarget()).thenReturn(statementHandler("MaterialRequiredMapper.updateById"));
+
+        assertThrows(InvocationTargetException.class, () -> interceptor.intercept(invocation));
+
+        SlowStatement statement = interceptor.getRecent().get(0);
+        assertEquals("MaterialRequiredMapper.updateById", statement.getMapperId());
+        assertEquals(timeout.toString(), statement.getError());
+        assertEquals(0, statement.getRows());
+    }
+
+    @Test
+    void should_not_record_when_intercept_given_query_with_result_handler() throws Throwable {
+        SlowStatementInterceptor interceptor = new SlowStatementInterceptor(0, 4);
+        Invocation invocation = mock(Invocation.class);
+        when(invocation.getArgs()).thenReturn(new Object[]{mock(Statement.class), mock(ResultHandler.class)});
+
+        interceptor.intercept(invocation);
+
+        verify(invocation).proceed();
+        assertTrue(interceptor.getRecent().isEmpty());
+    }
+
+    @Test
+    void should_record_normalized_sql_bind_values_and_rows_when_record() {
+        SlowStatementInterceptor interceptor = new SlowStatementInterceptor(0, 4);
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("category", "口罩");
+        BoundSql boundSql = new BoundSql(configuration,
+                "SELECT id\n    FROM material_required  WHERE category = ? LIMIT ?",
+                Arrays.asList(mapping("category"), mapping("limit")), parameter);
+        boundSql.setAdditionalParameter("limit", 10L);
+
+        interceptor.record("MaterialRequiredMapper.selectList", configuration, boundSql, Arrays.asList(1, 2, 3),
+                null, TimeUnit.MILLISECONDS.toNanos(350));
+
+        SlowStatement statement = interceptor.getRecent().get(0);
+        assertEquals("SELECT id FROM material_required WHERE category = ? LIMIT ?", statement.getSql());
+        assertEquals(Arrays.asList("口罩", 10L), statement.getParameters());
+        assertEquals(3, statement.getRows());
+        assertEquals(350L, statement.getElapsedMillis());
+        assertNull(statement.getError());
+        assertSame(statement, interceptor.get(statement.getId()).orElse(null));
+    }
+
+    @Test
+    void should_keep_only_latest_records_newest_first_when_record_given_buffer_full() {
+        SlowStatementInterceptor interceptor = new SlowStatementInterceptor(0, 2);
+        for (int i = 0; i < 3; i++) {
+            interceptor.record("Mapper.statement" + i, configuration,
+                    new BoundSql(configuration, "SELECT 1", Collections.emptyList(), null), 1, null, 0);
+        }
+
+        List<SlowStatement> recent = interceptor.getRecent();
+        assertEquals(2, recent.size());
+        assertEquals("Mapper.statement2", recent.get(0).getMapperId());
+        assertEquals("Mapper.statement1", recent.get(1).getMapperId());
+        assertFalse(interceptor.get(0).isPresent());
+    }
+
+    private StatementHandler statementHandler(String mapperId) {
+        MappedStatementHandler handler = mock(MappedStatementHandler.class);
+        handler.mappedStatement = new MappedStatement.Builder(configuration, mapperId,
+                new StaticSqlSource(configuration, "UPDATE material_required SET status = ?"),
+                SqlCommandType.UPDATE).build();
+        when(handler.getBoundSql()).thenReturn(
+                new BoundSql(configuration, "UPDATE material_required SET status = ?", Collections.emptyList(), null));
+        return handler;
+    }
+
+    /**
+     * 与mybatis的语句处理器一样持有mappedStatement字段
+     */
+    abstract static class MappedStatementHandler implements StatementHandler {
+
+        MappedStatement mappedStatement;
+    }
+
+    private ParameterMapping mapping(String property) {
+        return new ParameterMapping.Builder(configuration, property, Object.class).build();
+    }
+}
@@ -0,0 +1,57 @@
+package com.ncov.module.common.mybatis;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Invocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StatementMetricsInterceptorTest {
+
+    @Mock
+    private MappedStatement statement;
+    @Mock
+    private Invocation invocation;
+
+    private MeterRegistry meterRegistry;
+    private StatementMetricsInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(statement.getId()).thenReturn("com.ncov.module.mapper.MaterialRequiredMapper.selectList");
+        when(statement.getSqlCommandType()).thenReturn(SqlCommandType.SELECT);
+        when(invocation.getArgs()).thenReturn(new Object[]{statement, null});
+        meterRegistry = new SimpleMeterRegistry();
+        interceptor = new StatementMetricsInterceptor(meterRegistry);
+    }
+
+    @Test
+    void should_record_timer_tagged_with_mapper_method_when_intercept_given_successful_query() throws Throwable {
+        when(invocation.proceed()).thenReturn("result");
+
+        assertEquals("result", interceptor.intercept(invocation));
+        assertEquals(1L, meterRegistry.get("mybatis.statements")
+                .tag("statement", "MaterialRequiredMapper.selectList")
+                .tag("command", "SELECT")
+                .tag("outcome", "success")
+                .timer().count());
+    }
+
+    @Test
+    void should_record_failure_and_rethrow_when_intercept_given_statement_fails() throws Throwable {
+        when(invocation.proceed()).thenThrow(new SQLException("boom"));
+
+        assertThrows(SQLException.class, () -> interceptor.intercept(invocation));
+        assertEquals(1L, meterRegistry.get("mybatis.statements").tag("outcome", "failure").timer().count());
+    }
+}
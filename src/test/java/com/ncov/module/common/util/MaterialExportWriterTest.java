@@ -0,0 +1,71 @@
+package com.ncov.module.common.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ncov.module.common.enums.ExportFormat;
+import com.ncov.module.controller.dto.AddressDto;
+import com.ncov.module.controller.dto.MaterialDto;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MaterialExportWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void should_write_bom_header_and_escaped_row_when_write_given_csv_format() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MaterialExportWriter writer = MaterialExportWriter.of(ExportFormat.CSV, output, objectMapper);
+
+        writer.write(material("N95口罩, 加厚", "=HYPERLINK(\"x\")"));
+        writer.flush();
+
+        String[] lines = output.toString(StandardCharsets.UTF_8.name()).split("\r\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("\uFEFFid,name,category,quantity,"));
+        assertTrue(lines[1].startsWith("1,\"N95口罩, 加厚\",口罩,100,"));
+        assertTrue(lines[1].contains(",\"'=HYPERLINK(\"\"x\"\")\","));
+        assertTrue(lines[1].contains(",https://oss.com/a.png https://oss.com/b.png,"));
+    }
+
+    @Test
+    void should_write_one_json_object_per_line_when_write_given_ndjson_format() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MaterialExportWriter writer = MaterialExportWriter.of(ExportFormat.NDJSON, output, objectMapper);
+
+        writer.write(material("口罩", "急用"));
+        writer.write(material("防护服", "急用"));
+        writer.flush();
+
+        String[] lines = output.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("口罩", objectMapper.readTree(lines[0]).path("material").path("name").asText());
+        assertEquals("防护服", objectMapper.readTree(lines[1]).path("material").path("name").asText());
+    }
+
+    @Test
+    void should_not_write_rows_to_output_before_buffer_is_full_when_write_given_small_export() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MaterialExportWriter writer = MaterialExportWriter.of(ExportFormat.NDJSON, output, objectMapper);
+
+        writer.write(material("口罩", "急用"));
+
+        assertEquals(0, output.size());
+    }
+
+    private static MaterialResponse material(String name, String comment) {
+        return MaterialResponse.builder()
+                .id("1")
+                .material(MaterialDto.builder().name(name).category("口罩").quantity(100.0)
+                        .imageUrls(Arrays.asList("https://oss.com/a.png", "https://oss.com/b.png")).build())
+                .address(AddressDto.builder().country("中国").province("湖北省").city("武汉市").build())
+                .comment(comment)
+                .build();
+    }
+}
@@ -47,7 +47,19 @@ class FileControllerTest {
                 .getContentAsString();
         JsonNode jsonNode = new ObjectMapper().readTree(responseJson);
         assertEquals("Image uploaded.", jsonNode.get("message").asText());
-        assertEquals("https://oss.com/images/身份验证-4cccf5ed-8e04-42b7-a8a1-0fce2cdb1b0e.png", jsonNode.get("data").get("url").asText());
+        // 空内容的SHA-256摘要加原文件扩展名
+        assertEquals("https://oss.com/images/e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855.jpeg",
+                jsonNode.get("data").get("url").asText());
         assertTrue(jsonNode.get("data").hasNonNull("gmtCreated"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_return_unsupported_media_type_when_stream_image_given_html_content() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders
+                .post("/api/images/stream")
+                .param("category", "身份验证")
+                .contentType(MediaType.TEXT_HTML)
+                .content("<script></script>"))
+                .andExpect(MockMvcResultMatchers.status().is(415));
+    }
+}
@@ -0,0 +1,53 @@
+package com.ncov.module.security;
+
+import com.ncov.module.config.AuthorisationEndpointConfiguration.EndpointIgnoreToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EndpointMatcherTest {
+
+    private EndpointMatcher endpointMatcher;
+
+    @BeforeEach
+    void setUp() {
+        endpointMatcher = EndpointMatcher.compile(Arrays.asList(
+                endpoint("/api/required-materials", "GET"),
+                endpoint("/api/users/sign-in", "POST"),
+                endpoint("/api/supplied-materials/*", "GET"),
+                endpoint("/api/master-data/**", "GET", "HEAD")));
+    }
+
+    @Test
+    void should_match_exact_path_only_for_configured_methods() {
+        assertTrue(endpointMatcher.matches("/api/required-materials", "GET"));
+        assertFalse(endpointMatcher.matches("/api/required-materials", "POST"));
+        assertFalse(endpointMatcher.matches("/api/required-materials/1", "GET"));
+        assertFalse(endpointMatcher.matches("/api/users/sign-in", "get"));
+    }
+
+    @Test
+    void should_match_single_segment_when_path_pattern_ends_with_star() {
+        assertTrue(endpointMatcher.matches("/api/supplied-materials/1", "GET"));
+        assertFalse(endpointMatcher.matches("/api/supplied-materials", "GET"));
+        assertFalse(endpointMatcher.matches("/api/supplied-materials/1/matches", "GET"));
+    }
+
+    @Test
+    void should_match_any_depth_when_path_pattern_ends_with_double_star() {
+        assertTrue(endpointMatcher.matches("/api/master-data", "GET"));
+        assertTrue(endpointMatcher.matches("/api/master-data/provinces", "HEAD"));
+        assertTrue(endpointMatcher.matches("/api/master-data/a/b", "GET"));
+        assertFalse(endpointMatcher.matches("/api/master-data/provinces", "POST"));
+    }
+
+    private EndpointIgnoreToken endpoint(String path, String... methods) {
+        EndpointIgnoreToken endpoint = new EndpointIgnoreToken();
+        endpoint.setPath(path);
+        endpoint.setMethods(Arrays.asList(methods));
+        return endpoint;
+    }
+}
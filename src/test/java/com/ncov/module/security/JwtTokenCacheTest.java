@@ -0,0 +1,59 @@
+package com.ncov.module.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenCacheTest {
+
+    private JwtTokenCache jwtTokenCache;
+    private AtomicInteger verifications;
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenCache = new JwtTokenCache(100, 30);
+        verifications = new AtomicInteger();
+    }
+
+    @Test
+    void should_verify_token_only_once_when_get_given_same_token_twice() {
+        PreAuthenticatedAuthenticationToken first = jwtTokenCache.get("token", () -> verified(null));
+        PreAuthenticatedAuthenticationToken second = jwtTokenCache.get("token", () -> verified(null));
+
+        assertSame(first, second);
+        assertEquals(1, verifications.get());
+        assertEquals(1L, jwtTokenCache.getStats().getHitCount().longValue());
+    }
+
+    @Test
+    void should_verify_again_when_get_given_cached_token_expired() {
+        jwtTokenCache.get("token", () -> verified(System.currentTimeMillis() - 1));
+
+        assertThrows(ExpiredJwtException.class, () -> jwtTokenCache.get("token", () -> {
+            throw new ExpiredJwtException(null, null, "expired");
+        }));
+        assertEquals(1L, jwtTokenCache.getStats().getInvalidationCount().longValue());
+    }
+
+    @Test
+    void should_not_cache_when_get_given_verification_failed() {
+        assertThrows(IllegalArgumentException.class, () -> jwtTokenCache.get("bad", () -> {
+            throw new IllegalArgumentException("bad token");
+        }));
+
+        jwtTokenCache.get("bad", () -> verified(null));
+        assertEquals(1, verifications.get());
+    }
+
+    private JwtTokenCache.VerifiedToken verified(Long expiresAt) {
+        verifications.incrementAndGet();
+        return new JwtTokenCache.VerifiedToken(new PreAuthenticatedAuthenticationToken(
+                "X-JWT-TOKEN", JwtUser.builder().id(1L).build(), Collections.emptyList()), expiresAt);
+    }
+}
@@ -2,17 +2,17 @@ package com.ncov.module.service;
 
 import com.ncov.module.client.JdOssClient;
 import com.ncov.module.common.exception.FileUploadException;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.mock.web.MockMultipartFile;
-import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.util.UUID;
+import java.io.InputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -21,18 +21,20 @@ class FileServiceTest {
 
     @Mock
     private JdOssClient jdOssClient;
-    @InjectMocks
+    @Mock
+    private ThumbnailService thumbnailService;
     private FileService fileService;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
+        fileService = new FileService(jdOssClient, new ImageHashIndex(100), thumbnailService, 8);
+        when(jdOssClient.getImageUrl(anyString())).thenAnswer(invocation -> "http://oss.com/images/" + invocation.getArgument(0));
     }
 
     @Test
     void should_return_image_url_when_upload_image_given_category_and_image_file() throws IOException {
-        String expectedUrl = String.format("http://oss.com/images/身份验证-%s.jpeg", UUID.randomUUID().toString());
-        when(jdOssClient.uploadImage(anyString(), any(MultipartFile.class))).thenReturn(expectedUrl);
+        String expectedUrl = "http://oss.com/images/" + DigestUtils.sha256Hex(new byte[]{}) + ".jpeg";
 
         String imageUrl = fileService.uploadImage("身份验证", new MockMultipartFile("image", "test-image-id.jpeg", "application/octet-stream", new byte[]{}));
 
@@ -40,20 +42,67 @@ class FileServiceTest {
     }
 
     @Test
-    void should_upload_the_image_with_correct_name_when_upload_image() throws IOException {
-        fileService.uploadImage("物资寻求", new MockMultipartFile("image", "test-image-id.jpeg", "application/octet-stream", new byte[]{}));
+    void should_upload_the_image_with_content_hash_name_when_upload_image() throws IOException {
+        fileService.uploadImage("物资寻求", new MockMultipartFile("image", "test-image-id.jpeg", "application/octet-stream", new byte[]{1, 2, 3}));
 
         ArgumentCaptor<String> imageNameCaptor = ArgumentCaptor.forClass(String.class);
-        verify(jdOssClient).uploadImage(imageNameCaptor.capture(), ArgumentCaptor.forClass(MultipartFile.class).capture());
-        String uploadedImageName = imageNameCaptor.getValue();
-        assertTrue(uploadedImageName.startsWith("物资寻求-"));
-        assertTrue(uploadedImageName.endsWith(".jpeg"));
+        verify(jdOssClient).uploadBuffered(any(), imageNameCaptor.capture(), any(byte[].class), eq(3), isNull(), any(),
+                eq(false));
+        assertEquals(DigestUtils.sha256Hex(new byte[]{1, 2, 3}) + ".jpeg", imageNameCaptor.getValue());
+        verify(thumbnailService).submit(imageNameCaptor.getValue());
+    }
+
+    @Test
+    void should_upload_same_content_only_once_when_upload_image_given_repeated_image() throws IOException {
+        String first = fileService.uploadImage("物资寻求", new MockMultipartFile("image", "a.jpeg", "image/jpeg", new byte[]{1, 2, 3}));
+        String second = fileService.uploadImage("物资供应", new MockMultipartFile("image", "b.jpeg", "image/jpeg", new byte[]{1, 2, 3}));
+
+        assertEquals(first, second);
+        verify(jdOssClient, times(1)).uploadBuffered(any(), anyString(), any(byte[].class), anyInt(), any(), any(), anyBoolean());
+        verify(jdOssClient, times(1)).exists(anyString());
+    }
+
+    @Test
+    void should_not_upload_when_upload_image_given_object_already_exists() throws IOException {
+        when(jdOssClient.exists(anyString())).thenReturn(true);
+
+        String imageUrl = fileService.uploadImage("物资寻求", new MockMultipartFile("image", "a.jpeg", "image/jpeg", new byte[]{1, 2, 3}));
+
+        assertEquals("http://oss.com/images/" + DigestUtils.sha256Hex(new byte[]{1, 2, 3}) + ".jpeg", imageUrl);
+        verify(jdOssClient, never()).uploadBuffered(any(), anyString(), any(byte[].class), anyInt(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void should_stage_and_copy_to_content_address_when_upload_image_given_image_larger_than_buffer() throws IOException {
+        byte[] content = new byte[20];
+        when(jdOssClient.uploadBuffered(any(), anyString(), any(byte[].class), anyInt(), any(), any(), anyBoolean())).thenAnswer(invocation -> {
+            int buffered = invocation.getArgument(3);
+            InputStream input = invocation.getArgument(4);
+            long total = buffered;
+            while (input.read() >= 0) {
+                // 模拟对象存储读完整个请求体
+                total++;
+            }
+            return total;
+        });
+
+        String imageUrl = fileService.uploadImage("物资寻求", "png", "image/png", -1, new ByteArrayInputStream(content));
+
+        String imageName = DigestUtils.sha256Hex(content) + ".png";
+        assertEquals("http://oss.com/images/" + imageName, imageUrl);
+        ArgumentCaptor<String> stagingNameCaptor = ArgumentCaptor.forClass(String.class);
+        verify(jdOssClient).copy(stagingNameCaptor.capture(), eq(imageName), eq(20L));
+        assertTrue(stagingNameCaptor.getValue().startsWith("staging/"));
+        verify(jdOssClient).uploadBuffered(any(), eq(stagingNameCaptor.getValue()),
+                argThat(buffer -> buffer.length == 8), eq(8), any(InputStream.class), eq("image/png"), eq(true));
+        verify(jdOssClient, never()).uploadImage(anyString(), any(InputStream.class), any(), anyLong());
+        verify(jdOssClient).delete(stagingNameCaptor.getValue());
     }
 
     @Test
     void should_throw_file_upload_exception_when_upload_image_given_error_occurred_during_upload() throws IOException {
-        when(jdOssClient.uploadImage(anyString(), any(MultipartFile.class))).thenThrow(IOException.class);
+        when(jdOssClient.uploadBuffered(any(), anyString(), any(byte[].class), anyInt(), any(), any(), anyBoolean())).thenThrow(IOException.class);
 
         assertThrows(FileUploadException.class, () -> fileService.uploadImage("身份验证", new MockMultipartFile("image", "test-image-id.jpeg", "application/octet-stream", new byte[]{})));
     }
-}
\ No newline at end of file
+}
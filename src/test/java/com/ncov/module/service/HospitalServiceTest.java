@@ -23,6 +23,8 @@ class HospitalServiceTest {
     @Mock
     private UserInfoService userInfoService;
     @Mock
+    private UserOrganisationCache userOrganisationCache;
+    @Mock
     private HospitalInfoMapper hospitalInfoMapper;
     @InjectMocks
     private HospitalService hospitalService;
@@ -76,6 +78,17 @@ class HospitalServiceTest {
         assertEquals(UserRole.HOSPITAL.getRoleId(), user.getUserRoleId());
     }
 
+    @Test
+    void should_invalidate_user_organisation_when_sign_up() {
+        hospitalService.signUp(HospitalSignUpRequest.builder()
+                .name("Wuhan Test Hospital")
+                .contactorTelephone("18888888888")
+                .password("12345678")
+                .build());
+
+        verify(userOrganisationCache).invalidate(32L);
+    }
+
     @Test
     void should_save_hospital_when_sign_up() {
         hospitalService.signUp(HospitalSignUpRequest.builder()
@@ -0,0 +1,65 @@
+package com.ncov.module.service;
+
+import com.ncov.module.entity.ProvinceCityDistrictEntity;
+import com.ncov.module.mapper.ProvinceCityDistrictMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MasterDataServiceTest {
+
+    @Mock
+    private ProvinceCityDistrictMapper provinceCityDistrictMapper;
+    @InjectMocks
+    private MasterDataService masterDataService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(provinceCityDistrictMapper.selectList(any())).thenReturn(Arrays.asList(
+                region("湖北省", "武汉市", "江岸区"),
+                region("湖北省", "武汉市", "江汉区"),
+                region("湖北省", "黄冈市", "黄州区"),
+                region("北京市", "北京市", "东城区")));
+    }
+
+    @Test
+    void should_answer_all_lookups_from_single_table_read() {
+        assertEquals(Arrays.asList("湖北省", "北京市"), masterDataService.getProvinces());
+        assertEquals(Arrays.asList("武汉市", "黄冈市"), masterDataService.getCitiesByProvince("湖北省"));
+        assertEquals(Arrays.asList("江岸区", "江汉区"),
+                masterDataService.getDistrictsByProvinceAndCity("湖北省", "武汉市"));
+
+        verify(provinceCityDistrictMapper, times(1)).selectList(any());
+    }
+
+    @Test
+    void should_return_empty_list_when_get_cities_given_unknown_province() {
+        assertTrue(masterDataService.getCitiesByProvince("火星").isEmpty());
+        assertTrue(masterDataService.getDistrictsByProvinceAndCity("湖北省", null).isEmpty());
+    }
+
+    @Test
+    void should_read_table_again_when_reload() {
+        masterDataService.getProvinces();
+        when(provinceCityDistrictMapper.selectList(any())).thenReturn(Collections.singletonList(
+                region("浙江省", "杭州市", "西湖区")));
+
+        masterDataService.reload();
+
+        assertEquals(Collections.singletonList("浙江省"), masterDataService.getProvinces());
+    }
+
+    private ProvinceCityDistrictEntity region(String province, String city, String district) {
+        return ProvinceCityDistrictEntity.builder().province(province).city(city).district(district).build();
+    }
+}
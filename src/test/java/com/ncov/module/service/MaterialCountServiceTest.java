@@ -0,0 +1,78 @@
+package com.ncov.module.service;
+
+import com.ncov.module.common.enums.MaterialStatus;
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.event.MaterialChangedEvent;
+import com.ncov.module.controller.dto.MaterialDto;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+import com.ncov.module.entity.MaterialCountEntity;
+import com.ncov.module.mapper.MaterialRequiredMapper;
+import com.ncov.module.mapper.MaterialSuppliedMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class MaterialCountServiceTest {
+
+    @Mock
+    private MaterialRequiredMapper materialRequiredMapper;
+    @Mock
+    private MaterialSuppliedMapper materialSuppliedMapper;
+    @InjectMocks
+    private MaterialCountService materialCountService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(materialRequiredMapper.selectCountGroupByCategoryAndStatus()).thenReturn(Arrays.asList(
+                MaterialCountEntity.builder().category("口罩").status(MaterialStatus.PUBLISHED.name()).total(10L).build(),
+                MaterialCountEntity.builder().category("口罩").status(MaterialStatus.PENDING.name()).total(3L).build(),
+                MaterialCountEntity.builder().category("防护服").status(MaterialStatus.COMPLETED.name()).total(5L).build()));
+        when(materialSuppliedMapper.selectCountGroupByCategoryAndStatus()).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    void should_return_null_when_get_published_count_given_counts_not_reconciled() {
+        assertNull(materialCountService.getPublishedCount(MaterialType.REQUIRED, null));
+    }
+
+    @Test
+    void should_sum_non_pending_counts_when_get_published_count_given_counts_reconciled() {
+        materialCountService.reconcile();
+
+        assertEquals(15L, materialCountService.getPublishedCount(MaterialType.REQUIRED, null).longValue());
+        assertEquals(10L, materialCountService.getPublishedCount(MaterialType.REQUIRED, "口罩").longValue());
+        assertEquals(0L, materialCountService.getPublishedCount(MaterialType.SUPPLIED, "口罩").longValue());
+    }
+
+    @Test
+    void should_adjust_counts_incrementally_when_material_created_and_approved() {
+        materialCountService.reconcile();
+        MaterialResponse pending = material("口罩", MaterialStatus.PENDING);
+        MaterialResponse published = material("口罩", MaterialStatus.PUBLISHED);
+
+        materialCountService.onMaterialChanged(MaterialChangedEvent.created(MaterialType.REQUIRED, pending));
+        assertEquals(10L, materialCountService.getPublishedCount(MaterialType.REQUIRED, "口罩").longValue());
+
+        materialCountService.onMaterialChanged(new MaterialChangedEvent(MaterialType.REQUIRED, pending, published));
+        assertEquals(11L, materialCountService.getPublishedCount(MaterialType.REQUIRED, "口罩").longValue());
+
+        materialCountService.onMaterialChanged(new MaterialChangedEvent(MaterialType.REQUIRED, published, pending));
+        assertEquals(10L, materialCountService.getPublishedCount(MaterialType.REQUIRED, "口罩").longValue());
+    }
+
+    private MaterialResponse material(String category, MaterialStatus status) {
+        return MaterialResponse.builder()
+                .material(MaterialDto.builder().category(category).build())
+                .status(status.name())
+                .build();
+    }
+}
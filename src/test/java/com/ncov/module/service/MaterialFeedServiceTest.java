@@ -0,0 +1,127 @@
+package com.ncov.module.service;
+
+import com.ncov.module.common.enums.MaterialStatus;
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.event.MaterialChangedEvent;
+import com.ncov.module.common.exception.FeedUnavailableException;
+import com.ncov.module.controller.dto.AddressDto;
+import com.ncov.module.controller.dto.MaterialDto;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MaterialFeedServiceTest {
+
+    private final List<Runnable> scheduledDrains = new ArrayList<>();
+    private MaterialFeedService materialFeedService;
+
+    @BeforeEach
+    void setUp() {
+        materialFeedService = new MaterialFeedService(scheduledDrains::add, 2, 2, 60000);
+    }
+
+    @Test
+    void should_schedule_delivery_when_material_published_given_matching_subscriber() {
+        materialFeedService.subscribe(MaterialType.REQUIRED, "口罩", "湖北省");
+
+        materialFeedService.onMaterialChanged(published(MaterialType.REQUIRED, "1", "口罩", "湖北省"));
+
+        assertEquals(1, scheduledDrains.size());
+    }
+
+    @Test
+    void should_skip_subscriber_when_material_published_given_other_category_province_or_type() {
+        materialFeedService.subscribe(MaterialType.REQUIRED, "口罩", "湖北省");
+
+        materialFeedService.onMaterialChanged(published(MaterialType.REQUIRED, "1", "防护服", "湖北省"));
+        materialFeedService.onMaterialChanged(published(MaterialType.REQUIRED, "2", "口罩", "浙江省"));
+        materialFeedService.onMaterialChanged(published(MaterialType.SUPPLIED, "3", "口罩", "湖北省"));
+
+        assertTrue(scheduledDrains.isEmpty());
+    }
+
+    @Test
+    void should_not_push_when_material_changed_given_material_was_already_published() {
+        materialFeedService.subscribe(MaterialType.REQUIRED, null, null);
+        MaterialResponse material = material("1", "口罩", "湖北省", MaterialStatus.PUBLISHED);
+
+        materialFeedService.onMaterialChanged(new MaterialChangedEvent(MaterialType.REQUIRED, material, material));
+
+        assertTrue(scheduledDrains.isEmpty());
+    }
+
+    @Test
+    void should_drop_oldest_event_when_material_published_given_subscriber_buffer_is_full() {
+        materialFeedService.subscribe(MaterialType.REQUIRED, null, null);
+
+        materialFeedService.onMaterialChanged(published(MaterialType.REQUIRED, "1", "口罩", "湖北省"));
+        materialFeedService.onMaterialChanged(published(MaterialType.REQUIRED, "2", "口罩", "湖北省"));
+        materialFeedService.onMaterialChanged(published(MaterialType.REQUIRED, "3", "口罩", "湖北省"));
+
+        assertEquals(1, scheduledDrains.size());
+        assertEquals(1, materialFeedService.getDroppedEvents());
+    }
+
+    @Test
+    void should_throw_feed_unavailable_exception_when_subscribe_given_subscriber_limit_reached() {
+        materialFeedService.subscribe(MaterialType.REQUIRED, null, null);
+        materialFeedService.subscribe(MaterialType.SUPPLIED, null, null);
+
+        assertThrows(FeedUnavailableException.class,
+                () -> materialFeedService.subscribe(MaterialType.REQUIRED, null, null));
+    }
+
+    @Test
+    void should_not_exceed_subscriber_limit_when_subscribe_given_concurrent_subscriptions() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger rejected = new AtomicInteger();
+        try {
+            List<Future<?>> subscriptions = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                subscriptions.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        materialFeedService.subscribe(MaterialType.REQUIRED, null, null);
+                    } catch (FeedUnavailableException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> subscription : subscriptions) {
+                subscription.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(2, materialFeedService.getSubscriberCount());
+        assertEquals(14, rejected.get());
+    }
+
+    private static MaterialChangedEvent published(MaterialType type, String id, String category, String province) {
+        return new MaterialChangedEvent(type, material(id, category, province, MaterialStatus.PENDING),
+                material(id, category, province, MaterialStatus.PUBLISHED));
+    }
+
+    private static MaterialResponse material(String id, String category, String province, MaterialStatus status) {
+        return MaterialResponse.builder()
+                .id(id)
+                .material(MaterialDto.builder().category(category).build())
+                .address(AddressDto.builder().province(province).build())
+                .status(status.name())
+                .build();
+    }
+}
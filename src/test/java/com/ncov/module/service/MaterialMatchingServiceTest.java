@@ -0,0 +1,129 @@
+package com.ncov.module.service;
+
+import com.ncov.module.common.enums.MaterialStatus;
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.event.MaterialChangedEvent;
+import com.ncov.module.controller.dto.AddressDto;
+import com.ncov.module.controller.dto.MaterialDto;
+import com.ncov.module.controller.resp.material.MaterialMatchResponse;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class MaterialMatchingServiceTest {
+
+    @Mock
+    private MaterialRequiredService materialRequiredService;
+    @Mock
+    private MaterialSuppliedService materialSuppliedService;
+    @InjectMocks
+    private MaterialMatchingService materialMatchingService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(materialRequiredService.getAllPublishedMaterials()).thenReturn(Collections.singletonList(
+                material("1", "口罩", 100.0, "湖北省", "武汉市", "江岸区")));
+        when(materialSuppliedService.getAllPublishedMaterials()).thenReturn(Arrays.asList(
+                material("11", "口罩", 50.0, "湖北省", "武汉市", "江岸区"),
+                material("12", "口罩", 200.0, "湖北省", "黄冈市", "黄州区"),
+                material("13", "口罩", 500.0, "浙江省", "杭州市", "西湖区"),
+                material("14", "防护服", 500.0, "湖北省", "武汉市", "江岸区")));
+        materialMatchingService.load();
+    }
+
+    @Test
+    void should_rank_same_category_supplies_by_location_then_quantity_when_get_supply_candidates() {
+        List<MaterialMatchResponse> matches = materialMatchingService.getSupplyCandidates(1L, 10);
+
+        assertEquals(3, matches.size());
+        assertEquals("11", matches.get(0).getMaterial().getId());
+        assertEquals(3, matches.get(0).getLocationLevel().intValue());
+        assertEquals(0.5, matches.get(0).getQuantityCoverage(), 1e-9);
+        assertEquals("12", matches.get(1).getMaterial().getId());
+        assertEquals(1.0, matches.get(1).getQuantityCoverage(), 1e-9);
+        assertEquals("13", matches.get(2).getMaterial().getId());
+    }
+
+    @Test
+    void should_keep_only_top_candidates_when_get_supply_candidates_given_limit() {
+        List<MaterialMatchResponse> matches = materialMatchingService.getSupplyCandidates(1L, 1);
+
+        assertEquals(1, matches.size());
+        assertEquals("11", matches.get(0).getMaterial().getId());
+    }
+
+    @Test
+    void should_prefer_closest_sufficient_supply_when_get_supply_candidates_given_same_location() {
+        materialMatchingService.onMaterialChanged(new MaterialChangedEvent(MaterialType.SUPPLIED, null,
+                material("15", "口罩", 1000.0, "湖北省", "武汉市", "江岸区")));
+        materialMatchingService.onMaterialChanged(new MaterialChangedEvent(MaterialType.SUPPLIED, null,
+                material("16", "口罩", 120.0, "湖北省", "武汉市", "江岸区")));
+
+        List<MaterialMatchResponse> matches = materialMatchingService.getSupplyCandidates(1L, 3);
+
+        assertEquals(Arrays.asList("16", "15", "11"), ids(matches));
+        assertEquals(1.0, matches.get(1).getQuantityCoverage(), 1e-9);
+    }
+
+    @Test
+    void should_prefer_largest_covered_demand_when_get_demand_candidates_given_same_location() {
+        materialMatchingService.onMaterialChanged(new MaterialChangedEvent(MaterialType.REQUIRED, null,
+                material("2", "口罩", 40.0, "湖北省", "武汉市", "江岸区")));
+        materialMatchingService.onMaterialChanged(new MaterialChangedEvent(MaterialType.REQUIRED, null,
+                material("3", "口罩", 80.0, "湖北省", "武汉市", "江岸区")));
+
+        List<MaterialMatchResponse> matches = materialMatchingService.getDemandCandidates(11L, 10);
+
+        assertEquals(Arrays.asList("2", "3", "1"), ids(matches));
+        assertEquals(1.0, matches.get(0).getQuantityCoverage(), 1e-9);
+        assertEquals(0.625, matches.get(1).getQuantityCoverage(), 1e-9);
+    }
+
+    @Test
+    void should_return_empty_when_get_demand_candidates_given_material_not_published() {
+        assertTrue(materialMatchingService.getDemandCandidates(99L, 10).isEmpty());
+    }
+
+    @Test
+    void should_update_index_when_material_approved_or_rejected() {
+        MaterialResponse pending = material("15", "口罩", 100.0, "湖北省", "武汉市", "江岸区");
+        pending.setStatus(MaterialStatus.PENDING.name());
+        MaterialResponse published = material("15", "口罩", 100.0, "湖北省", "武汉市", "江岸区");
+
+        materialMatchingService.onMaterialChanged(new MaterialChangedEvent(MaterialType.SUPPLIED, pending, published));
+        assertEquals("15", materialMatchingService.getSupplyCandidates(1L, 1).get(0).getMaterial().getId());
+
+        MaterialResponse rejected = material("11", "口罩", 50.0, "湖北省", "武汉市", "江岸区");
+        rejected.setStatus(MaterialStatus.PENDING.name());
+        materialMatchingService.onMaterialChanged(new MaterialChangedEvent(MaterialType.SUPPLIED,
+                material("11", "口罩", 50.0, "湖北省", "武汉市", "江岸区"), rejected));
+        assertTrue(materialMatchingService.getSupplyCandidates(1L, 10).stream()
+                .noneMatch(match -> "11".equals(match.getMaterial().getId())));
+    }
+
+    private static List<String> ids(List<MaterialMatchResponse> matches) {
+        return matches.stream().map(match -> match.getMaterial().getId()).collect(Collectors.toList());
+    }
+
+    private MaterialResponse material(String id, String category, Double quantity,
+                                      String province, String city, String district) {
+        return MaterialResponse.builder()
+                .id(id)
+                .material(MaterialDto.builder().category(category).quantity(quantity).build())
+                .address(AddressDto.builder().province(province).city(city).district(district).build())
+                .status(MaterialStatus.PUBLISHED.name())
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package com.ncov.module.service;
+
+import com.ncov.module.common.enums.MaterialStatus;
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.event.MaterialChangedEvent;
+import com.ncov.module.controller.resp.Page;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MaterialPageCacheTest {
+
+    private MaterialPageCache materialPageCache;
+    private AtomicInteger loads;
+    private Supplier<Page<MaterialResponse>> loader;
+
+    @BeforeEach
+    void setUp() {
+        materialPageCache = new MaterialPageCache(100, 60);
+        loads = new AtomicInteger();
+        loader = () -> {
+            loads.incrementAndGet();
+            return Page.<MaterialResponse>builder().data(Collections.emptyList()).page(1).pageSize(10).build();
+        };
+    }
+
+    @Test
+    void should_load_page_only_once_when_get_given_same_key_requested_twice() {
+        materialPageCache.get(MaterialType.REQUIRED, "口罩", 1, 10, true, loader);
+        materialPageCache.get(MaterialType.REQUIRED, "口罩", 1, 10, true, loader);
+
+        assertEquals(1, loads.get());
+        assertEquals(1L, materialPageCache.getStats().getHitCount().longValue());
+        assertEquals(1L, materialPageCache.getStats().getMissCount().longValue());
+    }
+
+    @Test
+    void should_reload_page_when_get_given_published_material_of_same_type_was_approved() {
+        materialPageCache.get(MaterialType.REQUIRED, null, 1, 10, true, loader);
+
+        materialPageCache.onMaterialChanged(new MaterialChangedEvent(MaterialType.REQUIRED,
+                material(MaterialStatus.PENDING), material(MaterialStatus.PUBLISHED)));
+        materialPageCache.get(MaterialType.REQUIRED, null, 1, 10, true, loader);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void should_keep_cached_page_when_changed_material_is_neither_published_nor_of_same_type() {
+        materialPageCache.get(MaterialType.REQUIRED, null, 1, 10, true, loader);
+
+        materialPageCache.onMaterialChanged(MaterialChangedEvent.created(MaterialType.REQUIRED,
+                material(MaterialStatus.PENDING)));
+        materialPageCache.onMaterialChanged(MaterialChangedEvent.created(MaterialType.SUPPLIED,
+                material(MaterialStatus.PUBLISHED)));
+        materialPageCache.get(MaterialType.REQUIRED, null, 1, 10, true, loader);
+
+        assertEquals(1, loads.get());
+    }
+
+    private MaterialResponse material(MaterialStatus status) {
+        return MaterialResponse.builder().status(status.name()).build();
+    }
+}
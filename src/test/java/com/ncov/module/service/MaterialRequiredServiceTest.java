@@ -1,28 +1,48 @@
 package com.ncov.module.service;
 
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
 import com.ncov.module.common.enums.MaterialStatus;
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.enums.ReviewOutcome;
+import com.ncov.module.common.event.MaterialChangedEvent;
 import com.ncov.module.common.enums.UserStatus;
+import com.ncov.module.common.exception.InvalidCursorException;
 import com.ncov.module.common.exception.MaterialNotFoundException;
+import com.ncov.module.common.util.PageCursor;
 import com.ncov.module.controller.dto.AddressDto;
 import com.ncov.module.controller.dto.MaterialDto;
 import com.ncov.module.controller.request.material.MaterialRequest;
+import com.ncov.module.controller.resp.Page;
 import com.ncov.module.controller.resp.material.MaterialResponse;
+import com.ncov.module.controller.resp.material.MaterialReviewResult;
 import com.ncov.module.entity.MaterialRequiredEntity;
 import com.ncov.module.entity.UserInfoEntity;
 import com.ncov.module.mapper.MaterialRequiredMapper;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 public class MaterialRequiredServiceTest {
@@ -33,10 +53,25 @@ public class MaterialRequiredServiceTest {
     @Mock
     private MaterialRequiredMapper materialRequiredMapper;
 
+    @Mock
+    private MaterialCountService materialCountService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ThumbnailService thumbnailService;
+
     @Spy
     @InjectMocks
     private MaterialRequiredService materialRequiredService;
 
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""),
+                MaterialRequiredEntity.class);
+    }
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.initMocks(this);
@@ -45,8 +80,8 @@ public class MaterialRequiredServiceTest {
             for (int i = 0; i < entities.size(); ++i) {
                 entities.get(i).setId(i + 10L);
             }
-            return true;
-        }).when(materialRequiredService).saveBatch(anyList());
+            return entities.size();
+        }).when(materialRequiredMapper).insertAll(anyList());
         when(userInfoService.getUser(anyLong())).thenReturn(UserInfoEntity.builder().status(MaterialStatus.PENDING.name()).build());
     }
 
@@ -78,7 +113,10 @@ public class MaterialRequiredServiceTest {
 
         assertEquals(1, responses.size());
         MaterialResponse response = responses.get(0);
-        assertEquals(materialDto, response.getMaterial());
+        assertEquals(materialDto.getName(), response.getMaterial().getName());
+        assertEquals(materialDto.getImageUrls(), response.getMaterial().getImageUrls());
+        assertEquals(materialDto.getImageUrls(), response.getMaterial().getThumbnailUrls());
+        assertEquals(materialDto.getImageUrls(), response.getMaterial().getPreviewUrls());
         assertEquals(AddressDto.builder().country("中国").province("湖北省").city("武汉市").district("东西湖区").streetAddress("银潭路1号").build(), response.getAddress());
         assertEquals("张三", response.getContactorName());
         assertEquals("18801234567", response.getContactorPhone());
@@ -87,7 +125,7 @@ public class MaterialRequiredServiceTest {
         assertEquals("PENDING", response.getStatus());
         assertNotNull(response.getGmtCreated());
         ArgumentCaptor<List> entitiesCaptor = ArgumentCaptor.forClass(List.class);
-        verify(materialRequiredService).saveBatch(entitiesCaptor.capture());
+        verify(materialRequiredMapper).insertAll(entitiesCaptor.capture());
         List<MaterialRequiredEntity> entities = entitiesCaptor.getValue();
         assertEquals(1, entities.size());
         MaterialRequiredEntity entity = entities.get(0);
@@ -118,7 +156,7 @@ public class MaterialRequiredServiceTest {
         List<MaterialResponse> responses = materialRequiredService.saveRequiredInfo(request, 1L, 2L);
         assertEquals(2, responses.size());
         ArgumentCaptor<List> entitiesCaptor = ArgumentCaptor.forClass(List.class);
-        verify(materialRequiredService).saveBatch(entitiesCaptor.capture());
+        verify(materialRequiredMapper).insertAll(entitiesCaptor.capture());
         List<MaterialRequiredEntity> entities = entitiesCaptor.getValue();
         assertEquals(2, entities.size());
     }
@@ -147,7 +185,7 @@ public class MaterialRequiredServiceTest {
         materialRequiredService.saveRequiredInfo(request, 1L, 2L);
 
         ArgumentCaptor<List> entitiesCaptor = ArgumentCaptor.forClass(List.class);
-        verify(materialRequiredService).saveBatch(entitiesCaptor.capture());
+        verify(materialRequiredMapper).insertAll(entitiesCaptor.capture());
         List<MaterialRequiredEntity> entities = entitiesCaptor.getValue();
         assertEquals(2, entities.size());
         assertTrue(entities.stream().allMatch(MaterialRequiredEntity::isApproved));
@@ -156,8 +194,7 @@ public class MaterialRequiredServiceTest {
     @Test
     void should_update_material_when_required_is_present_and_publisher_of_the_required_is_request_user() {
         UserInfoEntity userInfoEntity = UserInfoEntity.builder().id(1L).build();
-        when(materialRequiredService.updateById(any(MaterialRequiredEntity.class)))
-                .thenReturn(true);
+        doReturn(true).when(materialRequiredService).updateChangedColumns(any(), any());
         when(materialRequiredMapper.selectById(anyLong()))
                 .thenReturn(MaterialRequiredEntity.builder()
                         .materialRequiredUserId(1L).build());
@@ -241,4 +278,254 @@ public class MaterialRequiredServiceTest {
                                         .build()))
                                 .build(), userInfoEntity.getId()));
     }
+
+    @Test
+    void should_return_cursor_of_last_record_when_get_required_page_list_given_cursor_and_page_is_full() {
+        Date now = new Date();
+        when(materialRequiredMapper.selectList(any())).thenReturn(Arrays.asList(
+                MaterialRequiredEntity.builder().id(12L).gmtCreated(now).build(),
+                MaterialRequiredEntity.builder().id(11L).gmtCreated(now).build()));
+
+        Page<MaterialResponse> page = materialRequiredService.getRequiredPageList(
+                1, 2, null, PageCursor.encode(now, 13L), true);
+
+        assertEquals(2, page.getData().size());
+        assertNull(page.getTotal());
+        PageCursor next = PageCursor.decode(page.getCursor());
+        assertEquals(11L, next.getId().longValue());
+        assertEquals(now, next.getGmtCreated());
+        verify(materialRequiredMapper, never()).selectPage(any(), any());
+    }
+
+    @Test
+    void should_return_no_cursor_when_get_required_page_list_given_cursor_and_last_page_is_not_full() {
+        when(materialRequiredMapper.selectList(any())).thenReturn(Collections.singletonList(
+                MaterialRequiredEntity.builder().id(11L).gmtCreated(new Date()).build()));
+
+        Page<MaterialResponse> page = materialRequiredService.getRequiredPageList(
+                1, 2, "口罩", PageCursor.encode(new Date(), 13L), true);
+
+        assertEquals(1, page.getData().size());
+        assertNull(page.getCursor());
+    }
+
+    @Test
+    void should_throw_invalid_cursor_exception_when_get_required_page_list_given_malformed_cursor() {
+        assertThrows(InvalidCursorException.class,
+                () -> materialRequiredService.getRequiredPageList(1, 2, null, "not-a-cursor", true));
+    }
+
+    @Test
+    void should_use_approximate_total_without_count_query_when_get_required_page_list_given_counts_are_reconciled() {
+        when(materialCountService.getPublishedCount(MaterialType.REQUIRED, "口罩")).thenReturn(42L);
+        when(materialRequiredMapper.selectPage(any(), any())).thenAnswer(call -> call.getArgument(0));
+
+        Page<MaterialResponse> page = materialRequiredService.getRequiredPageList(1, 10, "口罩", null, true);
+
+        assertEquals(42L, page.getTotal().longValue());
+        ArgumentCaptor<com.baomidou.mybatisplus.extension.plugins.pagination.Page> pageCaptor =
+                ArgumentCaptor.forClass(com.baomidou.mybatisplus.extension.plugins.pagination.Page.class);
+        verify(materialRequiredMapper).selectPage(pageCaptor.capture(), any());
+        assertFalse(pageCaptor.getValue().isSearchCount());
+    }
+
+    @Test
+    void should_skip_counting_when_get_required_page_list_given_total_is_not_required() {
+        when(materialRequiredMapper.selectPage(any(), any())).thenAnswer(call -> call.getArgument(0));
+
+        Page<MaterialResponse> page = materialRequiredService.getRequiredPageList(1, 10, null, null, false);
+
+        assertNull(page.getTotal());
+        ArgumentCaptor<com.baomidou.mybatisplus.extension.plugins.pagination.Page> pageCaptor =
+                ArgumentCaptor.forClass(com.baomidou.mybatisplus.extension.plugins.pagination.Page.class);
+        verify(materialRequiredMapper).selectPage(pageCaptor.capture(), any());
+        assertFalse(pageCaptor.getValue().isSearchCount());
+        verifyNoInteractions(materialCountService);
+    }
+
+    @Test
+    void should_keep_search_ranking_and_skip_unpublished_when_get_required_page_by_ids() {
+        when(materialRequiredMapper.selectList(any())).thenReturn(Arrays.asList(
+                MaterialRequiredEntity.builder().id(3L).build(),
+                MaterialRequiredEntity.builder().id(5L).build()));
+
+        Page<MaterialResponse> page = materialRequiredService.getRequiredPageByIds(
+                Arrays.asList(9L, 5L, 7L, 3L, 1L), 5, 1, 4);
+
+        assertEquals(Arrays.asList("5", "3"),
+                page.getData().stream().map(MaterialResponse::getId).collect(Collectors.toList()));
+        assertEquals(5L, page.getTotal().longValue());
+        assertNull(page.getCursor());
+        assertNull(page.getTruncated());
+    }
+
+    @Test
+    void should_return_uncapped_total_and_mark_truncated_when_get_required_page_by_ids_given_capped_hits() {
+        when(materialRequiredMapper.selectList(any())).thenReturn(Collections.singletonList(
+                MaterialRequiredEntity.builder().id(9L).build()));
+
+        Page<MaterialResponse> page = materialRequiredService.getRequiredPageByIds(Arrays.asList(9L, 5L), 1500, 1, 1);
+
+        assertEquals(1500L, page.getTotal().longValue());
+        assertTrue(page.getTruncated());
+    }
+
+    @Test
+    void should_not_query_when_get_required_page_by_ids_given_page_beyond_results() {
+        Page<MaterialResponse> page = materialRequiredService.getRequiredPageByIds(Arrays.asList(9L, 5L), 2, 3, 10);
+
+        assertTrue(page.getData().isEmpty());
+        verify(materialRequiredMapper, never()).selectList(any());
+    }
+
+    @Test
+    void should_publish_changed_event_when_approve_given_pending_material() {
+        doReturn(true).when(materialRequiredService).updateChangedColumns(any(), any());
+        when(materialRequiredMapper.selectById(anyLong())).thenReturn(MaterialRequiredEntity.builder()
+                .id(5L).materialRequiredCategory("口罩").materialRequiredStatus(MaterialStatus.PENDING.name()).build());
+
+        materialRequiredService.approve(5L);
+
+        ArgumentCaptor<MaterialChangedEvent> eventCaptor = ArgumentCaptor.forClass(MaterialChangedEvent.class);
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        MaterialChangedEvent event = eventCaptor.getValue();
+        assertEquals(MaterialType.REQUIRED, event.getType());
+        assertFalse(event.wasPublished());
+        assertTrue(event.isPublished());
+    }
+
+    @Test
+    void should_leave_columns_untouched_when_update_given_request_omitting_fields() {
+        doReturn(true).when(materialRequiredService).updateChangedColumns(any(), any());
+        when(materialRequiredMapper.selectById(anyLong())).thenReturn(MaterialRequiredEntity.builder()
+                .id(223L)
+                .materialRequiredUserId(1L)
+                .district("东西湖区")
+                .materialRequiredComment("医护人员急用")
+                .materialRequiredStandard("GB2626")
+                .materialRequiredImageUrls("https://oss.com/a.jpg")
+                .materialRequiredName("口罩")
+                .build());
+
+        materialRequiredService.update(223L, MaterialRequest.builder()
+                .address(AddressDto.builder().country("中国").province("湖北省").city("武汉市").build())
+                .materials(Collections.singletonList(MaterialDto.builder().name("N95口罩").build()))
+                .build(), 1L);
+
+        ArgumentCaptor<MaterialRequiredEntity> before = ArgumentCaptor.forClass(MaterialRequiredEntity.class);
+        ArgumentCaptor<MaterialRequiredEntity> after = ArgumentCaptor.forClass(MaterialRequiredEntity.class);
+        verify(materialRequiredService).updateChangedColumns(before.capture(), after.capture());
+        String sqlSet = materialRequiredService.changedColumns(before.getValue(), after.getValue()).getSqlSet();
+        assertTrue(sqlSet.contains("material_required_name="));
+        assertFalse(sqlSet.contains("district="));
+        assertFalse(sqlSet.contains("material_required_comment="));
+        assertFalse(sqlSet.contains("material_required_standard="));
+        assertFalse(sqlSet.contains("material_required_image_urls="));
+        assertEquals("https://oss.com/a.jpg", after.getValue().getMaterialRequiredImageUrls());
+    }
+
+    @Test
+    void should_update_only_pending_materials_in_one_statement_when_batch_approve_given_mixed_ids() {
+        when(materialRequiredMapper.selectList(any())).thenReturn(Arrays.asList(
+                MaterialRequiredEntity.builder().id(1L).materialRequiredStatus(MaterialStatus.PENDING.name()).build(),
+                MaterialRequiredEntity.builder().id(2L).materialRequiredStatus(MaterialStatus.PUBLISHED.name()).build(),
+                MaterialRequiredEntity.builder().id(3L).materialRequiredStatus(MaterialStatus.PENDING.name()).build()));
+
+        List<MaterialReviewResult> results = materialRequiredService.batchApprove(Arrays.asList(1L, 2L, 3L, 4L, 1L));
+
+        assertEquals(Arrays.asList(
+                MaterialReviewResult.builder().id(1L).outcome(ReviewOutcome.UPDATED.name()).build(),
+                MaterialReviewResult.builder().id(2L).outcome(ReviewOutcome.NOT_PENDING.name()).build(),
+                MaterialReviewResult.builder().id(3L).outcome(ReviewOutcome.UPDATED.name()).build(),
+                MaterialReviewResult.builder().id(4L).outcome(ReviewOutcome.NOT_FOUND.name()).build()), results);
+        verify(materialRequiredMapper, times(1)).update(isNull(), any());
+        verify(materialRequiredMapper, never()).selectById(anyLong());
+        verify(eventPublisher, times(2)).publishEvent(any(MaterialChangedEvent.class));
+    }
+
+    @Test
+    void should_not_update_when_batch_reject_given_no_pending_material() {
+        when(materialRequiredMapper.selectList(any())).thenReturn(Collections.singletonList(
+                MaterialRequiredEntity.builder().id(2L).materialRequiredStatus(MaterialStatus.PUBLISHED.name()).build()));
+
+        List<MaterialReviewResult> results = materialRequiredService.batchReject(Collections.singletonList(2L), "信息不全");
+
+        assertEquals(ReviewOutcome.NOT_PENDING.name(), results.get(0).getOutcome());
+        verify(materialRequiredMapper, never()).update(any(), any());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void should_set_only_changed_columns_when_approve_given_pending_material() {
+        MaterialRequiredEntity before = MaterialRequiredEntity.builder()
+                .id(5L)
+                .materialRequiredComment("医护人员急用")
+                .materialRequiredImageUrls("https://oss.com/b.jpg")
+                .materialRequiredStatus(MaterialStatus.PENDING.name())
+                .reviewMessage("信息不全")
+                .build();
+        MaterialRequiredEntity after = materialRequiredService.copyOf(before);
+        after.approve();
+
+        String sqlSet = materialRequiredService.changedColumns(before, after).getSqlSet();
+
+        assertEquals(3, sqlSet.split(",").length);
+        assertTrue(sqlSet.contains("material_required_status="));
+        assertTrue(sqlSet.contains("review_message="));
+        assertTrue(sqlSet.contains("gmt_modified="));
+        assertEquals("医护人员急用", before.getMaterialRequiredComment());
+        assertEquals(MaterialStatus.PENDING.name(), before.getMaterialRequiredStatus());
+    }
+
+    @Test
+    void should_insert_with_one_statement_and_back_fill_ids_when_save_required_info_given_dozens_of_materials() {
+        List<MaterialResponse> responses = materialRequiredService.saveRequiredInfo(requestWithMaterials(50), 1L, 2L);
+
+        verify(materialRequiredMapper, times(1)).insertAll(anyList());
+        assertEquals(50, responses.size());
+        assertEquals("10", responses.get(0).getId());
+        assertEquals("59", responses.get(49).getId());
+    }
+
+    @Test
+    void should_split_into_multiple_statements_when_save_required_info_given_materials_more_than_insert_batch_size() {
+        materialRequiredService.saveRequiredInfo(requestWithMaterials(450), 1L, 2L);
+
+        verify(materialRequiredMapper, times(3)).insertAll(anyList());
+    }
+
+    @Test
+    void should_carry_each_streamed_row_when_export_required_materials_given_filters() {
+        doAnswer(call -> {
+            ResultHandler<MaterialRequiredEntity> handler = call.getArgument(1);
+            DefaultResultContext<MaterialRequiredEntity> context = new DefaultResultContext<>();
+            for (long id = 1; id <= 3; ++id) {
+                context.nextResultObject(MaterialRequiredEntity.builder().id(id).materialRequiredName("口罩").build());
+                handler.handleResult(context);
+            }
+            return null;
+        }).when(materialRequiredMapper).streamAll(any(), any());
+        List<MaterialResponse> exported = new ArrayList<>();
+
+        materialRequiredService.exportRequiredMaterials("口罩", null, null, null, exported::add);
+
+        verify(materialRequiredMapper).streamAll(argThat(wrapper -> wrapper.getSqlSegment().contains("deleted")
+                && wrapper.getSqlSegment().contains("material_required_category")), any());
+        verify(materialRequiredMapper, never()).selectPage(any(), any());
+        assertEquals(Arrays.asList("1", "2", "3"),
+                exported.stream().map(MaterialResponse::getId).collect(Collectors.toList()));
+        assertEquals("口罩", exported.get(0).getMaterial().getName());
+    }
+
+    private static MaterialRequest requestWithMaterials(int count) {
+        return MaterialRequest.builder()
+                .address(AddressDto.builder().country("中国").province("湖北省").city("武汉市").build())
+                .contactorName("张三")
+                .contactorPhone("18801234567")
+                .organisationName("哈哈")
+                .materials(IntStream.range(0, count)
+                        .mapToObj(i -> MaterialDto.builder().name("口罩" + i).category("口罩").quantity(100.0).build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
 }
@@ -0,0 +1,119 @@
+package com.ncov.module.service;
+
+import com.ncov.module.common.enums.MaterialStatus;
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.event.MaterialChangedEvent;
+import com.ncov.module.controller.dto.MaterialDto;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class MaterialSearchIndexTest {
+
+    @Mock
+    private MaterialRequiredService materialRequiredService;
+    @Mock
+    private MaterialSuppliedService materialSuppliedService;
+
+    private MaterialSearchIndex materialSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(materialRequiredService.getAllPublishedMaterials()).thenReturn(Arrays.asList(
+                material("1", "N95口罩", "口罩", "武汉协和医院", "急需"),
+                material("2", "医用外科口罩", "口罩", "黄冈市中心医院", "N95也可以"),
+                material("3", "防护服", "防护服", "武汉协和医院", null)));
+        when(materialSuppliedService.getAllPublishedMaterials()).thenReturn(Collections.emptyList());
+        materialSearchIndex = new MaterialSearchIndex(materialRequiredService, materialSuppliedService, 1000);
+        materialSearchIndex.load();
+    }
+
+    @Test
+    void should_rank_name_matches_before_comment_matches_when_search_given_latin_query() {
+        assertEquals(Arrays.asList(1L, 2L), materialSearchIndex.search(MaterialType.REQUIRED, "n95", null).getIds());
+    }
+
+    @Test
+    void should_match_word_prefix_and_full_width_characters_when_search() {
+        assertEquals(Arrays.asList(1L, 2L), materialSearchIndex.search(MaterialType.REQUIRED, "Ｎ9", null).getIds());
+    }
+
+    @Test
+    void should_require_all_bigrams_when_search_given_chinese_query() {
+        assertEquals(Arrays.asList(3L, 1L), materialSearchIndex.search(MaterialType.REQUIRED, "协和", null).getIds());
+        assertEquals(Collections.singletonList(2L),
+                materialSearchIndex.search(MaterialType.REQUIRED, "外科口罩", null).getIds());
+        assertTrue(materialSearchIndex.search(MaterialType.REQUIRED, "协和口罩厂", null).getIds().isEmpty());
+    }
+
+    @Test
+    void should_match_supplementary_han_characters_when_search() {
+        materialSearchIndex.onMaterialChanged(new MaterialChangedEvent(MaterialType.REQUIRED, null,
+                material("4", "口罩", "口罩", "\uD840\uDC3E\uD840\uDC3F村卫生室", null)));
+
+        assertEquals(Collections.singletonList(4L),
+                materialSearchIndex.search(MaterialType.REQUIRED, "\uD840\uDC3F村", null).getIds());
+    }
+
+    @Test
+    void should_drop_materials_missing_from_database_when_reconcile() {
+        when(materialRequiredService.getAllPublishedMaterials()).thenReturn(Collections.singletonList(
+                material("2", "医用外科口罩", "口罩", "黄冈市中心医院", "N95也可以")));
+
+        materialSearchIndex.reconcile();
+
+        assertEquals(Collections.singletonList(2L),
+                materialSearchIndex.search(MaterialType.REQUIRED, "n95", null).getIds());
+        assertEquals(1, materialSearchIndex.size(MaterialType.REQUIRED));
+    }
+
+    @Test
+    void should_filter_by_category_when_search_given_category() {
+        assertEquals(Collections.singletonList(1L),
+                materialSearchIndex.search(MaterialType.REQUIRED, "协和", "口罩").getIds());
+    }
+
+    @Test
+    void should_return_empty_when_search_given_blank_query() {
+        assertTrue(materialSearchIndex.search(MaterialType.REQUIRED, "  ", null).getIds().isEmpty());
+        assertTrue(materialSearchIndex.search(MaterialType.REQUIRED, "...", null).getIds().isEmpty());
+    }
+
+    @Test
+    void should_update_index_when_material_edited_or_rejected() {
+        MaterialResponse edited = material("3", "隔离衣", "防护服", "武汉协和医院", null);
+        materialSearchIndex.onMaterialChanged(new MaterialChangedEvent(MaterialType.REQUIRED,
+                material("3", "防护服", "防护服", "武汉协和医院", null), edited));
+        assertEquals(Collections.singletonList(3L),
+                materialSearchIndex.search(MaterialType.REQUIRED, "隔离", null).getIds());
+        assertTrue(materialSearchIndex.search(MaterialType.REQUIRED, "防护服", null).getIds().isEmpty());
+
+        MaterialResponse rejected = material("1", "N95口罩", "口罩", "武汉协和医院", "急需");
+        rejected.setStatus(MaterialStatus.PENDING.name());
+        materialSearchIndex.onMaterialChanged(new MaterialChangedEvent(MaterialType.REQUIRED,
+                material("1", "N95口罩", "口罩", "武汉协和医院", "急需"), rejected));
+        assertEquals(Collections.singletonList(2L),
+                materialSearchIndex.search(MaterialType.REQUIRED, "n95", null).getIds());
+        assertEquals(2, materialSearchIndex.size(MaterialType.REQUIRED));
+    }
+
+    private MaterialResponse material(String id, String name, String category, String organisationName,
+                                      String comment) {
+        return MaterialResponse.builder()
+                .id(id)
+                .material(MaterialDto.builder().name(name).category(category).build())
+                .organisationName(organisationName)
+                .comment(comment)
+                .status(MaterialStatus.PUBLISHED.name())
+                .build();
+    }
+}
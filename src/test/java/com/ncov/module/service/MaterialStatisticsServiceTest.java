@@ -0,0 +1,114 @@
+package com.ncov.module.service;
+
+import com.ncov.module.common.enums.MaterialStatus;
+import com.ncov.module.common.enums.MaterialType;
+import com.ncov.module.common.event.MaterialChangedEvent;
+import com.ncov.module.controller.dto.AddressDto;
+import com.ncov.module.controller.dto.MaterialDto;
+import com.ncov.module.controller.resp.material.MaterialResponse;
+import com.ncov.module.controller.resp.statistics.RegionStatisticsResponse;
+import com.ncov.module.entity.MaterialStatisticsEntity;
+import com.ncov.module.mapper.MaterialRequiredMapper;
+import com.ncov.module.mapper.MaterialSuppliedMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+class MaterialStatisticsServiceTest {
+
+    @Mock
+    private MaterialRequiredMapper materialRequiredMapper;
+    @Mock
+    private MaterialSuppliedMapper materialSuppliedMapper;
+    @InjectMocks
+    private MaterialStatisticsService materialStatisticsService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(materialRequiredMapper.selectStatisticsGroupByRegionAndCategory()).thenReturn(Arrays.asList(
+                group("湖北省", "武汉市", "口罩", MaterialStatus.PUBLISHED, 4L, 4000.0),
+                group("湖北省", "黄冈市", "口罩", MaterialStatus.PUBLISHED, 2L, 1000.0),
+                group("湖北省", "武汉市", "防护服", MaterialStatus.PENDING, 1L, 50.0)));
+        when(materialSuppliedMapper.selectStatisticsGroupByRegionAndCategory()).thenReturn(Collections.singletonList(
+                group("湖北省", "武汉市", "口罩", MaterialStatus.PUBLISHED, 1L, 3000.0)));
+    }
+
+    @Test
+    void should_return_empty_when_get_region_statistics_given_not_reconciled() {
+        assertTrue(materialStatisticsService.getRegionStatistics(true, null, null, null).isEmpty());
+    }
+
+    @Test
+    void should_put_demand_and_supply_side_by_side_when_get_region_statistics_by_city() {
+        materialStatisticsService.reconcile();
+
+        List<RegionStatisticsResponse> rows = materialStatisticsService.getRegionStatistics(
+                true, "湖北省", "口罩", null);
+
+        assertEquals(2, rows.size());
+        assertEquals("武汉市", rows.get(0).getCity());
+        assertEquals(4L, rows.get(0).getRequiredCount().longValue());
+        assertEquals(4000.0, rows.get(0).getRequiredQuantity(), 1e-9);
+        assertEquals(3000.0, rows.get(0).getSuppliedQuantity(), 1e-9);
+        assertEquals("黄冈市", rows.get(1).getCity());
+        assertEquals(0L, rows.get(1).getSuppliedCount().longValue());
+    }
+
+    @Test
+    void should_merge_cities_when_get_region_statistics_by_province() {
+        materialStatisticsService.reconcile();
+
+        List<RegionStatisticsResponse> rows = materialStatisticsService.getRegionStatistics(
+                false, null, null, MaterialStatus.PUBLISHED.name());
+
+        assertEquals(1, rows.size());
+        assertNull(rows.get(0).getCity());
+        assertEquals(6L, rows.get(0).getRequiredCount().longValue());
+        assertEquals(5000.0, rows.get(0).getRequiredQuantity(), 1e-9);
+    }
+
+    @Test
+    void should_move_totals_between_groups_when_material_approved_and_quantity_changed() {
+        materialStatisticsService.reconcile();
+        MaterialResponse pending = material("防护服", 50.0, MaterialStatus.PENDING);
+        MaterialResponse published = material("防护服", 80.0, MaterialStatus.PUBLISHED);
+
+        materialStatisticsService.onMaterialChanged(new MaterialChangedEvent(MaterialType.REQUIRED, pending, published));
+
+        List<RegionStatisticsResponse> rows = materialStatisticsService.getRegionStatistics(
+                true, null, "防护服", null);
+        assertEquals(1, rows.size());
+        assertEquals(MaterialStatus.PUBLISHED.name(), rows.get(0).getStatus());
+        assertEquals(80.0, rows.get(0).getRequiredQuantity(), 1e-9);
+    }
+
+    private MaterialStatisticsEntity group(String province, String city, String category, MaterialStatus status,
+                                           Long total, Double quantity) {
+        return MaterialStatisticsEntity.builder()
+                .province(province)
+                .city(city)
+                .category(category)
+                .status(status.name())
+                .total(total)
+                .quantity(quantity)
+                .build();
+    }
+
+    private MaterialResponse material(String category, Double quantity, MaterialStatus status) {
+        return MaterialResponse.builder()
+                .material(MaterialDto.builder().category(category).quantity(quantity).build())
+                .address(AddressDto.builder().province("湖北省").city("武汉市").build())
+                .status(status.name())
+                .build();
+    }
+}
@@ -13,6 +13,7 @@ import com.ncov.module.mapper.MaterialSuppliedMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 
 import java.util.Arrays;
@@ -30,6 +31,15 @@ class MaterialSuppliedServiceTest {
     @Mock
     private MaterialSuppliedMapper materialSuppliedMapper;
 
+    @Mock
+    private MaterialCountService materialCountService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ThumbnailService thumbnailService;
+
     @Spy
     @InjectMocks
     private MaterialSuppliedService materialSuppliedService;
@@ -42,8 +52,8 @@ class MaterialSuppliedServiceTest {
             for (int i = 0; i < entities.size(); ++i) {
                 entities.get(i).setId(i + 10L);
             }
-            return true;
-        }).when(materialSuppliedService).saveBatch(anyList());
+            return entities.size();
+        }).when(materialSuppliedMapper).insertAll(anyList());
         when(userInfoService.getUser(anyLong())).thenReturn(UserInfoEntity.builder().status(MaterialStatus.PENDING.name()).build());
     }
 
@@ -69,7 +79,7 @@ class MaterialSuppliedServiceTest {
         assertEquals(1, responses.size());
         MaterialResponse response = responses.get(0);
         assertEquals("10", response.getId());
-        assertEquals(MaterialDto.builder().name("Materialname").quantity(200000.0).standard("ISO9001").category("Mask").imageUrls(Arrays.asList("https://oss.com/images/1.png", "https://oss.com/images/2.png")).build(), response.getMaterial());
+        assertEquals(MaterialDto.builder().name("Materialname").quantity(200000.0).standard("ISO9001").category("Mask").imageUrls(Arrays.asList("https://oss.com/images/1.png", "https://oss.com/images/2.png")).thumbnailUrls(Arrays.asList("https://oss.com/images/1.png", "https://oss.com/images/2.png")).previewUrls(Arrays.asList("https://oss.com/images/1.png", "https://oss.com/images/2.png")).build(), response.getMaterial());
         assertEquals("Supplier Organisation", response.getOrganisationName());
         assertEquals(AddressDto.builder().country("中国").province("湖北省").city("武汉市").district("东西湖区").streetAddress("银潭路1号").build(), response.getAddress());
         assertEquals("Test M", response.getContactorName());
@@ -99,7 +109,7 @@ class MaterialSuppliedServiceTest {
                 1L, 2L);
 
         ArgumentCaptor<List> materialsCaptor = ArgumentCaptor.forClass(List.class);
-        verify(materialSuppliedService).saveBatch(materialsCaptor.capture());
+        verify(materialSuppliedMapper).insertAll(materialsCaptor.capture());
         List<MaterialSuppliedEntity> materials = materialsCaptor.getValue();
         assertEquals(1, materials.size());
         MaterialSuppliedEntity material = materials.get(0);
@@ -147,7 +157,7 @@ class MaterialSuppliedServiceTest {
         assertEquals(2, responses.size());
         MaterialResponse response0 = responses.get(0);
         assertEquals("10", response0.getId());
-        assertEquals(MaterialDto.builder().name("Materialname").quantity(200000.0).standard("ISO9001").category("Mask").imageUrls(Arrays.asList("https://oss.com/images/1.png", "https://oss.com/images/2.png")).build(), response0.getMaterial());
+        assertEquals(MaterialDto.builder().name("Materialname").quantity(200000.0).standard("ISO9001").category("Mask").imageUrls(Arrays.asList("https://oss.com/images/1.png", "https://oss.com/images/2.png")).thumbnailUrls(Arrays.asList("https://oss.com/images/1.png", "https://oss.com/images/2.png")).previewUrls(Arrays.asList("https://oss.com/images/1.png", "https://oss.com/images/2.png")).build(), response0.getMaterial());
         assertEquals("Supplier Organisation", response0.getOrganisationName());
         assertEquals(AddressDto.builder()
                 .country("中国")
@@ -163,7 +173,7 @@ class MaterialSuppliedServiceTest {
         assertNotNull(response0.getGmtCreated());
         MaterialResponse response1 = responses.get(1);
         assertEquals("11", response1.getId());
-        assertEquals(MaterialDto.builder().name("Coat").quantity(3000.0).standard("ISO9002").category("Coat").imageUrls(Arrays.asList("https://oss.com/images/1.png", "https://oss.com/images/2.png")).build(), response1.getMaterial());
+        assertEquals(MaterialDto.builder().name("Coat").quantity(3000.0).standard("ISO9002").category("Coat").imageUrls(Arrays.asList("https://oss.com/images/1.png", "https://oss.com/images/2.png")).thumbnailUrls(Arrays.asList("https://oss.com/images/1.png", "https://oss.com/images/2.png")).previewUrls(Arrays.asList("https://oss.com/images/1.png", "https://oss.com/images/2.png")).build(), response1.getMaterial());
         assertEquals("Supplier Organisation", response1.getOrganisationName());
         assertEquals(AddressDto.builder()
                 .country("中国")
@@ -202,7 +212,7 @@ class MaterialSuppliedServiceTest {
                 1L, 2L);
 
         ArgumentCaptor<List> materialsCaptor = ArgumentCaptor.forClass(List.class);
-        verify(materialSuppliedService).saveBatch(materialsCaptor.capture());
+        verify(materialSuppliedMapper).insertAll(materialsCaptor.capture());
         List<MaterialSuppliedEntity> materials = materialsCaptor.getValue();
         assertEquals(2, materials.size());
         MaterialSuppliedEntity material0 = materials.get(0);
@@ -267,7 +277,7 @@ class MaterialSuppliedServiceTest {
                 1L, 2L);
 
         ArgumentCaptor<List> materialsCaptor = ArgumentCaptor.forClass(List.class);
-        verify(materialSuppliedService).saveBatch(materialsCaptor.capture());
+        verify(materialSuppliedMapper).insertAll(materialsCaptor.capture());
         List<MaterialSuppliedEntity> materials = materialsCaptor.getValue();
         assertEquals(2, materials.size());
         assertTrue(materials.stream().allMatch(MaterialSuppliedEntity::isApproved));
@@ -275,8 +285,7 @@ class MaterialSuppliedServiceTest {
 
     @Test
     void should_update_material_when_supplied_is_present_and_publisher_of_the_supplied_is_request_user() {
-        when(materialSuppliedService.updateById(any(MaterialSuppliedEntity.class)))
-                .thenReturn(true);
+        doReturn(true).when(materialSuppliedService).updateChangedColumns(any(), any());
         when(materialSuppliedMapper.selectById(anyLong()))
                 .thenReturn(MaterialSuppliedEntity.builder()
                         .materialSuppliedUserId(1L).build());
@@ -28,6 +28,8 @@ class SupplierServiceTest {
     private SupplierMapper supplierMapper;
     @Mock
     private UserInfoService userInfoService;
+    @Mock
+    private UserOrganisationCache userOrganisationCache;
     @InjectMocks
     private SupplierService supplierService;
 
@@ -0,0 +1,116 @@
+package com.ncov.module.service;
+
+import com.ncov.module.client.JdOssClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ThumbnailServiceTest {
+
+    private static final String IMAGE_NAME = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef.png";
+
+    @Mock
+    private JdOssClient jdOssClient;
+    private ThumbnailService thumbnailService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.initMocks(this);
+        thumbnailService = new ThumbnailService(jdOssClient, 1, 1, 0.8f, 50000000L, 1000L, 600L, 1000);
+    }
+
+    @Test
+    void should_upload_scaled_jpeg_for_each_derivative_when_generate_given_large_image() throws IOException {
+        when(jdOssClient.download(IMAGE_NAME)).thenReturn(png(2000, 1000));
+        ArgumentCaptor<byte[]> imageCaptor = ArgumentCaptor.forClass(byte[].class);
+
+        thumbnailService.generate(IMAGE_NAME);
+
+        verify(jdOssClient).putDerivative(eq("thumbnail/" + IMAGE_NAME.replace(".png", ".jpg")),
+                imageCaptor.capture(), eq("image/jpeg"));
+        BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(imageCaptor.getValue()));
+        assertEquals(240, thumbnail.getWidth());
+        assertEquals(120, thumbnail.getHeight());
+        verify(jdOssClient).putDerivative(eq("preview/" + IMAGE_NAME.replace(".png", ".jpg")),
+                any(byte[].class), eq("image/jpeg"));
+        verify(jdOssClient, never()).uploadImage(anyString(), any(InputStream.class), any(), anyLong());
+        assertEquals(1, thumbnailService.getGeneratedImages());
+    }
+
+    @Test
+    void should_not_download_original_when_generate_given_derivatives_already_exist() throws IOException {
+        when(jdOssClient.exists(anyString())).thenReturn(true);
+
+        thumbnailService.generate(IMAGE_NAME);
+
+        verify(jdOssClient, never()).download(anyString());
+        verify(jdOssClient, never()).putDerivative(anyString(), any(byte[].class), any());
+    }
+
+    @Test
+    void should_skip_when_generate_given_unrecognized_image() throws IOException {
+        when(jdOssClient.download(IMAGE_NAME)).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+
+        thumbnailService.generate(IMAGE_NAME);
+
+        verify(jdOssClient, never()).putDerivative(anyString(), any(byte[].class), any());
+        assertEquals(0, thumbnailService.getGeneratedImages());
+    }
+
+    @Test
+    void should_report_derivatives_only_after_generated_when_has_derivatives_given_new_image() {
+        when(jdOssClient.exists(anyString())).thenReturn(true);
+
+        assertFalse(thumbnailService.hasDerivatives(IMAGE_NAME));
+        verify(jdOssClient, after(200).never()).exists(anyString());
+        verify(jdOssClient, never()).download(anyString());
+        thumbnailService.generate(IMAGE_NAME);
+
+        assertTrue(thumbnailService.hasDerivatives(IMAGE_NAME));
+    }
+
+    @Test
+    void should_submit_unconfirmed_images_when_reconcile_given_listed_images() {
+        String readyImage = "fedcba9876543210fedcba9876543210fedcba9876543210fedcba9876543210.jpg";
+        when(jdOssClient.exists(anyString())).thenReturn(true);
+        thumbnailService.generate(readyImage);
+        reset(jdOssClient);
+        when(jdOssClient.exists(anyString())).thenReturn(true);
+        when(jdOssClient.listImages(null, 1000)).thenReturn(Arrays.asList(IMAGE_NAME, readyImage));
+
+        thumbnailService.reconcile();
+
+        verify(jdOssClient, timeout(1000)).exists("thumbnail/" + IMAGE_NAME.replace(".png", ".jpg"));
+        verify(jdOssClient, timeout(1000)).exists("preview/" + IMAGE_NAME.replace(".png", ".jpg"));
+        verify(jdOssClient, after(200).times(2)).exists(anyString());
+    }
+
+    @Test
+    void should_not_report_derivatives_when_has_derivatives_given_generation_failed() throws IOException {
+        when(jdOssClient.download(IMAGE_NAME)).thenReturn(new ByteArrayInputStream(new byte[]{1, 2, 3}));
+
+        thumbnailService.generate(IMAGE_NAME);
+
+        assertFalse(thumbnailService.hasDerivatives(IMAGE_NAME));
+        verify(jdOssClient, after(200).times(1)).download(IMAGE_NAME);
+    }
+
+    private static InputStream png(int width, int height) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB), "png", output);
+        return new ByteArrayInputStream(output.toByteArray());
+    }
+}
@@ -3,9 +3,11 @@ package com.ncov.module.service;
 import com.ncov.module.common.enums.UserRole;
 import com.ncov.module.common.exception.DuplicateException;
 import com.ncov.module.controller.resp.user.SignInResponse;
+import com.ncov.module.controller.resp.user.UserDetailResponse;
 import com.ncov.module.entity.HospitalInfoEntity;
 import com.ncov.module.entity.SupplierInfoEntity;
 import com.ncov.module.entity.UserInfoEntity;
+import com.ncov.module.entity.UserOrganisationEntity;
 import com.ncov.module.mapper.HospitalInfoMapper;
 import com.ncov.module.mapper.SupplierMapper;
 import com.ncov.module.mapper.UserInfoMapper;
@@ -43,7 +45,8 @@ class UserInfoServiceTest {
         ReflectionTestUtils.setField(userInfoService, "baseMapper", userInfoMapper);
         ReflectionTestUtils.setField(userInfoService, "jwtSecret", "123456");
         ReflectionTestUtils.setField(userInfoService, "jwtExpirationInMs", 259200000L);
-        when(userInfoMapper.findByUserPhone(anyString())).thenReturn(UserInfoEntity.builder().id(3L).userRoleId(2).userNickName("Nick test").userPasswordSHA256(DigestUtils.sha256Hex("password")).userPhone("18810119999").build());
+        ReflectionTestUtils.setField(userInfoService, "userOrganisationCache", new UserOrganisationCache(100, 60));
+        when(userInfoMapper.findWithOrganisationByUserPhone(anyString())).thenReturn(withOrganisation(UserInfoEntity.builder().id(3L).userRoleId(2).userNickName("Nick test").userPasswordSHA256(DigestUtils.sha256Hex("password")).userPhone("18810119999").build()));
         when(hospitalInfoMapper.selectByHospitalCreatorUserId(anyLong())).thenReturn(HospitalInfoEntity.builder().id(101L).hospitalName("测试医院").build());
         when(supplierMapper.selectByMaterialSupplierCreatorUserId(anyLong())).thenReturn(SupplierInfoEntity.builder().id(102L).materialSupplierName("测试供应商").build());
     }
@@ -80,7 +83,7 @@ class UserInfoServiceTest {
 
     @Test
     void should_return_hospital_info_in_token_when_sign_in_given_user_is_a_hospital() {
-        when(userInfoMapper.findByUserPhone(anyString())).thenReturn(UserInfoEntity.builder().id(3L).userRoleId(3).userNickName("Nick test").userPasswordSHA256(DigestUtils.sha256Hex("password")).build());
+        when(userInfoMapper.findWithOrganisationByUserPhone(anyString())).thenReturn(withOrganisation(UserInfoEntity.builder().id(3L).userRoleId(3).userNickName("Nick test").userPasswordSHA256(DigestUtils.sha256Hex("password")).build()));
 
         SignInResponse response = userInfoService.signIn("18800001111", "password");
         Claims jwtClaims = new DefaultJwtParser().setSigningKey("123456").parseClaimsJws(response.getToken()).getBody();
@@ -99,15 +102,55 @@ class UserInfoServiceTest {
 
     @Test
     void should_throw_bad_credential_exception_when_sign_in_given_phone_not_exist() {
-        when(userInfoMapper.findByUserPhone(anyString())).thenReturn(null);
+        when(userInfoMapper.findWithOrganisationByUserPhone(anyString())).thenReturn(null);
 
         assertThrows(BadCredentialsException.class, () -> userInfoService.signIn("18900001111", "password"));
     }
 
     @Test
     void should_throw_bad_credential_exception_when_sign_in_given_password_does_not_match_with_record() {
-        when(userInfoMapper.findByUserPhone(anyString())).thenReturn(UserInfoEntity.builder().userPasswordSHA256("correctpassword").build());
+        when(userInfoMapper.findWithOrganisationByUserPhone(anyString())).thenReturn(withOrganisation(UserInfoEntity.builder().userPasswordSHA256("correctpassword").build()));
 
         assertThrows(BadCredentialsException.class, () -> userInfoService.signIn("18800001111", "wrongpassword"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_not_query_organisation_when_sign_in() {
+        userInfoService.signIn("18800001111", "password");
+
+        verify(hospitalInfoMapper, never()).selectByHospitalCreatorUserId(anyLong());
+        verify(supplierMapper, never()).selectByMaterialSupplierCreatorUserId(anyLong());
+    }
+
+    @Test
+    void should_query_organisation_only_once_when_get_detail_given_same_user_twice() {
+        when(userInfoMapper.selectById(3L)).thenReturn(UserInfoEntity.builder().id(3L).userRoleId(2).userNickName("Nick test").build());
+
+        userInfoService.getDetail(3L);
+        UserDetailResponse detail = userInfoService.getDetail(3L);
+
+        assertEquals("测试供应商", detail.getSupplier().getName());
+        verify(supplierMapper, times(1)).selectByMaterialSupplierCreatorUserId(3L);
+    }
+
+    @Test
+    void should_reload_organisation_when_get_detail_given_user_verified_after_cached() {
+        when(userInfoMapper.selectById(3L)).thenReturn(UserInfoEntity.builder().id(3L).userRoleId(2).userNickName("Nick test").build());
+
+        userInfoService.getDetail(3L);
+        userInfoService.verifyUser(3L);
+        userInfoService.getDetail(3L);
+
+        verify(supplierMapper, times(2)).selectByMaterialSupplierCreatorUserId(3L);
+    }
+
+    private UserOrganisationEntity withOrganisation(UserInfoEntity user) {
+        return UserOrganisationEntity.builder()
+                .user(user)
+                .hospitalId(101L)
+                .hospitalName("测试医院")
+                .supplierId(102L)
+                .supplierName("测试供应商")
+                .build();
+    }
+}